@@ -1,21 +1,96 @@
 package chessmaster;
 
+import chessmaster.analysis.AnalysisBoard;
+import chessmaster.analysis.AnalysisSummary;
+import chessmaster.analysis.BatchAnalyser;
+import chessmaster.analysis.Bench;
+import chessmaster.analysis.SuiteRunner;
+import chessmaster.analysis.SuiteSummary;
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.MateSolution;
+import chessmaster.engine.MateSolver;
+import chessmaster.engine.ProofNumberTable;
 import chessmaster.exceptions.ChessMasterException;
 import chessmaster.exceptions.LoadBoardException;
 import chessmaster.exceptions.SaveBoardException;
 import chessmaster.game.ChessBoard;
+import chessmaster.game.GameClock;
 import chessmaster.game.Move;
+import chessmaster.game.Position;
+import chessmaster.metrics.EngineMetrics;
 import chessmaster.parser.Parser;
+import chessmaster.replay.ReplaySummary;
+import chessmaster.replay.Replayer;
+import chessmaster.server.GameServer;
+import chessmaster.server.SessionStore;
 import chessmaster.ui.TextUI;
+import chessmaster.ui.UciInterface;
 import chessmaster.storage.Storage;
 import chessmaster.game.Game;
 import chessmaster.pieces.ChessPiece;
+import chessmaster.storage.IngestSummary;
+import chessmaster.storage.MoveScriptReader;
+import chessmaster.storage.PgnIngestor;
+import chessmaster.storage.PositionDatabase;
+import chessmaster.tournament.OpeningSuite;
+import chessmaster.tournament.Sprt;
+import chessmaster.tournament.Tournament;
+import chessmaster.tournament.TournamentResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * Main entry-point for ChessMaster application.
  */
 public class ChessMaster {
 
+    private static final String SAVE_FILE_PATH = "/data/game.txt";
+    private static final String PGN_MODE = "pgn";
+    private static final String PGN_USAGE = "pgn <file> [workers]";
+    private static final String EXPLORER_MODE = "explorer";
+    private static final String EXPLORER_USAGE = "explorer <pgn file> [database file] [capacity]";
+    private static final long DEFAULT_EXPLORER_CAPACITY = 1L << 22;
+    private static final String UCI_MODE = "uci";
+    private static final String TOURNAMENT_MODE = "tournament";
+    private static final String TOURNAMENT_USAGE = "tournament <engine> <engine> [max games] [concurrency] "
+            + "[openings file], where an engine is e.g. name=dev,depth=5,nodes=20000,time=100,hash=16,"
+            + "nullmove=true,lmr=true";
+    private static final String SERVER_MODE = "server";
+    private static final String SERVER_USAGE = "server [port] [max sessions] [move time ms] [search threads] "
+            + "[game heap budget MB]";
+    private static final String REPLAY_MODE = "replay";
+    private static final String REPLAY_USAGE = "replay <script file> [none|final]";
+    private static final String RENDER_FINAL = "final";
+    private static final String RENDER_NONE = "none";
+    private static final String ANALYSE_MODE = "analyse";
+    private static final String ANALYSE_USAGE = "analyse <epd file> <output file|-> [engine] [workers], "
+            + "where an engine is e.g. depth=8,hash=16";
+    private static final String STANDARD_OUTPUT = "-";
+    private static final String SUITE_MODE = "suite";
+    private static final String SUITE_USAGE = "suite <epd file> [time ms] [engine] [workers], "
+            + "where an engine is e.g. hash=16,nodes=1000000";
+    private static final String BENCH_MODE = "bench";
+    private static final String BENCH_USAGE = "bench [depth]";
+    private static final String MATE_MODE = "mate";
+    private static final String MATE_USAGE = "mate <moves> [fen|white|black], where white or black solves the "
+            + "saved board with that side to move";
+    private static final String PLAY_MODE = "play";
+    private static final String PLAY_USAGE = "play [engine], where an engine is e.g. depth=6,hash=64 or "
+            + "mcts=true,playout=eval,hash=256";
+    private static final String STUDY_MODE = "study";
+    private static final String AVAILABLE_MODES = String.join(", ", PGN_MODE, EXPLORER_MODE, UCI_MODE,
+            TOURNAMENT_MODE, SERVER_MODE, REPLAY_MODE, ANALYSE_MODE, SUITE_MODE, BENCH_MODE, MATE_MODE, PLAY_MODE,
+            STUDY_MODE);
+
     private ChessBoard board;
     private TextUI ui;
     private Storage storage;
@@ -67,7 +142,374 @@ public class ChessMaster {
 
     }
 
+    /**
+     * Runs one of the non-interactive modes selected by the command line arguments.
+     *
+     * @param args Command line arguments, starting with the mode name.
+     */
+    private static void runMode(String[] args) {
+        switch (args[0]) {
+        case PGN_MODE:
+            importPgn(args);
+            break;
+        case EXPLORER_MODE:
+            buildExplorer(args);
+            break;
+        case UCI_MODE:
+            runUci();
+            break;
+        case TOURNAMENT_MODE:
+            runTournament(args);
+            break;
+        case SERVER_MODE:
+            runServer(args);
+            break;
+        case REPLAY_MODE:
+            replayScript(args);
+            break;
+        case ANALYSE_MODE:
+            analysePositions(args);
+            break;
+        case SUITE_MODE:
+            runSuite(args);
+            break;
+        case BENCH_MODE:
+            runBench(args);
+            break;
+        case MATE_MODE:
+            solveMate(args);
+            break;
+        case PLAY_MODE:
+            playAgainstCpu(args);
+            break;
+        case STUDY_MODE:
+            studyPosition(args);
+            break;
+        default:
+            TextUI.printUnknownModeMessage(args[0], AVAILABLE_MODES);
+        }
+    }
+
+    private static void importPgn(String[] args) {
+        if (args.length < 2) {
+            TextUI.printUsageMessage(PGN_USAGE);
+            return;
+        }
+
+        try {
+            int workerCount = args.length > 2 ? Integer.parseInt(args[2]) : PgnIngestor.getDefaultWorkerCount();
+            IngestSummary summary = new PgnIngestor(workerCount).ingest(Path.of(args[1]), game -> { });
+            TextUI.printImportSummary(summary);
+        } catch (NumberFormatException e) {
+            TextUI.printUsageMessage(PGN_USAGE);
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Builds (or adds to) the opening explorer database from a PGN file.
+     */
+    private static void buildExplorer(String[] args) {
+        if (args.length < 2) {
+            TextUI.printUsageMessage(EXPLORER_USAGE);
+            return;
+        }
+
+        String databasePath = args.length > 2 ? args[2] : Game.EXPLORER_FILE_PATH;
+        try {
+            long capacity = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_EXPLORER_CAPACITY;
+            Path path = Path.of(databasePath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (PositionDatabase explorer = PositionDatabase.openMapped(path, capacity)) {
+                PgnIngestor ingestor = new PgnIngestor(PgnIngestor.getDefaultWorkerCount());
+                IngestSummary summary = ingestor.ingest(Path.of(args[1]),
+                    game -> explorer.addGame(game, PositionDatabase.DEFAULT_MAX_PLY));
+                TextUI.printImportSummary(summary);
+                TextUI.printExplorerBuiltMessage(explorer.getSize(), explorer.getCapacity());
+            }
+        } catch (NumberFormatException e) {
+            TextUI.printUsageMessage(EXPLORER_USAGE);
+        } catch (IOException | IllegalStateException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Runs the engine as a UCI engine on standard input and output until the GUI sends "quit".
+     */
+    private static void runUci() {
+        try {
+            new UciInterface(System.in, System.out).run();
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Plays two engine configurations against each other until the SPRT reaches a decision.
+     */
+    private static void runTournament(String[] args) {
+        if (args.length < 3) {
+            TextUI.printUsageMessage(TOURNAMENT_USAGE);
+            return;
+        }
+
+        try {
+            EngineConfig first = EngineConfig.parse(args[1]);
+            EngineConfig second = EngineConfig.parse(args[2]);
+            int maxGames = args.length > 3 ? Integer.parseInt(args[3]) : Tournament.DEFAULT_MAX_GAMES;
+            int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : Tournament.getDefaultConcurrency();
+            OpeningSuite openings = args.length > 5 ? OpeningSuite.load(Path.of(args[5])) : OpeningSuite.builtIn();
+            Sprt sprt = new Sprt();
+            TextUI.printTournamentStartedMessage(first.getName(), second.getName(), maxGames, concurrency,
+                    openings.size());
+            Tournament tournament = new Tournament(first, second, openings, sprt, concurrency, maxGames);
+            TournamentResult result = tournament.run(progress -> TextUI.printTournamentProgress(progress, sprt));
+            TextUI.printTournamentResult(result, first.getName(), second.getName());
+        } catch (IllegalArgumentException e) {
+            TextUI.printUsageMessage(TOURNAMENT_USAGE);
+        } catch (IOException | ChessMasterException e) {
+            TextUI.printErrorMessage(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serves games over local connections until the process is stopped.
+     */
+    private static void runServer(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+            int maxSessions = args.length > 2 ? Integer.parseInt(args[2]) : GameServer.DEFAULT_MAX_SESSIONS;
+            long moveTime = args.length > 3 ? Long.parseLong(args[3]) : GameServer.DEFAULT_MOVE_TIME_MILLIS;
+            int searchThreads = args.length > 4
+                    ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            long heapBudget = args.length > 5
+                    ? Long.parseLong(args[5]) << 20 : SessionStore.DEFAULT_HEAP_BUDGET_BYTES;
+            try (GameServer server = new GameServer(port, maxSessions, moveTime, searchThreads, heapBudget)) {
+                TextUI.printServerStartedMessage(server.getPort(), maxSessions, searchThreads);
+                server.run();
+            }
+        } catch (NumberFormatException e) {
+            TextUI.printUsageMessage(SERVER_USAGE);
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Replays the games of a move script without prompting, reporting the moves that could not be
+     * played and, if asked to, showing the final board of each game.
+     */
+    private static void replayScript(String[] args) {
+        String render = args.length > 2 ? args[2] : RENDER_NONE;
+        if (args.length < 2 || !(render.equals(RENDER_NONE) || render.equals(RENDER_FINAL))) {
+            TextUI.printUsageMessage(REPLAY_USAGE);
+            return;
+        }
+
+        boolean isFinalRendered = render.equals(RENDER_FINAL);
+        try (MoveScriptReader reader = new MoveScriptReader(Path.of(args[1]))) {
+            ReplaySummary summary = new Replayer().replay(reader, game -> {
+                if (!game.isValid()) {
+                    TextUI.printReplayRejectedMove(game);
+                }
+                if (isFinalRendered) {
+                    TextUI.printChessBoard(game.getBoard());
+                }
+            });
+            TextUI.printReplaySummary(summary);
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Searches every position of an EPD or FEN file and writes the best moves out as EPD, in the
+     * order of the input, to a file or to the console.
+     */
+    private static void analysePositions(String[] args) {
+        if (args.length < 3) {
+            TextUI.printUsageMessage(ANALYSE_USAGE);
+            return;
+        }
+
+        try {
+            EngineConfig config = args.length > 3 ? EngineConfig.parse(args[3]) : new EngineConfig();
+            int workerCount = args.length > 4 ? Integer.parseInt(args[4]) : BatchAnalyser.getDefaultWorkerCount();
+            if (workerCount < 1) {
+                TextUI.printUsageMessage(ANALYSE_USAGE);
+                return;
+            }
+            boolean isStandardOutput = args[2].equals(STANDARD_OUTPUT);
+            Writer output = isStandardOutput
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8);
+            AnalysisSummary summary;
+            try (BufferedReader input = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)) {
+                summary = new BatchAnalyser(config, workerCount).analyse(input, position -> {
+                    try {
+                        output.write(position.toEpd());
+                        output.write(System.lineSeparator());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                // The console stays open for the summary
+                if (isStandardOutput) {
+                    output.flush();
+                } else {
+                    output.close();
+                }
+            }
+            TextUI.printBatchAnalysisSummary(summary);
+        } catch (IllegalArgumentException e) {
+            TextUI.printUsageMessage(ANALYSE_USAGE);
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        } catch (UncheckedIOException e) {
+            TextUI.printErrorMessage(e.getCause());
+        }
+    }
+
+    /**
+     * Runs an EPD test suite, reporting which positions the engine solved and how fast.
+     */
+    private static void runSuite(String[] args) {
+        if (args.length < 2) {
+            TextUI.printUsageMessage(SUITE_USAGE);
+            return;
+        }
+
+        try (BufferedReader input = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            long timeLimit = args.length > 2 ? Long.parseLong(args[2]) : SuiteRunner.DEFAULT_TIME_MILLIS;
+            EngineConfig config = args.length > 3 ? EngineConfig.parse(args[3]) : new EngineConfig();
+            int workerCount = args.length > 4 ? Integer.parseInt(args[4]) : BatchAnalyser.getDefaultWorkerCount();
+            if (timeLimit < 0 || workerCount < 1) {
+                TextUI.printUsageMessage(SUITE_USAGE);
+                return;
+            }
+            SuiteSummary summary = new SuiteRunner(config, timeLimit, workerCount).run(input, TextUI::printSuiteResult);
+            TextUI.printSuiteSummary(summary);
+        } catch (IllegalArgumentException e) {
+            TextUI.printUsageMessage(SUITE_USAGE);
+        } catch (IOException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Searches the built-in bench positions and prints the total node count and the speed.
+     */
+    private static void runBench(String[] args) {
+        try {
+            int depth = args.length > 1 ? Integer.parseInt(args[1]) : Bench.DEFAULT_DEPTH;
+            if (depth < 1) {
+                TextUI.printUsageMessage(BENCH_USAGE);
+                return;
+            }
+            int[] number = {0};
+            AnalysisSummary summary = new Bench(depth).run(
+                result -> TextUI.printBenchPosition(++number[0], Bench.getPositionCount(), result));
+            TextUI.printBenchSummary(summary, depth);
+        } catch (NumberFormatException e) {
+            TextUI.printUsageMessage(BENCH_USAGE);
+        }
+    }
+
+    /**
+     * Reads the saved board as a position.
+     *
+     * @param sideToMove Colour of the side to move.
+     * @throws LoadBoardException If there is no saved board, or it is not a whole board with both kings.
+     */
+    private static Position loadSavedPosition(int sideToMove) throws LoadBoardException {
+        // Storage would create a missing file and load it as a new board
+        if (!Files.exists(Path.of(SAVE_FILE_PATH))) {
+            throw new LoadBoardException();
+        }
+        Position position = Position.fromChessBoard(new Storage(SAVE_FILE_PATH).loadBoard(), sideToMove);
+        if (position == null) {
+            throw new LoadBoardException();
+        }
+        return position;
+    }
+
+    /**
+     * Proves or refutes a mate in the given number of moves, in a FEN position or on the saved board.
+     */
+    private static void solveMate(String[] args) {
+        if (args.length < 2) {
+            TextUI.printUsageMessage(MATE_USAGE);
+            return;
+        }
+
+        try {
+            int maxMoves = Integer.parseInt(args[1]);
+            String source = args.length > 2 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)) : "white";
+            Position position;
+            if (source.equals("white") || source.equals("black")) {
+                position = loadSavedPosition(source.equals("white") ? ChessPiece.WHITE : ChessPiece.BLACK);
+            } else {
+                position = Position.fromFen(source);
+            }
+            if (maxMoves < 1 || maxMoves > MateSolver.MAX_MOVES) {
+                TextUI.printUsageMessage(MATE_USAGE);
+                return;
+            }
+            MateSolver solver = new MateSolver(new ProofNumberTable(ProofNumberTable.DEFAULT_SIZE_MB),
+                    MateSolver.DEFAULT_MAX_NODES);
+            MateSolution solution = solver.solve(position, maxMoves);
+            TextUI.printMateSolution(solution);
+        } catch (NumberFormatException e) {
+            TextUI.printUsageMessage(MATE_USAGE);
+        } catch (ChessMasterException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
+    /**
+     * Plays a game against the CPU with the given engine settings.
+     */
+    private static void playAgainstCpu(String[] args) {
+        EngineConfig config;
+        try {
+            config = args.length > 1 ? EngineConfig.parse(args[1]) : new EngineConfig();
+        } catch (IllegalArgumentException e) {
+            TextUI.printUsageMessage(PLAY_USAGE);
+            return;
+        }
+        new Game("single", ChessPiece.WHITE, GameClock.DEFAULT_BASE_TIME_MILLIS, GameClock.DEFAULT_INCREMENT_MILLIS,
+                config).run();
+    }
+
+    /**
+     * Opens the analysis board on a FEN position, or on the starting position.
+     */
+    private static void studyPosition(String[] args) {
+        try {
+            Position start = args.length > 1
+                    ? Position.fromFen(String.join(" ", Arrays.copyOfRange(args, 1, args.length)))
+                    : Position.startingPosition();
+            new AnalysisBoard(start).run();
+        } catch (ChessMasterException e) {
+            TextUI.printErrorMessage(e);
+        }
+    }
+
     public static void main(String[] args) {
+        EngineMetrics.register();
+        EngineMetrics.get().dumpOnShutdown(Path.of(EngineMetrics.DEFAULT_DUMP_FILE));
+        if (args.length > 0) {
+            runMode(args);
+            return;
+        }
+
 
         // String logo = "░█████╗░██╗░░██╗███████╗░██████╗░██████╗
         // ███╗░░░███╗░█████╗░░██████╗████████╗███████╗██████╗░"
@@ -90,7 +532,7 @@ public class ChessMaster {
 
         // System.out.println(logo);
 
-        new ChessMaster("/data/game.txt").run();
+        new ChessMaster(SAVE_FILE_PATH).run();
         Game game = new Game("single", ChessPiece.WHITE);
         game.run();
     }
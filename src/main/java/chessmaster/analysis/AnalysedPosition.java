@@ -0,0 +1,93 @@
+package chessmaster.analysis;
+
+import chessmaster.engine.SearchResult;
+import chessmaster.game.EpdRecord;
+import chessmaster.game.MoveCode;
+
+/**
+ * A line of a batch analysis with what the search found for its position.
+ */
+public class AnalysedPosition {
+
+    private final String line;
+    private final EpdRecord record;
+    private final SearchResult result;
+    private final String error;
+
+    private AnalysedPosition(String line, EpdRecord record, SearchResult result, String error) {
+        this.line = line;
+        this.record = record;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static AnalysedPosition of(String line, EpdRecord record, SearchResult result) {
+        return new AnalysedPosition(line, record, result, null);
+    }
+
+    public static AnalysedPosition invalid(String line, String error) {
+        return new AnalysedPosition(line, null, null, error);
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * Returns the record read from the line, or null if the line is not a valid position.
+     */
+    public EpdRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the search result, or null if the line is not a valid position.
+     */
+    public SearchResult getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the position as an EPD line with the analysis as operations: best move (bm), score in
+     * centipawns (ce) or moves to mate (dm), depth (acd), nodes (acn) and principal variation (pv),
+     * followed by the line's id if it had one. Moves are in long algebraic (UCI) notation. A line
+     * that is not a valid position is returned as a comment giving the error.
+     */
+    public String toEpd() {
+        if (!isValid()) {
+            return "# " + error + " " + line;
+        }
+        StringBuilder epd = new StringBuilder(record.getFen());
+        if (result.getBestMove() != MoveCode.NONE) {
+            epd.append(" bm ").append(MoveCode.toUci(result.getBestMove())).append(';');
+        }
+        if (result.isMateScore()) {
+            epd.append(" dm ").append(result.getMateInMoves()).append(';');
+        } else {
+            epd.append(" ce ").append(result.getScore()).append(';');
+        }
+        epd.append(" acd ").append(result.getDepth()).append(';');
+        epd.append(" acn ").append(result.getNodes()).append(';');
+        int[] principalVariation = result.getPrincipalVariation();
+        if (principalVariation.length > 0) {
+            epd.append(" pv");
+            for (int move : principalVariation) {
+                epd.append(' ').append(MoveCode.toUci(move));
+            }
+            epd.append(';');
+        }
+        String id = record.getOperation(EpdRecord.ID);
+        if (id != null) {
+            epd.append(" id \"").append(id).append("\";");
+        }
+        return epd.toString();
+    }
+}
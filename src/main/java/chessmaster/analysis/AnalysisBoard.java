@@ -0,0 +1,120 @@
+package chessmaster.analysis;
+
+import chessmaster.exceptions.ChessMasterException;
+import chessmaster.exceptions.InvalidMoveException;
+import chessmaster.exceptions.ParseCoordinateException;
+import chessmaster.game.Coordinate;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.game.VariationTree;
+import chessmaster.parser.Parser;
+import chessmaster.ui.TextUI;
+
+/**
+ * Console board for exploring side lines from a position. Moves are entered as in a game, for
+ * either side, and every line explored is kept in a {@link VariationTree}, so the user can go back,
+ * try another move and jump between lines.
+ */
+public class AnalysisBoard {
+
+    /** Piece types promoted to, indexed by the letter's position. */
+    private static final String PROMOTION_LETTERS = "  nbrq";
+
+    private final VariationTree tree;
+
+    public AnalysisBoard(Position start) {
+        this.tree = new VariationTree(start);
+    }
+
+    /**
+     * Reads moves and commands until the user exits or aborts.
+     */
+    public void run() {
+        TextUI.printStudyHelpMessage();
+        showBoard();
+        String input = TextUI.getUserInput();
+        while (!Parser.isUserInputExit(input) && !Parser.isUserInputAbort(input)) {
+            try {
+                handleInput(input);
+            } catch (ChessMasterException e) {
+                TextUI.printErrorMessage(e);
+            }
+            input = TextUI.getUserInput();
+        }
+    }
+
+    private void handleInput(String input) throws ChessMasterException {
+        if (Parser.isUserInputTree(input)) {
+            if (tree.getSize() == 1) {
+                TextUI.printStudyEndMessage();
+            } else {
+                TextUI.printVariationTree(tree);
+            }
+            return;
+        }
+        if (Parser.isUserInputBack(input)) {
+            int parent = tree.getParent(tree.getCurrent());
+            if (parent == VariationTree.NO_NODE) {
+                TextUI.printStudyStartMessage();
+                return;
+            }
+            tree.goTo(parent);
+        } else if (Parser.isUserInputForward(input)) {
+            int child = tree.getFirstChild(tree.getCurrent());
+            if (child == VariationTree.NO_NODE) {
+                TextUI.printStudyEndMessage();
+                return;
+            }
+            tree.goTo(child);
+        } else if (Parser.isUserInputGoto(input)) {
+            int node = Parser.parseGotoNode(input);
+            if (node < 0) {
+                TextUI.printStudyHelpMessage();
+                return;
+            }
+            if (node >= tree.getSize()) {
+                TextUI.printStudyNoNodeMessage(node);
+                return;
+            }
+            tree.goTo(node);
+        } else {
+            tree.play(parseMove(input));
+        }
+        showBoard();
+    }
+
+    /**
+     * Parses a move entered as at the game's prompt, two squares, with a promotion letter after them
+     * to under-promote.
+     *
+     * @return Matching legal move.
+     * @throws ChessMasterException If the squares cannot be parsed or the move is illegal.
+     */
+    private int parseMove(String input) throws ChessMasterException {
+        String[] parseArray = Parser.WHITESPACE.split(input.trim().toLowerCase());
+        if (parseArray.length < 2) {
+            throw new ParseCoordinateException();
+        }
+        Coordinate from = Coordinate.parseAlgebraicCoor(parseArray[0]);
+        Coordinate to = Coordinate.parseAlgebraicCoor(parseArray[1]);
+        int fromSquare = Position.fromCoordinate(from);
+        int toSquare = Position.fromCoordinate(to);
+        int move;
+        if (parseArray.length > 2) {
+            int promotion = PROMOTION_LETTERS.indexOf(parseArray[2]);
+            move = promotion < Position.KNIGHT ? MoveCode.NONE
+                    : tree.getPosition().findLegalMove(fromSquare, toSquare, promotion);
+        } else {
+            // A promotion without a letter is to a queen, as in a game
+            move = tree.getPosition().findLegalMove(fromSquare, toSquare);
+        }
+        if (move == MoveCode.NONE) {
+            throw new InvalidMoveException();
+        }
+        return move;
+    }
+
+    private void showBoard() {
+        TextUI.printChessBoard(tree.getPosition().toPacked().toChessBoard());
+    }
+}
@@ -0,0 +1,46 @@
+package chessmaster.analysis;
+
+/**
+ * Counts and timing of a finished batch analysis.
+ */
+public class AnalysisSummary {
+
+    private final long positionCount;
+    private final long invalidCount;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    public AnalysisSummary(long positionCount, long invalidCount, long nodes, long elapsedNanos) {
+        this.positionCount = positionCount;
+        this.invalidCount = invalidCount;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getPositionCount() {
+        return positionCount;
+    }
+
+    public long getInvalidCount() {
+        return invalidCount;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getPositionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : positionCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the nodes searched per second by all workers together.
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (nodes * 1e9 / elapsedNanos);
+    }
+}
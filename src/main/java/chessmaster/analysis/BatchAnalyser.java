@@ -0,0 +1,171 @@
+package chessmaster.analysis;
+
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.Search;
+import chessmaster.engine.SearchResult;
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.game.EpdRecord;
+import chessmaster.game.Position;
+import chessmaster.parser.EpdParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Searches every position of an EPD or FEN file on a pool of workers and passes the results on
+ * in input order.
+ *
+ * <p>The calling thread reads the file and hands numbered lines to the workers through a
+ * bounded queue. Each worker owns a {@link Search}, with its move stacks and its own
+ * transposition table, which it clears before every position, so a position's result does not
+ * depend on which worker searched it or what that worker searched before. Workers put their
+ * results into a {@link ReorderBuffer}, which passes them on in input order. The reader waits for
+ * a slot in the buffer before handing out a line, so memory use depends on the number of workers,
+ * not the length of the file.
+ */
+public class BatchAnalyser {
+
+    public static final int DEFAULT_SLOTS_PER_WORKER = 4;
+
+    /** Marks the end of the input for one worker. Compared by identity. */
+    private static final NumberedLine END_OF_INPUT = new NumberedLine(-1, null);
+
+    private final EngineConfig config;
+    private final int workerCount;
+
+    /**
+     * @param config Search limits (depth, nodes, time), table size and features used for every position.
+     * @param workerCount Number of positions searched at once.
+     */
+    public BatchAnalyser(EngineConfig config, int workerCount) {
+        assert workerCount > 0 : "At least one worker is needed";
+        this.config = config;
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Returns a worker count using every core, as reading lines takes next to no time next to searching.
+     */
+    public static int getDefaultWorkerCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Analyses every position of the input. Blank lines and lines starting with '#' are skipped.
+     * A line that is not a valid position is reported as invalid; any other failure, in a search
+     * or in the output, stops the analysis and is rethrown.
+     *
+     * @param input Lines to read.
+     * @param output Receives the analysis of every other line, in input order, one at a time.
+     * @return Summary of the analysis.
+     * @throws IOException If the input cannot be read.
+     */
+    public AnalysisSummary analyse(BufferedReader input, Consumer<AnalysedPosition> output) throws IOException {
+        int slotCount = workerCount * DEFAULT_SLOTS_PER_WORKER;
+        BlockingQueue<NumberedLine> lines = new ArrayBlockingQueue<>(slotCount);
+        ReorderBuffer<AnalysedPosition> results = new ReorderBuffer<>(slotCount, output);
+        LongAdder invalidCount = new LongAdder();
+        LongAdder nodes = new LongAdder();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(() -> {
+                Search search = config.createSearch();
+                NumberedLine line = takeLine(lines);
+                while (line != END_OF_INPUT) {
+                    // After a failure the lines are still taken, so the reader never waits on a full queue
+                    if (failure.get() == null) {
+                        try {
+                            AnalysedPosition analysed = analyse(search, line.text);
+                            if (analysed.isValid()) {
+                                nodes.add(analysed.getResult().getNodes());
+                            } else {
+                                invalidCount.increment();
+                            }
+                            results.put(line.number, analysed);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            results.abort();
+                        }
+                    }
+                    line = takeLine(lines);
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        long lineCount = 0;
+        try {
+            String text = input.readLine();
+            while (text != null && failure.get() == null) {
+                String trimmed = text.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    results.awaitSlot(lineCount);
+                    if (failure.get() != null) {
+                        break;
+                    }
+                    lines.put(new NumberedLine(lineCount++, trimmed));
+                }
+                text = input.readLine();
+            }
+            for (int i = 0; i < workerCount; i++) {
+                lines.put(END_OF_INPUT);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        return new AnalysisSummary(lineCount, invalidCount.sum(), nodes.sum(), elapsedNanos);
+    }
+
+    private AnalysedPosition analyse(Search search, String line) {
+        try {
+            EpdRecord record = EpdParser.parseRecord(line);
+            Position position = Position.fromFen(record.getFen());
+            search.getTable().clear();
+            SearchResult result = search.search(position, config.createLimits());
+            return AnalysedPosition.of(line, record, result);
+        } catch (ParseFenException e) {
+            return AnalysedPosition.invalid(line, e.getMessage());
+        }
+    }
+
+    private static NumberedLine takeLine(BlockingQueue<NumberedLine> lines) {
+        try {
+            return lines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return END_OF_INPUT;
+        }
+    }
+
+    private static class NumberedLine {
+
+        private final long number;
+        private final String text;
+
+        NumberedLine(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package chessmaster.analysis;
+
+import java.util.function.Consumer;
+
+/**
+ * Passes on items completed out of order in the order they were numbered, holding each until
+ * all items before it have been passed on. The buffer has a fixed number of slots, and the
+ * producer waits for a free one before handing out more work, so however long the input is, at
+ * most that many items are in flight.
+ *
+ * @param <T> Type of the items.
+ */
+class ReorderBuffer<T> {
+
+    private final Object[] slots;
+    private final Consumer<T> consumer;
+    /** Number of the next item to pass on. */
+    private long next;
+    private boolean isAborted;
+
+    /**
+     * @param capacity Most items in flight at once.
+     * @param consumer Receives the items in order, on the thread that completed the last one missing.
+     */
+    ReorderBuffer(int capacity, Consumer<T> consumer) {
+        this.slots = new Object[capacity];
+        this.consumer = consumer;
+    }
+
+    /**
+     * Waits until the item with the given number has a slot, i.e. until every item at least
+     * {@code capacity} before it has been passed on, or the buffer is aborted.
+     */
+    synchronized void awaitSlot(long number) throws InterruptedException {
+        while (!isAborted && number >= next + slots.length) {
+            wait();
+        }
+    }
+
+    /**
+     * Gives up on the items still missing, e.g. after one failed, so that {@link #awaitSlot}
+     * no longer waits for them.
+     */
+    synchronized void abort() {
+        isAborted = true;
+        notifyAll();
+    }
+
+    /**
+     * Adds a completed item, then passes on every item that is next in order.
+     *
+     * @param number Number of the item, which must have been given a slot by {@link #awaitSlot}.
+     * @param item Completed item.
+     */
+    synchronized void put(long number, T item) {
+        slots[(int) (number % slots.length)] = item;
+        int slot = (int) (next % slots.length);
+        while (slots[slot] != null) {
+            @SuppressWarnings("unchecked")
+            T nextItem = (T) slots[slot];
+            slots[slot] = null;
+            next++;
+            notifyAll();
+            consumer.accept(nextItem);
+            slot = (int) (next % slots.length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package chessmaster.analysis;
+
+import chessmaster.engine.SearchResult;
+import chessmaster.game.EpdRecord;
+
+/**
+ * Outcome of one test suite position: the search's final result and, if the engine settled on
+ * a solution, the iteration it did so in.
+ */
+public class SuiteResult {
+
+    private final int number;
+    private final String line;
+    private final EpdRecord record;
+    private final SearchResult result;
+    private final SearchResult solution;
+    private final String error;
+
+    private SuiteResult(int number, String line, EpdRecord record, SearchResult result, SearchResult solution,
+            String error) {
+        this.number = number;
+        this.line = line;
+        this.record = record;
+        this.result = result;
+        this.solution = solution;
+        this.error = error;
+    }
+
+    /**
+     * @param solution Result of the first iteration from which on every best move was a solution,
+     *         or null if the last one was not.
+     */
+    public static SuiteResult of(int number, String line, EpdRecord record, SearchResult result,
+            SearchResult solution) {
+        return new SuiteResult(number, line, record, result, solution, null);
+    }
+
+    public static SuiteResult invalid(int number, String line, String error) {
+        return new SuiteResult(number, line, null, null, null, error);
+    }
+
+    /**
+     * Returns the number of the position in the suite, counting from 1.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the position's id, or its number if it has none.
+     */
+    public String getName() {
+        String id = record == null ? null : record.getOperation(EpdRecord.ID);
+        return id == null ? "#" + number : id;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public EpdRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the result of the whole search, or null if the line is not a valid position.
+     */
+    public SearchResult getResult() {
+        return result;
+    }
+
+    public boolean isSolved() {
+        return solution != null;
+    }
+
+    /**
+     * Returns the result of the iteration that found the solution, whose time and nodes are those
+     * spent up to then, or null if the position was not solved.
+     */
+    public SearchResult getSolution() {
+        return solution;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
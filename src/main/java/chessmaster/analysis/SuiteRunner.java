@@ -0,0 +1,187 @@
+package chessmaster.analysis;
+
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.Search;
+import chessmaster.engine.SearchLimits;
+import chessmaster.engine.SearchListener;
+import chessmaster.engine.SearchResult;
+import chessmaster.exceptions.ExceptionMessages;
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.exceptions.ParsePgnException;
+import chessmaster.game.EpdRecord;
+import chessmaster.game.Position;
+import chessmaster.parser.EpdParser;
+import chessmaster.parser.Parser;
+import chessmaster.parser.SanParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs an EPD test suite: searches every position under a time limit and checks the best move
+ * against the position's "bm" (moves to find) or "am" (moves to avoid) operation, in SAN.
+ *
+ * <p>A position counts as solved if the last completed iteration chose a solution. Its time and
+ * nodes to solution are those of the first iteration from which on every iteration did. Every
+ * position is searched with a cleared transposition table, so its nodes to solution do not depend
+ * on the machine, the worker count or the other positions. Only whether it is solved within the
+ * time limit does, and a node limit in the engine settings takes that out too.
+ */
+public class SuiteRunner {
+
+    public static final long DEFAULT_TIME_MILLIS = 1000;
+
+    private final EngineConfig config;
+    private final SearchLimits limits;
+    private final int workerCount;
+
+    /**
+     * @param config Table size, features and node limit of the searches. Its depth and time are not used.
+     * @param timeLimitMillis Time limit of each position, or 0 for none.
+     * @param workerCount Number of positions searched at once.
+     */
+    public SuiteRunner(EngineConfig config, long timeLimitMillis, int workerCount) {
+        assert workerCount > 0 : "At least one worker is needed";
+        this.config = config;
+        this.limits = SearchLimits.time(timeLimitMillis).withNodes(config.createLimits().getNodes());
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Runs every position of the suite. Blank lines and lines starting with '#' are skipped. A line
+     * whose position or moves cannot be parsed is reported as invalid; a failure in a search is rethrown.
+     *
+     * @param input Lines of the suite.
+     * @param output Receives the result of every position, in suite order.
+     * @return Summary of the run.
+     * @throws IOException If the suite cannot be read.
+     */
+    public SuiteSummary run(BufferedReader input, Consumer<SuiteResult> output) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String text = input.readLine();
+        while (text != null) {
+            String trimmed = text.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                lines.add(trimmed);
+            }
+            text = input.readLine();
+        }
+
+        long startTime = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        ThreadLocal<Search> searches = ThreadLocal.withInitial(config::createSearch);
+        int invalidCount = 0;
+        int solvedCount = 0;
+        long solutionNanos = 0;
+        long solutionNodes = 0;
+        try {
+            List<CompletableFuture<SuiteResult>> results = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                int number = i + 1;
+                String line = lines.get(i);
+                results.add(CompletableFuture.supplyAsync(() -> runPosition(searches.get(), number, line), workers));
+            }
+            for (CompletableFuture<SuiteResult> future : results) {
+                SuiteResult result = future.join();
+                if (!result.isValid()) {
+                    invalidCount++;
+                } else if (result.isSolved()) {
+                    solvedCount++;
+                    solutionNanos += result.getSolution().getElapsedNanos();
+                    solutionNodes += result.getSolution().getNodes();
+                }
+                output.accept(result);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new SuiteSummary(lines.size(), invalidCount, solvedCount, solutionNanos, solutionNodes,
+                System.nanoTime() - startTime);
+    }
+
+    private SuiteResult runPosition(Search search, int number, String line) {
+        try {
+            EpdRecord record = EpdParser.parseRecord(line);
+            Position position = Position.fromFen(record.getFen());
+            int[] bestMoves = parseMoves(record.getOperation(EpdRecord.BEST_MOVE), position);
+            int[] avoidMoves = parseMoves(record.getOperation(EpdRecord.AVOID_MOVE), position);
+            if (bestMoves.length == 0 && avoidMoves.length == 0) {
+                return SuiteResult.invalid(number, line, ExceptionMessages.MESSAGE_NO_SOLUTION);
+            }
+
+            SolutionTracker tracker = new SolutionTracker(bestMoves, avoidMoves);
+            search.getTable().clear();
+            search.setListener(tracker);
+            try {
+                SearchResult result = search.search(position, limits);
+                return SuiteResult.of(number, line, record, result, tracker.solution);
+            } finally {
+                search.setListener(null);
+            }
+        } catch (ParseFenException | ParsePgnException e) {
+            return SuiteResult.invalid(number, line, e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the space-separated SAN moves of an operation.
+     */
+    private static int[] parseMoves(String operands, Position position) throws ParsePgnException {
+        if (operands == null || operands.isEmpty()) {
+            return new int[0];
+        }
+        String[] sans = Parser.WHITESPACE.split(operands);
+        int[] moves = new int[sans.length];
+        for (int i = 0; i < sans.length; i++) {
+            moves[i] = SanParser.parseSan(sans[i], position);
+        }
+        return moves;
+    }
+
+    /**
+     * Follows the best move from iteration to iteration, keeping the first iteration of the
+     * current run of solutions.
+     */
+    private static class SolutionTracker implements SearchListener {
+
+        private final int[] bestMoves;
+        private final int[] avoidMoves;
+        private SearchResult solution;
+
+        SolutionTracker(int[] bestMoves, int[] avoidMoves) {
+            this.bestMoves = bestMoves;
+            this.avoidMoves = avoidMoves;
+        }
+
+        @Override
+        public void onIteration(SearchResult result) {
+            if (!isSolution(result.getBestMove())) {
+                solution = null;
+            } else if (solution == null) {
+                solution = result;
+            }
+        }
+
+        private boolean isSolution(int move) {
+            if (bestMoves.length > 0 && !contains(bestMoves, move)) {
+                return false;
+            }
+            return !contains(avoidMoves, move);
+        }
+
+        private static boolean contains(int[] moves, int move) {
+            for (int candidate : moves) {
+                if (candidate == move) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package chessmaster.analysis;
+
+/**
+ * Counts and timing of a finished test suite run.
+ */
+public class SuiteSummary {
+
+    private final int positionCount;
+    private final int invalidCount;
+    private final int solvedCount;
+    private final long solutionNanos;
+    private final long solutionNodes;
+    private final long elapsedNanos;
+
+    /**
+     * @param solutionNanos Total time to solution of the solved positions.
+     * @param solutionNodes Total nodes to solution of the solved positions.
+     */
+    public SuiteSummary(int positionCount, int invalidCount, int solvedCount, long solutionNanos,
+            long solutionNodes, long elapsedNanos) {
+        this.positionCount = positionCount;
+        this.invalidCount = invalidCount;
+        this.solvedCount = solvedCount;
+        this.solutionNanos = solutionNanos;
+        this.solutionNodes = solutionNodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    public int getSolvedCount() {
+        return solvedCount;
+    }
+
+    public double getMeanSolutionMillis() {
+        return solvedCount == 0 ? 0 : solutionNanos / 1e6 / solvedCount;
+    }
+
+    public long getMeanSolutionNodes() {
+        return solvedCount == 0 ? 0 : solutionNodes / solvedCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,124 @@
+package chessmaster.engine;
+
+/**
+ * Settings of one engine: how long it searches each move and which search features it uses.
+ * Written as comma-separated key=value pairs, e.g. "name=dev,depth=6,nullmove=false".
+ * With mcts=true the CPU plays with a {@link MctsSearch} instead, whose tree takes the hash size.
+ */
+public class EngineConfig {
+
+    public static final String DEFAULT_NAME = "ChessMaster";
+    public static final int DEFAULT_DEPTH = 5;
+
+    private String name = DEFAULT_NAME;
+    private int depth = DEFAULT_DEPTH;
+    private long nodes = Long.MAX_VALUE;
+    private long moveTimeMillis;
+    private int hashSizeMb = TranspositionTable.DEFAULT_SIZE_MB;
+    private boolean isNullMovePruningEnabled = true;
+    private boolean isLateMoveReductionEnabled = true;
+    private boolean isMonteCarloEnabled;
+    private MctsSearch.Playout playout = MctsSearch.Playout.EVALUATION;
+
+    /**
+     * Parses a configuration. Keys not given keep their default values.
+     *
+     * @param spec Comma-separated settings; keys are name, depth, nodes, time, hash, nullmove,
+     *     lmr, mcts and playout (random or eval).
+     * @return Parsed configuration.
+     * @throws IllegalArgumentException If a key is unknown or a value is invalid.
+     */
+    public static EngineConfig parse(String spec) {
+        EngineConfig config = new EngineConfig();
+        for (String setting : spec.split(",")) {
+            String[] keyValue = setting.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Expected key=value but got " + setting);
+            }
+            String value = keyValue[1].trim();
+            switch (keyValue[0].trim().toLowerCase()) {
+            case "name":
+                config.name = value;
+                break;
+            case "depth":
+                config.depth = Math.min(Integer.parseInt(value), SearchLimits.MAX_DEPTH);
+                break;
+            case "nodes":
+                config.nodes = Long.parseLong(value);
+                break;
+            case "time":
+                config.moveTimeMillis = Long.parseLong(value);
+                break;
+            case "hash":
+                config.hashSizeMb = Integer.parseInt(value);
+                break;
+            case "nullmove":
+                config.isNullMovePruningEnabled = Boolean.parseBoolean(value);
+                break;
+            case "lmr":
+                config.isLateMoveReductionEnabled = Boolean.parseBoolean(value);
+                break;
+            case "mcts":
+                config.isMonteCarloEnabled = Boolean.parseBoolean(value);
+                break;
+            case "playout":
+                config.playout = parsePlayout(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine setting " + keyValue[0]);
+            }
+        }
+        return config;
+    }
+
+    private static MctsSearch.Playout parsePlayout(String value) {
+        switch (value.toLowerCase()) {
+        case "random":
+            return MctsSearch.Playout.RANDOM;
+        case "eval":
+            return MctsSearch.Playout.EVALUATION;
+        default:
+            throw new IllegalArgumentException("Unknown playout " + value);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getHashSizeMb() {
+        return hashSizeMb;
+    }
+
+    public boolean isNullMovePruningEnabled() {
+        return isNullMovePruningEnabled;
+    }
+
+    public boolean isLateMoveReductionEnabled() {
+        return isLateMoveReductionEnabled;
+    }
+
+    public boolean isMonteCarloEnabled() {
+        return isMonteCarloEnabled;
+    }
+
+    public MctsSearch.Playout getPlayout() {
+        return playout;
+    }
+
+    /**
+     * Returns the limits of a search for one move.
+     */
+    public SearchLimits createLimits() {
+        return SearchLimits.depth(depth).withNodes(nodes).withTime(moveTimeMillis);
+    }
+
+    /**
+     * Returns a search set up with this configuration and its own transposition table.
+     */
+    public Search createSearch() {
+        Search search = new Search(new TranspositionTable(hashSizeMb));
+        search.configure(this);
+        return search;
+    }
+}
@@ -0,0 +1,144 @@
+package chessmaster.engine;
+
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+
+/**
+ * Static evaluation of a position: material plus piece-square bonuses.
+ * The tables are written from white's point of view with rank 8 on the first line.
+ */
+public final class Evaluator {
+
+    /** Material value of each piece type in centipawns, indexed by type. */
+    public static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 0};
+
+    private static final int[] PAWN_TABLE = {
+        0, 0, 0, 0, 0, 0, 0, 0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+        5, 5, 10, 25, 25, 10, 5, 5,
+        0, 0, 0, 20, 20, 0, 0, 0,
+        5, -5, -10, 0, 0, -10, -5, 5,
+        5, 10, 10, -20, -20, 10, 10, 5,
+        0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20, 0, 0, 0, 0, -20, -40,
+        -30, 0, 10, 15, 15, 10, 0, -30,
+        -30, 5, 15, 20, 20, 15, 5, -30,
+        -30, 0, 15, 20, 20, 15, 0, -30,
+        -30, 5, 10, 15, 15, 10, 5, -30,
+        -40, -20, 0, 5, 5, 0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10, 0, 0, 0, 0, 0, 0, -10,
+        -10, 0, 5, 10, 10, 5, 0, -10,
+        -10, 5, 5, 10, 10, 5, 5, -10,
+        -10, 0, 10, 10, 10, 10, 0, -10,
+        -10, 10, 10, 10, 10, 10, 10, -10,
+        -10, 5, 0, 0, 0, 0, 5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] ROOK_TABLE = {
+        0, 0, 0, 0, 0, 0, 0, 0,
+        5, 10, 10, 10, 10, 10, 10, 5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10, -5, -5, -10, -10, -20,
+        -10, 0, 0, 0, 0, 0, 0, -10,
+        -10, 0, 5, 5, 5, 5, 0, -10,
+        -5, 0, 5, 5, 5, 5, 0, -5,
+        0, 0, 5, 5, 5, 5, 0, -5,
+        -10, 5, 5, 5, 5, 5, 0, -10,
+        -10, 0, 5, 0, 0, 0, 0, -10,
+        -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+        20, 20, 0, 0, 0, 0, 20, 20,
+        20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10, 0, 0, -10, -20, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -30, 0, 0, 0, 0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[][] TABLES = {
+        null, PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_MIDDLEGAME_TABLE,
+    };
+
+    /** Non-pawn material (per side, excluding kings) below which the king heads for the centre. */
+    private static final int ENDGAME_MATERIAL = 1300;
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluates a position from the point of view of the side to move.
+     *
+     * @param position Position to evaluate.
+     * @return Score in centipawns, positive if the side to move is better.
+     */
+    public static int evaluate(Position position) {
+        int whiteScore = 0;
+        int blackScore = 0;
+        int whiteNonPawnMaterial = 0;
+        int blackNonPawnMaterial = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.getPiece(sq);
+            if (piece == Position.EMPTY) {
+                continue;
+            }
+            int type = Position.typeOf(piece);
+            int colour = Position.colourOf(piece);
+            int score = PIECE_VALUES[type];
+            if (type != Position.KING) {
+                score += TABLES[type][tableIndex(sq, colour)];
+            }
+            int nonPawnMaterial = type == Position.PAWN ? 0 : PIECE_VALUES[type];
+            if (colour == ChessPiece.WHITE) {
+                whiteScore += score;
+                whiteNonPawnMaterial += nonPawnMaterial;
+            } else {
+                blackScore += score;
+                blackNonPawnMaterial += nonPawnMaterial;
+            }
+        }
+
+        boolean isEndgame = whiteNonPawnMaterial <= ENDGAME_MATERIAL && blackNonPawnMaterial <= ENDGAME_MATERIAL;
+        int[] kingTable = isEndgame ? KING_ENDGAME_TABLE : KING_MIDDLEGAME_TABLE;
+        whiteScore += kingTable[tableIndex(position.getKingSquare(ChessPiece.WHITE), ChessPiece.WHITE)];
+        blackScore += kingTable[tableIndex(position.getKingSquare(ChessPiece.BLACK), ChessPiece.BLACK)];
+
+        int whiteAdvantage = whiteScore - blackScore;
+        return position.getSideToMove() == ChessPiece.WHITE ? whiteAdvantage : -whiteAdvantage;
+    }
+
+    /**
+     * Maps a square onto an index into the tables above, mirroring the board for black.
+     */
+    private static int tableIndex(int square, int colour) {
+        int rank = Position.rankOf(square);
+        int file = Position.fileOf(square);
+        return colour == ChessPiece.WHITE ? (7 - rank) * 8 + file : rank * 8 + file;
+    }
+}
@@ -0,0 +1,89 @@
+package chessmaster.engine;
+
+import chessmaster.game.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Annotates a finished game by searching every position it passed through. Positions are
+ * independent, so they are searched in parallel, one per worker. All workers share one
+ * transposition table: consecutive positions of a game have overlapping search trees, so a
+ * worker often finds entries another worker stored moments before.
+ */
+public class GameAnalyser {
+
+    public static final int DEFAULT_DEPTH = 8;
+
+    private final int workerCount;
+    private final SearchLimits limits;
+    private final TranspositionTable table;
+
+    public GameAnalyser(int workerCount, SearchLimits limits, TranspositionTable table) {
+        this.workerCount = Math.max(1, workerCount);
+        this.limits = limits;
+        this.table = table;
+    }
+
+    public static int getDefaultWorkerCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Searches every position of a game and grades each move.
+     *
+     * @param start Position the game started from. It is not modified.
+     * @param moves Legal moves of the game, in order.
+     * @return One annotation per move.
+     * @throws IllegalArgumentException If a move is illegal.
+     */
+    public List<MoveAnnotation> analyse(Position start, int[] moves) {
+        // Take a snapshot of every position up front so workers never share a mutable board
+        Position position = start.copy();
+        List<Position> positions = new ArrayList<>(moves.length + 1);
+        positions.add(position.copy());
+        for (int move : moves) {
+            position.makeMove(move);
+            if (!position.wasLastMoveLegal()) {
+                throw new IllegalArgumentException("Illegal move in game: " + move);
+            }
+            positions.add(position.copy());
+        }
+
+        ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(table));
+        List<Callable<SearchResult>> tasks = new ArrayList<>(positions.size());
+        for (Position snapshot : positions) {
+            tasks.add(() -> searches.get().search(snapshot, limits));
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(workerCount, tasks.size()));
+        List<SearchResult> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<SearchResult> future : workers.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        List<MoveAnnotation> annotations = new ArrayList<>(moves.length);
+        for (int ply = 0; ply < moves.length; ply++) {
+            SearchResult before = results.get(ply);
+            // The next search scores the position for the opponent, so negate it
+            int playedScore = -results.get(ply + 1).getScore();
+            annotations.add(new MoveAnnotation(ply, moves[ply], before.getBestMove(), before.getScore(),
+                    playedScore));
+        }
+        return annotations;
+    }
+}
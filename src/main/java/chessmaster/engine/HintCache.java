@@ -0,0 +1,81 @@
+package chessmaster.engine;
+
+import chessmaster.game.Position;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Multi-PV search results cached by position key, so that asking for a hint again (for example
+ * after a takeback) is answered at once. When a cached result has not reached the target depth,
+ * the next request continues from the cached depth, relying on the transposition table to replay
+ * the shallower iterations cheaply, instead of starting again from depth 1.
+ */
+public class HintCache {
+
+    public static final int DEFAULT_LINE_COUNT = 3;
+    public static final int DEFAULT_TARGET_DEPTH = 8;
+    public static final long DEFAULT_TIME_MILLIS = 1000;
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final Search search;
+    private final int targetDepth;
+    private final long timeMillis;
+    private final Map<Long, SearchResult> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SearchResult> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public HintCache() {
+        this(DEFAULT_TARGET_DEPTH, DEFAULT_TIME_MILLIS);
+    }
+
+    /**
+     * Creates a hint cache with its own transposition table.
+     *
+     * @param targetDepth Depth at which a hint is complete and never searched again.
+     * @param timeMillis Time spent on each request that has to search.
+     */
+    public HintCache(int targetDepth, long timeMillis) {
+        this.search = new Search(new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+        this.targetDepth = targetDepth;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Returns the best lines in a position, searching only if the cache has no complete answer.
+     *
+     * @param position Position to give a hint for. It is not modified.
+     * @param lineCount Number of lines wanted.
+     * @return Search result holding up to {@code lineCount} lines.
+     */
+    public synchronized SearchResult getHint(Position position, int lineCount) {
+        long key = position.getKey();
+        SearchResult cached = results.get(key);
+        boolean hasEnoughLines = cached != null && cached.getLines().size() >= lineCount;
+        if (hasEnoughLines && cached.getDepth() >= targetDepth) {
+            return cached;
+        }
+
+        // More lines than before means the cached iterations did not look for all of them
+        int startDepth = hasEnoughLines ? cached.getDepth() + 1 : 1;
+        SearchLimits limits = SearchLimits.time(timeMillis).withDepth(targetDepth).withMultiPv(lineCount)
+                .withStartDepth(startDepth);
+        SearchResult result = search.search(position, limits);
+        if (hasEnoughLines && result.getDepth() <= cached.getDepth()) {
+            // No deeper iteration finished in time
+            return cached;
+        }
+        if (result.getDepth() > 0) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+}
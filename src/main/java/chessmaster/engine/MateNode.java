@@ -0,0 +1,37 @@
+package chessmaster.engine;
+
+import java.util.List;
+
+/**
+ * A move of a proven mate with the moves that answer it: every legal reply after a move of the
+ * mating side, or the one mating continuation after a defending move. A mating move has no replies.
+ */
+public class MateNode {
+
+    private final int move;
+    private final List<MateNode> replies;
+
+    public MateNode(int move, List<MateNode> replies) {
+        this.move = move;
+        this.replies = replies;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public List<MateNode> getReplies() {
+        return replies;
+    }
+
+    /**
+     * Returns the number of moves in the tree, this one included.
+     */
+    public int getSize() {
+        int size = 1;
+        for (MateNode reply : replies) {
+            size += reply.getSize();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,62 @@
+package chessmaster.engine;
+
+/**
+ * Outcome of a mate search: a proven mate with its solution tree, a proof that there is no mate
+ * within the moves searched, or neither, if the node limit was reached first.
+ */
+public class MateSolution {
+
+    /**
+     * What the search established.
+     */
+    public enum Status {
+        PROVEN,
+        DISPROVEN,
+        UNKNOWN
+    }
+
+    private final Status status;
+    private final int maxMoves;
+    private final int movesToMate;
+    private final MateNode tree;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    /**
+     * @param maxMoves Most moves of the side to move searched.
+     * @param movesToMate Moves of the shortest mate if it is proven, else 0.
+     * @param tree First move of the solution if the mate is proven, else null.
+     */
+    public MateSolution(Status status, int maxMoves, int movesToMate, MateNode tree, long nodes, long elapsedNanos) {
+        this.status = status;
+        this.maxMoves = maxMoves;
+        this.movesToMate = movesToMate;
+        this.tree = tree;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+
+    public int getMovesToMate() {
+        return movesToMate;
+    }
+
+    public MateNode getTree() {
+        return tree;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+}
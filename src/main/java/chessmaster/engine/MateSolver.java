@@ -0,0 +1,313 @@
+package chessmaster.engine;
+
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.game.Zobrist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Proves or refutes a forced mate by the side to move with depth-first proof-number search (df-pn).
+ *
+ * <p>Each node has a proof number, the fewest leaves still to be solved to prove that the side to
+ * move there wins, and a disproof number, the fewest to prove that it does not. Both are kept
+ * relative to the side to move, so a node's proof number is the least disproof number of its
+ * children and its disproof number the sum of their proof numbers. The search always expands the
+ * child with the least proof number, which in a mating attack is usually a forcing move that
+ * leaves few replies, and so goes deep along forcing lines where alpha-beta would search every
+ * move to the same depth. Thresholds keep the search depth-first, and a {@link ProofNumberTable}
+ * holds the numbers of the nodes not on the current path.
+ *
+ * <p>Before a node is searched, its proof number is estimated: after a check, the number of
+ * replies, and after a quiet move, a larger constant. A node is a position and the plies left, so
+ * the same position with a different number of plies left is a different node and the search
+ * never meets a cycle. Mates in 1, 2 and so on up to the limit are tried in turn, which finds the
+ * shortest mate.
+ */
+public class MateSolver {
+
+    /** Most moves of the mating side searched. */
+    public static final int MAX_MOVES = 32;
+    public static final long DEFAULT_MAX_NODES = 20_000_000;
+
+    /** Proof and disproof numbers saturate here; a node with either at infinity is solved. */
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+    private static final int MAX_PLY = 2 * MAX_MOVES;
+    /** Initial proof number of a defending node after a quiet move. */
+    private static final int QUIET_MOVE_PROOF = 32;
+    /** The child searched may go this fraction of the second best child's number past it. */
+    private static final int SWITCH_MARGIN_DIVISOR = 4;
+    /** Mixed into a position's key to tell apart the nodes of different plies left. */
+    private static final long[] PLIES_LEFT_KEYS = new long[MAX_PLY];
+
+    static {
+        for (int i = 0; i < PLIES_LEFT_KEYS.length; i++) {
+            PLIES_LEFT_KEYS[i] = Zobrist.mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private final ProofNumberTable table;
+    private final long maxNodes;
+    private final int[][] moves = new int[MAX_PLY][Position.MAX_MOVES];
+    private final long[][] childKeys = new long[MAX_PLY][Position.MAX_MOVES];
+    private final int[][] childProofs = new int[MAX_PLY][Position.MAX_MOVES];
+    private final int[][] childDisproofs = new int[MAX_PLY][Position.MAX_MOVES];
+    private Position position;
+    private long nodes;
+    private boolean isAborted;
+
+    /**
+     * @param table Table for the solver's own use, kept between solves.
+     * @param maxNodes Most nodes one solve may visit.
+     */
+    public MateSolver(ProofNumberTable table, long maxNodes) {
+        this.table = table;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Looks for the shortest forced mate by the side to move.
+     *
+     * @param root Position to solve. It is copied, so the caller's position is not modified.
+     * @param maxMoves Most moves of the side to move, at most {@link #MAX_MOVES}.
+     * @return The shortest mate and its solution tree, a proof that there is none within
+     *         {@code maxMoves}, or an unknown result if the node limit was reached.
+     */
+    public MateSolution solve(Position root, int maxMoves) {
+        long startTime = System.nanoTime();
+        position = root.copy();
+        nodes = 0;
+        isAborted = false;
+        int moveLimit = Math.max(1, Math.min(maxMoves, MAX_MOVES));
+        for (int movesToMate = 1; movesToMate <= moveLimit; movesToMate++) {
+            MateSolution.Status status = prove(0, 2 * movesToMate - 1);
+            if (status == MateSolution.Status.UNKNOWN) {
+                break;
+            }
+            if (status == MateSolution.Status.PROVEN) {
+                // Null if the node limit is reached while the tree is built
+                MateNode tree = buildAttack(0, 2 * movesToMate - 1);
+                return new MateSolution(status, moveLimit, movesToMate, tree, nodes, System.nanoTime() - startTime);
+            }
+        }
+        MateSolution.Status status = isAborted ? MateSolution.Status.UNKNOWN : MateSolution.Status.DISPROVEN;
+        return new MateSolution(status, moveLimit, 0, null, nodes, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Solves a node of the current position.
+     *
+     * @param ply Plies from the root, even where the mating side is to move.
+     * @param pliesLeft Plies left for the mate.
+     * @return Whether the mating side mates from the node within the plies left.
+     */
+    private MateSolution.Status prove(int ply, int pliesLeft) {
+        long numbers = search(ply, pliesLeft, nodeKey(pliesLeft), INFINITY, INFINITY);
+        if (isAborted) {
+            return MateSolution.Status.UNKNOWN;
+        }
+        boolean isSideToMoveWinning = getProof(numbers) == 0;
+        boolean isAttacking = (ply & 1) == 0;
+        return isSideToMoveWinning == isAttacking ? MateSolution.Status.PROVEN : MateSolution.Status.DISPROVEN;
+    }
+
+    /**
+     * Searches a node until its proof number reaches one threshold or its disproof number the other.
+     *
+     * @return The node's proof and disproof numbers, packed by {@link #pack}.
+     */
+    private long search(int ply, int pliesLeft, long key, int proofThreshold, int disproofThreshold) {
+        nodes++;
+        if (nodes >= maxNodes) {
+            isAborted = true;
+            return pack(1, 1);
+        }
+
+        boolean isAttacking = (ply & 1) == 0;
+        long numbers = searchLeaf(ply, pliesLeft, isAttacking);
+        if (numbers != 0) {
+            table.store(key, getProof(numbers), getDisproof(numbers), 1);
+            return numbers;
+        }
+
+        int[] nodeMoves = moves[ply];
+        long[] keys = childKeys[ply];
+        int[] proofs = childProofs[ply];
+        int[] disproofs = childDisproofs[ply];
+        int count = position.generateLegalMoves(nodeMoves);
+        if (count == 0) {
+            // Checkmate loses either way; stalemate is a draw, which refutes the mate
+            numbers = position.isInCheck() || isAttacking ? pack(INFINITY, 0) : pack(0, INFINITY);
+            table.store(key, getProof(numbers), getDisproof(numbers), 1);
+            return numbers;
+        }
+        for (int i = 0; i < count; i++) {
+            position.makeMove(nodeMoves[i]);
+            keys[i] = nodeKey(pliesLeft - 1);
+            if (table.probe(keys[i])) {
+                proofs[i] = table.getProof();
+                disproofs[i] = table.getDisproof();
+            } else {
+                disproofs[i] = isAttacking ? estimateDefence(ply + 1) : 1;
+                proofs[i] = disproofs[i] == 0 ? INFINITY : 1;
+            }
+            position.unmakeMove();
+        }
+
+        // Numbers of the other children are kept from one pass to the next, and only those of the
+        // child just searched are updated
+        long startNodes = nodes;
+        while (true) {
+            int proof = INFINITY;
+            int disproof = 0;
+            int bestChild = 0;
+            int secondDisproof = INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (disproofs[i] < proof) {
+                    secondDisproof = proof;
+                    proof = disproofs[i];
+                    bestChild = i;
+                } else if (disproofs[i] < secondDisproof) {
+                    secondDisproof = disproofs[i];
+                }
+                disproof = Math.min(INFINITY, disproof + proofs[i]);
+            }
+
+            if (proof >= proofThreshold || disproof >= disproofThreshold) {
+                table.store(key, proof, disproof, nodes - startNodes + 1);
+                return pack(proof, disproof);
+            }
+
+            // The child may use what is left of this node's disproof budget, and must stop once
+            // it is well behind the next best child; letting it go a quarter past that child,
+            // rather than stopping as soon as it falls behind, saves switching back and forth
+            int childProofThreshold = disproofThreshold >= INFINITY
+                    ? INFINITY : disproofThreshold - disproof + proofs[bestChild];
+            int childDisproofThreshold = (int) Math.min(proofThreshold,
+                    secondDisproof + 1L + secondDisproof / SWITCH_MARGIN_DIVISOR);
+            position.makeMove(nodeMoves[bestChild]);
+            long childNumbers = search(ply + 1, pliesLeft - 1, keys[bestChild], childProofThreshold,
+                    childDisproofThreshold);
+            position.unmakeMove();
+            if (isAborted) {
+                return pack(proof, disproof);
+            }
+            proofs[bestChild] = getProof(childNumbers);
+            disproofs[bestChild] = getDisproof(childNumbers);
+        }
+    }
+
+    /**
+     * Estimates the work of mating the defending side, to move in the current position, before its
+     * node is searched: after a check, the number of replies to it, which is 0 if it is mate; after
+     * a quiet move, more than after any but the loosest checks.
+     */
+    private int estimateDefence(int ply) {
+        if (!position.isInCheck()) {
+            return QUIET_MOVE_PROOF;
+        }
+        return position.generateLegalMoves(moves[ply]);
+    }
+
+    /**
+     * Solves the nodes at the end of the plies left without a table entry: the mating side's
+     * last move, which only has to be tried for checkmate, and the position after it.
+     *
+     * @return The node's numbers, or 0 if it is not such a node.
+     */
+    private long searchLeaf(int ply, int pliesLeft, boolean isAttacking) {
+        if (isAttacking && pliesLeft == 1) {
+            return findMateInOne(ply) != MoveCode.NONE ? pack(0, INFINITY) : pack(INFINITY, 0);
+        }
+        if (!isAttacking && pliesLeft == 0) {
+            return isCheckmate() ? pack(INFINITY, 0) : pack(0, INFINITY);
+        }
+        return 0;
+    }
+
+    private int findMateInOne(int ply) {
+        int[] nodeMoves = moves[ply];
+        int count = position.generateLegalMoves(nodeMoves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(nodeMoves[i]);
+            nodes++;
+            boolean isMate = isCheckmate();
+            position.unmakeMove();
+            if (isMate) {
+                return nodeMoves[i];
+            }
+        }
+        return MoveCode.NONE;
+    }
+
+    private boolean isCheckmate() {
+        return position.isInCheck() && !position.hasAnyLegalMove();
+    }
+
+    /**
+     * Builds the solution tree below a proven node of the mating side, choosing at every such node
+     * the move of the shortest mate.
+     *
+     * @return The mating move with its replies, or null if the node limit was reached.
+     */
+    private MateNode buildAttack(int ply, int pliesLeft) {
+        for (int plies = 1; plies <= pliesLeft; plies += 2) {
+            int count = position.generateLegalMoves(moves[ply]);
+            for (int i = 0; i < count; i++) {
+                int move = moves[ply][i];
+                position.makeMove(move);
+                MateSolution.Status status = plies == 1
+                        ? (isCheckmate() ? MateSolution.Status.PROVEN : MateSolution.Status.DISPROVEN)
+                        : prove(ply + 1, plies - 1);
+                MateNode node = null;
+                if (status == MateSolution.Status.PROVEN) {
+                    List<MateNode> replies = buildDefence(ply + 1, plies - 1);
+                    node = replies == null ? null : new MateNode(move, replies);
+                }
+                position.unmakeMove();
+                if (status != MateSolution.Status.DISPROVEN) {
+                    return node;
+                }
+            }
+        }
+        throw new IllegalStateException("No mate found below a proven node");
+    }
+
+    /**
+     * Builds the solution trees of every reply at a proven node of the defending side.
+     *
+     * @return The replies with their mating continuations, or null if the node limit was reached.
+     */
+    private List<MateNode> buildDefence(int ply, int pliesLeft) {
+        int[] replies = moves[ply];
+        int count = position.generateLegalMoves(replies);
+        List<MateNode> answers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(replies[i]);
+            MateNode continuation = buildAttack(ply + 1, pliesLeft - 1);
+            position.unmakeMove();
+            if (continuation == null) {
+                return null;
+            }
+            answers.add(new MateNode(replies[i], List.of(continuation)));
+        }
+        return answers;
+    }
+
+    private long nodeKey(int pliesLeft) {
+        return position.getKey() ^ PLIES_LEFT_KEYS[pliesLeft];
+    }
+
+    private static long pack(int proof, int disproof) {
+        return (long) proof << 32 | disproof;
+    }
+
+    private static int getProof(long numbers) {
+        return (int) (numbers >>> 32);
+    }
+
+    private static int getDisproof(long numbers) {
+        return (int) numbers;
+    }
+}
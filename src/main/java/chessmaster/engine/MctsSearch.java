@@ -0,0 +1,472 @@
+package chessmaster.engine;
+
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.metrics.EngineMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Monte Carlo tree search, an alternative to the alpha-beta {@link Search} that plays by
+ * sampling rather than by looking at every move to a fixed depth.
+ *
+ * <p>Each playout walks down the tree, at every node choosing the child with the highest PUCT
+ * score: its average value plus a bonus that grows with its prior and shrinks as it is visited.
+ * The prior of a move comes from the static evaluation after it. At the first node not yet in
+ * the tree, the playout expands the node and estimates its value, either with random moves
+ * ({@link Playout#RANDOM}) or with a capture search ({@link Playout#EVALUATION}), and adds the
+ * value to every node on the way back up. The move played is the root child visited most often.
+ *
+ * <p>Several threads search one shared {@link MctsTree}. A thread going through a node adds a
+ * virtual loss to it until its playout is backed up, so other threads see the node as worse and
+ * spread out over the tree instead of all following the same line. The tree has a fixed size;
+ * when it is full, the threads stop while the least visited subtrees are dropped, so a long
+ * search uses no more memory than a short one.
+ */
+public class MctsSearch implements MoveSearcher, AutoCloseable {
+
+    /** How a playout estimates the value of the node it added to the tree. */
+    public enum Playout {
+        /** Plays random moves for a few plies, then evaluates. */
+        RANDOM,
+        /** Resolves captures with a short alpha-beta search, then evaluates. */
+        EVALUATION
+    }
+
+    /** Weight of the prior against the average value when choosing a child. */
+    private static final double EXPLORATION = 1.5;
+    /** An unvisited child is assumed to be this much worse than its parent. */
+    private static final double FIRST_PLAY_REDUCTION = 0.2;
+    /** Centipawns by which a move's prior falls by a factor of e. */
+    private static final double PRIOR_TEMPERATURE = 100;
+    /** Centipawns at which a side is expected to score 10 to 1, as in the Elo formula. */
+    private static final double WIN_PROBABILITY_SCALE = 400;
+    private static final int RANDOM_PLAYOUT_PLIES = 16;
+    private static final int CAPTURE_SEARCH_PLIES = 8;
+    private static final int MAX_TREE_DEPTH = Search.MAX_PLY;
+    private static final int MAX_LINE_LENGTH = 32;
+
+    private final MctsTree tree;
+    private final int threadCount;
+    private final Playout playout;
+    private final ExecutorService threads;
+    /** Playouts hold the read lock; recycling the tree takes the write lock. */
+    private final ReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private volatile boolean isStopped;
+
+    /**
+     * @param sizeMb Memory of the tree in megabytes.
+     * @param threadCount Number of threads running playouts.
+     * @param playout How playouts estimate the value of a new node.
+     */
+    public MctsSearch(int sizeMb, int threadCount, Playout playout) {
+        this.tree = new MctsTree(sizeMb);
+        this.threadCount = Math.max(1, Math.min(threadCount, SearchEngine.MAX_THREADS));
+        this.playout = playout;
+        this.threads = Executors.newFixedThreadPool(this.threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "mcts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches a position on every thread until the node limit, counted in playouts, or the time
+     * limit is reached, or {@link #stop()} is called. With a time manager, the soft limit is used,
+     * since playouts can stop at any moment. Depth limits do not apply.
+     */
+    @Override
+    public synchronized SearchResult search(Position root, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        int[] rootMoves = new int[Position.MAX_MOVES];
+        int rootMoveCount = root.generateLegalMoves(rootMoves);
+        if (rootMoveCount == 0) {
+            int score = root.isInCheck() ? -Search.MATE : 0;
+            return new SearchResult(MoveCode.NONE, score, 0, 0, System.nanoTime() - startTime, new int[0]);
+        }
+
+        tree.clear();
+        playouts.set(0);
+        maxDepth.set(0);
+        isStopped = false;
+        TimeManager timeManager = limits.getTimeManager();
+        long timeMillis = timeManager != null ? timeManager.getSoftMillis() : limits.getTimeMillis();
+        long deadline = timeMillis > 0 ? startTime + timeMillis * 1_000_000 : Long.MAX_VALUE;
+        List<Future<?>> workers = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Position position = root.copy();
+            workers.add(threads.submit(() -> runPlayouts(position, limits.getNodes(), deadline)));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                isStopped = true;
+            } catch (ExecutionException e) {
+                isStopped = true;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        int[] line = findBestLine();
+        int bestMove = line.length > 0 ? line[0] : rootMoves[0];
+        int bestChild = findMostVisitedChild(MctsTree.ROOT);
+        int score = bestChild < 0 ? 0 : toCentipawns(getAverageValue(bestChild));
+        long elapsedNanos = System.nanoTime() - startTime;
+        EngineMetrics.get().recordSearch(playouts.get(), maxDepth.get(), 0, 0, elapsedNanos);
+        return new SearchResult(bestMove, score, maxDepth.get(), playouts.get(), elapsedNanos, line);
+    }
+
+    /**
+     * Asks a running search to stop after the playouts under way.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        threads.shutdownNow();
+    }
+
+    private void runPlayouts(Position position, long maxPlayouts, long deadline) {
+        Worker worker = new Worker(position);
+        while (!isStopped && playouts.get() < maxPlayouts && System.nanoTime() < deadline) {
+            boolean isPlayedOut;
+            treeLock.readLock().lock();
+            try {
+                isPlayedOut = worker.playOut();
+            } finally {
+                treeLock.readLock().unlock();
+            }
+            if (isPlayedOut) {
+                playouts.incrementAndGet();
+            } else {
+                recycleTree();
+            }
+        }
+    }
+
+    /**
+     * Makes room in a full tree, unless another thread already has.
+     */
+    private void recycleTree() {
+        treeLock.writeLock().lock();
+        try {
+            if (tree.getSize() > tree.getCapacity() / 2) {
+                tree.recycle(tree.getCapacity() / 2);
+            }
+        } finally {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Follows the most visited child from the root.
+     */
+    private int[] findBestLine() {
+        int[] line = new int[MAX_LINE_LENGTH];
+        int length = 0;
+        int child = findMostVisitedChild(MctsTree.ROOT);
+        while (child >= 0 && length < line.length && tree.getVisits(child) > 0) {
+            line[length++] = tree.getMove(child);
+            child = findMostVisitedChild(child);
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(line, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    /**
+     * Returns the child with the most visits, the better value breaking ties, or -1 if the node
+     * has no children.
+     */
+    private int findMostVisitedChild(int node) {
+        int first = tree.getFirstChild(node);
+        if (first < 0) {
+            return -1;
+        }
+        int best = first;
+        for (int child = first + 1; child < first + tree.getChildCount(node); child++) {
+            int visits = tree.getVisits(child);
+            int bestVisits = tree.getVisits(best);
+            if (visits > bestVisits || visits == bestVisits && getAverageValue(child) > getAverageValue(best)) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private double getAverageValue(int node) {
+        int visits = tree.getVisits(node);
+        return visits == 0 ? 0.5 : tree.getValueSum(node) / visits;
+    }
+
+    private static double toWinProbability(int centipawns) {
+        return 1 / (1 + Math.pow(10, -centipawns / WIN_PROBABILITY_SCALE));
+    }
+
+    private static int toCentipawns(double winProbability) {
+        double clamped = Math.max(1e-6, Math.min(1 - 1e-6, winProbability));
+        return (int) Math.round(-WIN_PROBABILITY_SCALE * Math.log10(1 / clamped - 1));
+    }
+
+    /**
+     * State of one search thread: its copy of the position, made and unmade as it walks the tree,
+     * and scratch arrays for its playouts.
+     */
+    private class Worker {
+
+        private final Position position;
+        private final SplittableRandom random = new SplittableRandom();
+        private final int[] path = new int[MAX_TREE_DEPTH + 1];
+        private final int[][] moves = new int[Math.max(RANDOM_PLAYOUT_PLIES, CAPTURE_SEARCH_PLIES) + 1][];
+        private final int[] moveScores = new int[Position.MAX_MOVES];
+
+        Worker(Position position) {
+            this.position = position;
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = new int[Position.MAX_MOVES];
+            }
+        }
+
+        /**
+         * Runs one playout from the root and backs up its value.
+         *
+         * @return false if the tree was too full to expand a node, in which case nothing is changed.
+         */
+        boolean playOut() {
+            int node = MctsTree.ROOT;
+            int length = 0;
+            path[length++] = node;
+            double value;
+            while (true) {
+                int firstChild = tree.getFirstChild(node);
+                if (firstChild >= 0 && length <= MAX_TREE_DEPTH) {
+                    node = selectChild(node, firstChild);
+                    tree.addVirtualLoss(node);
+                    position.makeMove(tree.getMove(node));
+                    path[length++] = node;
+                    if (isDraw()) {
+                        value = 0.5;
+                        break;
+                    }
+                } else if (firstChild == MctsTree.TERMINAL) {
+                    value = getTerminalValue();
+                    break;
+                } else if (firstChild == MctsTree.UNEXPANDED && tree.tryStartExpansion(node)) {
+                    if (!expand(node)) {
+                        undo(length);
+                        return false;
+                    }
+                    value = tree.getFirstChild(node) == MctsTree.TERMINAL ? getTerminalValue() : estimate();
+                    break;
+                } else {
+                    // Another thread is expanding the node, so estimate it without waiting
+                    value = estimate();
+                    break;
+                }
+            }
+
+            maxDepth.accumulateAndGet(length - 1, Math::max);
+            // Each node holds values from the point of view of the side that played its move
+            for (int i = length - 1; i >= 0; i--) {
+                value = 1 - value;
+                tree.update(path[i], value);
+                if (i > 0) {
+                    tree.removeVirtualLoss(path[i]);
+                    position.unmakeMove();
+                }
+            }
+            return true;
+        }
+
+        private void undo(int length) {
+            for (int i = length - 1; i > 0; i--) {
+                tree.removeVirtualLoss(path[i]);
+                position.unmakeMove();
+            }
+        }
+
+        /**
+         * Chooses the child of a node with the highest PUCT score. Virtual losses count as visits
+         * with a value of 0.
+         */
+        private int selectChild(int node, int firstChild) {
+            int parentVisits = tree.getVisits(node) + tree.getVirtualLosses(node);
+            double exploration = EXPLORATION * Math.sqrt(Math.max(1, parentVisits));
+            double firstPlayValue = Math.max(0, 1 - getAverageValue(node) - FIRST_PLAY_REDUCTION);
+            int best = firstChild;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int child = firstChild; child < firstChild + tree.getChildCount(node); child++) {
+                int visits = tree.getVisits(child) + tree.getVirtualLosses(child);
+                double value = visits == 0 ? firstPlayValue : tree.getValueSum(child) / visits;
+                double score = value + exploration * tree.getPrior(child) / (1 + visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Adds the children of a node claimed by this thread, with priors from a softmax over the
+         * static evaluation after each move.
+         *
+         * @return false if the tree is full, in which case the claim is given up.
+         */
+        private boolean expand(int node) {
+            int[] nodeMoves = moves[0];
+            int count = position.generateLegalMoves(nodeMoves);
+            if (count == 0) {
+                tree.markTerminal(node);
+                return true;
+            }
+            int firstChild = tree.allocate(count);
+            if (firstChild < 0) {
+                tree.cancelExpansion(node);
+                return false;
+            }
+
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                position.makeMove(nodeMoves[i]);
+                moveScores[i] = -Evaluator.evaluate(position);
+                position.unmakeMove();
+                bestScore = Math.max(bestScore, moveScores[i]);
+            }
+            double weightSum = 0;
+            for (int i = 0; i < count; i++) {
+                weightSum += Math.exp((moveScores[i] - bestScore) / PRIOR_TEMPERATURE);
+            }
+            for (int i = 0; i < count; i++) {
+                double weight = Math.exp((moveScores[i] - bestScore) / PRIOR_TEMPERATURE);
+                tree.initNode(firstChild + i, node, nodeMoves[i], (float) (weight / weightSum));
+            }
+            tree.setChildren(node, firstChild, count);
+            return true;
+        }
+
+        private boolean isDraw() {
+            return position.isRepeated(1) || position.isFiftyMoveRuleDraw() || position.hasInsufficientMaterial();
+        }
+
+        /**
+         * Returns the value of a position without legal moves for the side to move: a loss if it
+         * is checkmated, a draw if it is stalemated.
+         */
+        private double getTerminalValue() {
+            return position.isInCheck() ? 0 : 0.5;
+        }
+
+        /**
+         * Estimates the value of the current position for the side to move, between 0 for a loss
+         * and 1 for a win.
+         */
+        private double estimate() {
+            if (playout == Playout.EVALUATION) {
+                return toWinProbability(searchCaptures(-Search.INFINITY, Search.INFINITY, 0));
+            }
+            return playRandomMoves();
+        }
+
+        private double playRandomMoves() {
+            int plies = 0;
+            double value = -1;
+            while (plies < RANDOM_PLAYOUT_PLIES) {
+                int count = position.generateLegalMoves(moves[plies]);
+                if (count == 0) {
+                    value = getTerminalValue();
+                    break;
+                }
+                if (position.isFiftyMoveRuleDraw() || position.hasInsufficientMaterial()) {
+                    value = 0.5;
+                    break;
+                }
+                position.makeMove(moves[plies][random.nextInt(count)]);
+                plies++;
+            }
+            if (value < 0) {
+                value = toWinProbability(Evaluator.evaluate(position));
+            }
+            for (int i = 0; i < plies; i++) {
+                position.unmakeMove();
+            }
+            return plies % 2 == 0 ? value : 1 - value;
+        }
+
+        /**
+         * Searches captures and promotions only, most valuable victim first, so the evaluation is
+         * not taken in the middle of an exchange.
+         *
+         * @return Score in centipawns for the side to move.
+         */
+        private int searchCaptures(int alpha, int beta, int ply) {
+            int standPat = Evaluator.evaluate(position);
+            if (ply >= CAPTURE_SEARCH_PLIES || standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+
+            int[] plyMoves = moves[ply];
+            int count = 0;
+            int generated = position.generatePseudoLegalMoves(plyMoves);
+            for (int i = 0; i < generated; i++) {
+                int move = plyMoves[i];
+                if (MoveCode.isCapture(move) || MoveCode.promotion(move) != 0) {
+                    plyMoves[count++] = move;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                pickMostValuableVictim(plyMoves, i, count);
+                position.makeMove(plyMoves[i]);
+                if (!position.wasLastMoveLegal()) {
+                    position.unmakeMove();
+                    continue;
+                }
+                int score = -searchCaptures(-beta, -alpha, ply + 1);
+                position.unmakeMove();
+                if (score >= beta) {
+                    return score;
+                }
+                alpha = Math.max(alpha, score);
+            }
+            return alpha;
+        }
+
+        /**
+         * Swaps the capture of the most valuable piece, by the least valuable one, into place.
+         */
+        private void pickMostValuableVictim(int[] plyMoves, int start, int count) {
+            int best = start;
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = start; i < count; i++) {
+                int victim = Position.typeOf(position.getPiece(MoveCode.to(plyMoves[i])));
+                int attacker = Position.typeOf(position.getPiece(MoveCode.from(plyMoves[i])));
+                int score = Evaluator.PIECE_VALUES[victim] * 8 - attacker;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            int move = plyMoves[best];
+            plyMoves[best] = plyMoves[start];
+            plyMoves[start] = move;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package chessmaster.engine;
+
+import chessmaster.game.MoveCode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tree of a {@link MctsSearch}, held in parallel arrays of primitives indexed by node rather than
+ * in node objects, so a tree of millions of nodes costs a fixed amount of memory and nothing for
+ * the garbage collector to trace. The children of a node sit next to each other, in one block
+ * taken when the node is expanded, so a node only needs the index of its first child and their
+ * count.
+ *
+ * <p>Visits, virtual losses, value sums and the first child index are updated by the search
+ * threads without a lock. A block of children is filled in before its index is published with a
+ * volatile write, so a thread that sees the index also sees the children. When the arrays are
+ * full, {@link #recycle} drops the least visited subtrees to make room. It must not run at the same
+ * time as anything else.
+ */
+class MctsTree {
+
+    static final int ROOT = 0;
+    /** First child of a node that has not been expanded. */
+    static final int UNEXPANDED = -1;
+    /** First child of a node that a thread is expanding. */
+    static final int EXPANDING = -2;
+    /** First child of a node without legal moves. */
+    static final int TERMINAL = -3;
+    /** Move, parent, first child, child count, prior, visits, virtual losses, value sum and recycling index. */
+    static final int BYTES_PER_NODE = 40;
+
+    /** Values in [0, 1] are summed as fixed-point numbers with this scale. */
+    private static final double VALUE_SCALE = 1 << 16;
+
+    private final int[] moves;
+    private final int[] parents;
+    private final int[] childCounts;
+    private final float[] priors;
+    private final AtomicIntegerArray firstChildren;
+    private final AtomicIntegerArray visits;
+    private final AtomicIntegerArray virtualLosses;
+    private final AtomicLongArray valueSums;
+    /** New index of each node while recycling, or -1 if its children are dropped. */
+    private final int[] newIndices;
+    private final AtomicInteger size = new AtomicInteger();
+
+    MctsTree(int sizeMb) {
+        int capacity = (int) Math.max(1024, Math.min((long) sizeMb * 1024 * 1024 / BYTES_PER_NODE, 1 << 30));
+        moves = new int[capacity];
+        parents = new int[capacity];
+        childCounts = new int[capacity];
+        priors = new float[capacity];
+        firstChildren = new AtomicIntegerArray(capacity);
+        visits = new AtomicIntegerArray(capacity);
+        virtualLosses = new AtomicIntegerArray(capacity);
+        valueSums = new AtomicLongArray(capacity);
+        newIndices = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Drops every node but an unexpanded root.
+     */
+    void clear() {
+        size.set(1);
+        initNode(ROOT, -1, MoveCode.NONE, 1);
+    }
+
+    int getSize() {
+        return size.get();
+    }
+
+    int getCapacity() {
+        return moves.length;
+    }
+
+    /**
+     * Takes a block of nodes for the children of a node.
+     *
+     * @return Index of the first node of the block, or -1 if the tree is full.
+     */
+    int allocate(int count) {
+        while (true) {
+            int start = size.get();
+            if (start + count > moves.length) {
+                return -1;
+            }
+            if (size.compareAndSet(start, start + count)) {
+                return start;
+            }
+        }
+    }
+
+    void initNode(int node, int parent, int move, float prior) {
+        moves[node] = move;
+        parents[node] = parent;
+        childCounts[node] = 0;
+        priors[node] = prior;
+        visits.set(node, 0);
+        virtualLosses.set(node, 0);
+        valueSums.set(node, 0);
+        firstChildren.set(node, UNEXPANDED);
+    }
+
+    /**
+     * Claims an unexpanded node for expansion by the calling thread.
+     *
+     * @return true if no other thread has claimed or expanded it.
+     */
+    boolean tryStartExpansion(int node) {
+        return firstChildren.compareAndSet(node, UNEXPANDED, EXPANDING);
+    }
+
+    void cancelExpansion(int node) {
+        firstChildren.set(node, UNEXPANDED);
+    }
+
+    void markTerminal(int node) {
+        firstChildren.set(node, TERMINAL);
+    }
+
+    /**
+     * Publishes the children of a node, whose block must have been filled in with {@link #initNode}.
+     */
+    void setChildren(int node, int firstChild, int count) {
+        childCounts[node] = count;
+        firstChildren.set(node, firstChild);
+    }
+
+    /**
+     * Returns the index of a node's first child, or {@link #UNEXPANDED}, {@link #EXPANDING} or
+     * {@link #TERMINAL} if it has no children.
+     */
+    int getFirstChild(int node) {
+        return firstChildren.get(node);
+    }
+
+    int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    int getMove(int node) {
+        return moves[node];
+    }
+
+    float getPrior(int node) {
+        return priors[node];
+    }
+
+    int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    int getVirtualLosses(int node) {
+        return virtualLosses.get(node);
+    }
+
+    /**
+     * Returns the sum of the values backed up through a node, each from the point of view of the
+     * side that played the node's move.
+     */
+    double getValueSum(int node) {
+        return valueSums.get(node) / VALUE_SCALE;
+    }
+
+    void addVirtualLoss(int node) {
+        virtualLosses.incrementAndGet(node);
+    }
+
+    void removeVirtualLoss(int node) {
+        virtualLosses.decrementAndGet(node);
+    }
+
+    /**
+     * Adds a visit with a value in [0, 1] to a node.
+     */
+    void update(int node, double value) {
+        valueSums.addAndGet(node, Math.round(value * VALUE_SCALE));
+        visits.incrementAndGet(node);
+    }
+
+    /**
+     * Drops the children of the least visited nodes until at most {@code maxSize} nodes are left,
+     * and moves the rest to the front of the arrays. A node whose children are dropped keeps its
+     * own visits and value, and is expanded again if the search comes back to it. Only the calling
+     * thread may use the tree until this returns.
+     */
+    void recycle(int maxSize) {
+        int oldSize = size.get();
+        int threshold = findRecyclingThreshold(oldSize, maxSize);
+        boolean isRootKeepingChildren = keepsChildren(ROOT, threshold);
+        newIndices[ROOT] = isRootKeepingChildren ? ROOT : -1;
+        childCounts[ROOT] = isRootKeepingChildren ? childCounts[ROOT] : 0;
+        firstChildren.set(ROOT, UNEXPANDED);
+
+        // Children are allocated after their parent, so a node moves to an index no higher than
+        // its own and every node is read before anything is written over it
+        int next = 1;
+        int lastParent = -1;
+        for (int node = 1; node < oldSize; node++) {
+            int parent = parents[node];
+            int newParent = newIndices[parent];
+            if (newParent < 0) {
+                newIndices[node] = -1;
+                continue;
+            }
+            int firstChild = firstChildren.get(node);
+            boolean isKeepingChildren = keepsChildren(node, threshold);
+            int index = next++;
+            if (parent != lastParent) {
+                firstChildren.set(newParent, index);
+                lastParent = parent;
+            }
+            moves[index] = moves[node];
+            parents[index] = newParent;
+            childCounts[index] = isKeepingChildren ? childCounts[node] : 0;
+            priors[index] = priors[node];
+            visits.set(index, visits.get(node));
+            virtualLosses.set(index, 0);
+            valueSums.set(index, valueSums.get(node));
+            // The first child is set when, and if, that child is moved
+            firstChildren.set(index, firstChild == TERMINAL ? TERMINAL : UNEXPANDED);
+            newIndices[node] = isKeepingChildren ? index : -1;
+        }
+        size.set(next);
+    }
+
+    /**
+     * Finds the fewest visits a node needs to keep its children for at most {@code maxSize} nodes to
+     * be kept. A node is never visited more than its parent, so a node kept by the threshold has
+     * every ancestor kept too, and the nodes kept are the root and the children of every expanded
+     * node visited at least that often.
+     */
+    private int findRecyclingThreshold(int oldSize, int maxSize) {
+        int low = 1;
+        int high = visits.get(ROOT) + 1;
+        while (low < high) {
+            int threshold = low + (high - low) / 2;
+            long keptCount = 1;
+            for (int node = 0; node < oldSize; node++) {
+                if (keepsChildren(node, threshold)) {
+                    keptCount += childCounts[node];
+                }
+            }
+            if (keptCount <= maxSize) {
+                high = threshold;
+            } else {
+                low = threshold + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean keepsChildren(int node, int threshold) {
+        return firstChildren.get(node) >= 0 && visits.get(node) >= threshold;
+    }
+}
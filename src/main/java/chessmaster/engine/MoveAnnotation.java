@@ -0,0 +1,101 @@
+package chessmaster.engine;
+
+/**
+ * Post-game assessment of a single move: how much worse it was than the engine's choice.
+ */
+public class MoveAnnotation {
+
+    /** Centipawn loss thresholds of the grades. */
+    public static final int INACCURACY_LOSS = 50;
+    public static final int MISTAKE_LOSS = 100;
+    public static final int BLUNDER_LOSS = 300;
+
+    /**
+     * Classification of a move by its centipawn loss.
+     */
+    public enum Grade {
+        GOOD(""),
+        INACCURACY("?!"),
+        MISTAKE("?"),
+        BLUNDER("??");
+
+        private final String symbol;
+
+        Grade(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public static Grade ofLoss(int loss) {
+            if (loss >= BLUNDER_LOSS) {
+                return BLUNDER;
+            } else if (loss >= MISTAKE_LOSS) {
+                return MISTAKE;
+            } else if (loss >= INACCURACY_LOSS) {
+                return INACCURACY;
+            }
+            return GOOD;
+        }
+    }
+
+    private final int ply;
+    private final int move;
+    private final int bestMove;
+    private final int bestScore;
+    private final int playedScore;
+
+    /**
+     * Creates an annotation. Scores are from the point of view of the player who made the move.
+     *
+     * @param ply Index of the move in the game, starting from 0.
+     * @param move Move played.
+     * @param bestMove Move preferred by the engine.
+     * @param bestScore Score of the position before the move, assuming the best move.
+     * @param playedScore Score of the position after the move played.
+     */
+    public MoveAnnotation(int ply, int move, int bestMove, int bestScore, int playedScore) {
+        this.ply = ply;
+        this.move = move;
+        this.bestMove = bestMove;
+        this.bestScore = bestScore;
+        this.playedScore = playedScore;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getPlayedScore() {
+        return playedScore;
+    }
+
+    /**
+     * Returns the centipawn loss of the move, which is never negative.
+     * Playing the engine's move, or a move that scores at least as well, loses nothing.
+     */
+    public int getLoss() {
+        if (move == bestMove) {
+            return 0;
+        }
+        return Math.max(0, bestScore - playedScore);
+    }
+
+    public Grade getGrade() {
+        return Grade.ofLoss(getLoss());
+    }
+}
@@ -0,0 +1,18 @@
+package chessmaster.engine;
+
+import chessmaster.game.Position;
+
+/**
+ * Something that can search a position for the best move, blocking until the search is done.
+ */
+public interface MoveSearcher {
+
+    /**
+     * Searches a position.
+     *
+     * @param root Position to search. It is not modified.
+     * @param limits When to stop.
+     * @return Result of the search.
+     */
+    SearchResult search(Position root, SearchLimits limits);
+}
@@ -0,0 +1,91 @@
+package chessmaster.engine;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of proof and disproof numbers for {@link MateSolver}, of a fixed size. Entries sit
+ * in buckets of two. When a bucket is full, the entry whose subtree took the least work to search
+ * is replaced, as it is the cheapest to search again. Used by one thread only.
+ */
+public class ProofNumberTable {
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /** Key, proof number, disproof number and work. */
+    private static final int BYTES_PER_ENTRY = 20;
+    private static final int BUCKET_SIZE = 2;
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int[] works;
+    private final int mask;
+    private int index;
+
+    public ProofNumberTable(int sizeMb) {
+        long entries = Math.max(1024, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        int capacity = (int) Long.highestOneBit(Math.min(entries, 1 << 30));
+        keys = new long[capacity];
+        proofs = new int[capacity];
+        disproofs = new int[capacity];
+        works = new int[capacity];
+        mask = capacity - BUCKET_SIZE;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(works, 0);
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Looks up a node. If it is found, its numbers are read with {@link #getProof()} and
+     * {@link #getDisproof()} until the next call.
+     *
+     * @param key Key of the node. Never 0, which marks an empty entry.
+     * @return true if the node is in the table.
+     */
+    public boolean probe(long key) {
+        int bucket = (int) key & mask;
+        for (index = bucket; index < bucket + BUCKET_SIZE; index++) {
+            if (keys[index] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getProof() {
+        return proofs[index];
+    }
+
+    public int getDisproof() {
+        return disproofs[index];
+    }
+
+    /**
+     * Stores the numbers of a node, over its earlier entry if it has one.
+     *
+     * @param work Nodes searched below the node, a measure of what dropping the entry would cost.
+     */
+    public void store(long key, int proof, int disproof, long work) {
+        int bucket = (int) key & mask;
+        int slot = bucket;
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            if (keys[i] == key) {
+                slot = i;
+                break;
+            }
+            if (works[i] < works[slot]) {
+                slot = i;
+            }
+        }
+        keys[slot] = key;
+        proofs[slot] = proof;
+        disproofs[slot] = disproof;
+        works[slot] = (int) Math.min(work, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,516 @@
+package chessmaster.engine;
+
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.metrics.EngineMetrics;
+import chessmaster.metrics.SearchIterationEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative deepening alpha-beta search (principal variation search with quiescence, null move
+ * pruning and late move reductions). A Search object keeps per-thread state such as move buffers
+ * and killer moves, so each thread needs its own instance; the transposition table can be shared.
+ */
+public class Search {
+
+    public static final int MATE = 30000;
+    public static final int INFINITY = 32000;
+    public static final int MAX_PLY = 128;
+
+    /** The clock and stop flag are polled whenever the node count is a multiple of this (a power of two). */
+    private static final int LIMIT_CHECK_INTERVAL = 2048;
+
+    private static final int TT_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int PROMOTION_SCORE = 900_000;
+    private static final int FIRST_KILLER_SCORE = 800_000;
+    private static final int SECOND_KILLER_SCORE = 700_000;
+    private static final int HISTORY_LIMIT = 500_000;
+
+    private final TranspositionTable table;
+    private final int[][] moves = new int[MAX_PLY + 1][Position.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY + 1][Position.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[16][64];
+    private final int[][] principalVariations = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] principalVariationLengths = new int[MAX_PLY + 1];
+    /** Root moves skipped when searching for the second and later lines of a multi-PV search. */
+    private final int[] excludedRootMoves = new int[Position.MAX_MOVES];
+    private int excludedRootMoveCount;
+
+    private boolean isNullMovePruningEnabled = true;
+    private boolean isLateMoveReductionEnabled = true;
+    private SearchListener listener;
+    private Position position;
+    private long nodes;
+    /** Transposition table probes and hits, added to the {@link EngineMetrics} when the search ends. */
+    private long tableProbes;
+    private long tableHits;
+    private long nodeLimit;
+    private long deadline;
+    private boolean hasDeadline;
+    private volatile boolean isStopRequested;
+    private boolean isAborted;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Turns search features on or off as the configuration says, e.g. to measure their strength.
+     */
+    public void configure(EngineConfig config) {
+        isNullMovePruningEnabled = config.isNullMovePruningEnabled();
+        isLateMoveReductionEnabled = config.isLateMoveReductionEnabled();
+    }
+
+    /**
+     * Sets the listener told about each completed iteration, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. The search returns the result of the
+     * last completed iteration. Safe to call from any thread.
+     *
+     * <p>The request stays in effect until {@link #clearStop()}, so a stop that arrives before the
+     * search has started is not lost.
+     */
+    public void stop() {
+        isStopRequested = true;
+    }
+
+    public void clearStop() {
+        isStopRequested = false;
+    }
+
+    /**
+     * Searches a position for the best move.
+     *
+     * @param root Position to search. It is copied, so the caller's position is not modified.
+     * @param limits Depth, node and time limits of the search.
+     * @return Best move and score found.
+     */
+    public SearchResult search(Position root, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        position = root.copy();
+        nodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        nodeLimit = limits.getNodes();
+        hasDeadline = limits.getTimeMillis() > 0;
+        deadline = startTime + limits.getTimeMillis() * 1_000_000;
+        isAborted = false;
+        for (int[] killer : killers) {
+            Arrays.fill(killer, MoveCode.NONE);
+        }
+        for (int[] pieceHistory : history) {
+            Arrays.fill(pieceHistory, 0);
+        }
+        excludedRootMoveCount = 0;
+
+        int[] rootMoves = new int[Position.MAX_MOVES];
+        int rootMoveCount = position.generateLegalMoves(rootMoves);
+        if (rootMoveCount == 0) {
+            int score = position.isInCheck() ? -MATE : 0;
+            return new SearchResult(MoveCode.NONE, score, 0, 0, System.nanoTime() - startTime, new int[0]);
+        }
+
+        TimeManager timeManager = limits.getTimeManager();
+        int lineCount = Math.min(limits.getMultiPv(), rootMoveCount);
+        int bestMove = rootMoves[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        int stableIterations = 0;
+        int[] principalVariation = new int[] {bestMove};
+        List<SearchLine> lines = List.of(new SearchLine(bestScore, principalVariation));
+        for (int depth = limits.getStartDepth(); depth <= limits.getDepth(); depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            List<SearchLine> iterationLines = searchLines(depth, lineCount);
+            if (isAborted) {
+                commitIterationEvent(event, depth, bestScore, bestMove);
+                break;
+            }
+
+            int score = iterationLines.get(0).getScore();
+            int previousBestMove = bestMove;
+            int scoreDrop = completedDepth > 0 ? bestScore - score : 0;
+            completedDepth = depth;
+            bestScore = score;
+            lines = iterationLines;
+            principalVariation = lines.get(0).getMoves();
+            bestMove = principalVariation.length > 0 ? principalVariation[0] : bestMove;
+            stableIterations = bestMove == previousBestMove ? stableIterations + 1 : 0;
+            commitIterationEvent(event, depth, bestScore, bestMove);
+            long elapsedNanos = System.nanoTime() - startTime;
+            if (listener != null) {
+                listener.onIteration(new SearchResult(bestMove, bestScore, depth, nodes, elapsedNanos, lines));
+            }
+            if (lineCount == 1 && Math.abs(score) >= MATE - depth) {
+                // A forced mate has been found within the full-width horizon
+                break;
+            }
+            if (timeManager != null && timeManager.shouldStop(elapsedNanos / 1_000_000, stableIterations, scoreDrop)) {
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        EngineMetrics.get().recordSearch(nodes, completedDepth, tableProbes, tableHits, elapsedNanos);
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsedNanos, lines);
+    }
+
+    /**
+     * Reports an iteration to Flight Recorder, if it is recording iterations that took this long.
+     * The event's fields are only filled in then, so a search not being recorded does no more
+     * than read the clock twice per iteration.
+     */
+    private void commitIterationEvent(SearchIterationEvent event, int depth, int score, int bestMove) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.depth = depth;
+        event.nodes = nodes;
+        event.score = score;
+        event.bestMove = MoveCode.toUci(bestMove);
+        event.isAborted = isAborted;
+        event.commit();
+    }
+
+    /**
+     * Runs one iteration, finding the best line, then the best line not starting with the first
+     * line's move, and so on.
+     *
+     * @return Lines found, best first. Incomplete if the search was aborted.
+     */
+    private List<SearchLine> searchLines(int depth, int lineCount) {
+        List<SearchLine> lines = new ArrayList<>(lineCount);
+        excludedRootMoveCount = 0;
+        for (int line = 0; line < lineCount; line++) {
+            int score = alphaBeta(depth, -INFINITY, INFINITY, 0, true);
+            if (isAborted) {
+                break;
+            }
+            int[] moves = Arrays.copyOf(principalVariations[0], principalVariationLengths[0]);
+            lines.add(new SearchLine(score, moves));
+            if (moves.length == 0) {
+                break;
+            }
+            excludedRootMoves[excludedRootMoveCount++] = moves[0];
+        }
+        excludedRootMoveCount = 0;
+        // Later lines are searched with less information, so they can occasionally score higher
+        lines.sort((first, second) -> Integer.compare(second.getScore(), first.getScore()));
+        return lines;
+    }
+
+    private int alphaBeta(int depth, int alpha, int beta, int ply, boolean isPv) {
+        principalVariationLengths[ply] = ply;
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+        boolean isInCheck = position.isInCheck();
+        if (isInCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (countNodeAndCheckLimits()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(position);
+        }
+
+        long key = position.getKey();
+        long entry = table.probe(key);
+        tableProbes++;
+        int ttMove = MoveCode.NONE;
+        if (entry != 0) {
+            tableHits++;
+            ttMove = TranspositionTable.getMove(entry);
+            if (!isPv && TranspositionTable.getDepth(entry) >= depth) {
+                int ttScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        int us = position.getSideToMove();
+        if (isNullMovePruningEnabled && !isPv && !isInCheck && depth >= 3 && ply > 0
+                && position.hasNonPawnMaterial(us)
+                && Evaluator.evaluate(position) >= beta) {
+            int reduction = depth > 6 ? 3 : 2;
+            position.makeNullMove();
+            int score = -alphaBeta(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+            position.unmakeNullMove();
+            if (isAborted) {
+                return 0;
+            }
+            if (score >= beta && score < MATE - MAX_PLY) {
+                return beta;
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = position.generatePseudoLegalMoves(plyMoves);
+        scoreMoves(ply, count, ttMove, false);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = MoveCode.NONE;
+        int legalCount = 0;
+        for (int i = 0; i < count; i++) {
+            pickNextMove(ply, i, count);
+            int move = plyMoves[i];
+            if (ply == 0 && isExcludedRootMove(move)) {
+                continue;
+            }
+            position.makeMove(move);
+            if (!position.wasLastMoveLegal()) {
+                position.unmakeMove();
+                continue;
+            }
+            legalCount++;
+
+            int score;
+            if (legalCount == 1) {
+                score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, isPv);
+            } else {
+                boolean isQuiet = !MoveCode.isCapture(move) && MoveCode.promotion(move) == 0;
+                boolean canReduce = isLateMoveReductionEnabled && depth >= 3 && legalCount > 3 && isQuiet
+                        && !isInCheck && move != killers[ply][0] && move != killers[ply][1];
+                int reduction = canReduce && !position.isInCheck() ? 1 : 0;
+                score = -alphaBeta(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, false);
+                if (score > alpha && reduction > 0) {
+                    score = -alphaBeta(depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                }
+                if (score > alpha && score < beta) {
+                    score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            position.unmakeMove();
+            if (isAborted) {
+                return 0;
+            }
+
+            if (score <= bestScore) {
+                continue;
+            }
+            bestScore = score;
+            bestMove = move;
+            if (score <= alpha) {
+                continue;
+            }
+            alpha = score;
+            updatePrincipalVariation(ply, move);
+            if (score >= beta) {
+                if (!MoveCode.isCapture(move)) {
+                    updateQuietMoveStatistics(ply, move, depth);
+                }
+                break;
+            }
+        }
+
+        if (legalCount == 0) {
+            return isInCheck ? -MATE + ply : 0;
+        }
+
+        if (ply == 0 && excludedRootMoveCount > 0) {
+            // The result ignores the excluded moves, so it does not describe the position
+            return bestScore;
+        }
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private boolean isExcludedRootMove(int move) {
+        for (int i = 0; i < excludedRootMoveCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        principalVariationLengths[ply] = ply;
+        if (countNodeAndCheckLimits()) {
+            return 0;
+        }
+        if (position.hasInsufficientMaterial()) {
+            // Captures cannot undo a draw by material, and repetitions need quiet moves
+            return 0;
+        }
+
+        int standPat = Evaluator.evaluate(position);
+        if (ply >= MAX_PLY || standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = position.generatePseudoLegalMoves(plyMoves);
+        scoreMoves(ply, count, MoveCode.NONE, true);
+        for (int i = 0; i < count; i++) {
+            pickNextMove(ply, i, count);
+            if (moveScores[ply][i] < PROMOTION_SCORE) {
+                // Remaining moves are quiet
+                break;
+            }
+            int move = plyMoves[i];
+            position.makeMove(move);
+            if (!position.wasLastMoveLegal()) {
+                position.unmakeMove();
+                continue;
+            }
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (isAborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Returns true if the position is drawn by repetition, the fifty-move rule or lack of material.
+     * A single repetition counts: if the side to move could do better than repeating, it would
+     * have done so the first time. The game history before the root is included, since the search
+     * works on a copy of the root position.
+     */
+    private boolean isDraw() {
+        return position.isRepeated(1) || position.isFiftyMoveRuleDraw() || position.hasInsufficientMaterial();
+    }
+
+    /**
+     * Counts a node and checks the node, time and stop limits every {@link #LIMIT_CHECK_INTERVAL} nodes.
+     *
+     * @return true if the search must be aborted.
+     */
+    private boolean countNodeAndCheckLimits() {
+        nodes++;
+        if ((nodes & (LIMIT_CHECK_INTERVAL - 1)) == 0) {
+            isAborted |= isStopRequested || nodes >= nodeLimit || (hasDeadline && System.nanoTime() >= deadline);
+        }
+        return isAborted;
+    }
+
+    private void scoreMoves(int ply, int count, int ttMove, boolean isCapturesOnly) {
+        int[] plyMoves = moves[ply];
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = plyMoves[i];
+            int to = MoveCode.to(move);
+            if (move == ttMove) {
+                scores[i] = TT_MOVE_SCORE;
+            } else if (MoveCode.isCapture(move)) {
+                int victim = (MoveCode.flags(move) & MoveCode.FLAG_EN_PASSANT) != 0
+                        ? Position.PAWN : Position.typeOf(position.getPiece(to));
+                int attacker = Position.typeOf(position.getPiece(MoveCode.from(move)));
+                scores[i] = CAPTURE_SCORE + Evaluator.PIECE_VALUES[victim] * 16 - attacker;
+            } else if (MoveCode.promotion(move) == Position.QUEEN) {
+                scores[i] = PROMOTION_SCORE;
+            } else if (isCapturesOnly) {
+                scores[i] = 0;
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = history[position.getPiece(MoveCode.from(move))][to];
+            }
+        }
+    }
+
+    /**
+     * Moves the highest scoring remaining move into position {@code index} (selection sort step).
+     */
+    private void pickNextMove(int ply, int index, int count) {
+        int[] plyMoves = moves[ply];
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = plyMoves[best];
+        plyMoves[best] = plyMoves[index];
+        plyMoves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] line = principalVariations[ply];
+        int[] childLine = principalVariations[ply + 1];
+        line[ply] = move;
+        int childLength = principalVariationLengths[ply + 1];
+        for (int i = ply + 1; i < childLength; i++) {
+            line[i] = childLine[i];
+        }
+        principalVariationLengths[ply] = Math.max(ply + 1, childLength);
+    }
+
+    private void updateQuietMoveStatistics(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int piece = position.getPiece(MoveCode.from(move));
+        int[] pieceHistory = history[piece];
+        int to = MoveCode.to(move);
+        pieceHistory[to] = Math.min(HISTORY_LIMIT, pieceHistory[to] + depth * depth);
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to the current node.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
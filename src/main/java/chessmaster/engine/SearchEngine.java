@@ -0,0 +1,174 @@
+package chessmaster.engine;
+
+import chessmaster.game.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs searches in the background on one or more threads sharing a transposition table
+ * ("Lazy SMP"). Every thread searches the same root; the helpers only feed the shared table,
+ * and the main thread's result is reported.
+ */
+public class SearchEngine implements MoveSearcher, AutoCloseable {
+
+    public static final int MAX_THREADS = 64;
+
+    private final TranspositionTable table;
+    private final ExecutorService threads;
+    private final List<Search> searches = new CopyOnWriteArrayList<>();
+    private volatile CompletableFuture<SearchResult> running = CompletableFuture.completedFuture(null);
+    private EngineConfig config = new EngineConfig();
+
+    public SearchEngine(int hashSizeMb, int threadCount) {
+        table = new TranspositionTable(hashSizeMb);
+        threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        setThreadCount(threadCount);
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreadCount() {
+        return searches.size();
+    }
+
+    /**
+     * Sets the number of search threads. Waits for any running search to finish first.
+     */
+    public synchronized void setThreadCount(int threadCount) {
+        waitForSearch();
+        int count = Math.max(1, Math.min(threadCount, MAX_THREADS));
+        while (searches.size() < count) {
+            Search search = new Search(table);
+            search.configure(config);
+            searches.add(search);
+        }
+        while (searches.size() > count) {
+            searches.remove(searches.size() - 1);
+        }
+    }
+
+    /**
+     * Applies the search features chosen by a configuration. Waits for any running search to finish first.
+     */
+    public synchronized void configure(EngineConfig config) {
+        waitForSearch();
+        this.config = config;
+        for (Search search : searches) {
+            search.configure(config);
+        }
+    }
+
+    /**
+     * Resizes the hash table, discarding its contents. Waits for any running search to finish first.
+     */
+    public synchronized void setHashSize(int sizeMb) {
+        waitForSearch();
+        table.resize(sizeMb);
+    }
+
+    /**
+     * Forgets everything learned from earlier games. Waits for any running search to finish first.
+     */
+    public synchronized void clear() {
+        waitForSearch();
+        table.clear();
+    }
+
+    /**
+     * Starts searching a position in the background.
+     *
+     * @param root Position to search. It is copied before this method returns.
+     * @param limits Limits of the search.
+     * @param listener Told about each completed iteration of the main thread, or null.
+     * @return Future completed with the main thread's result once every thread has stopped.
+     */
+    public synchronized CompletableFuture<SearchResult> start(Position root, SearchLimits limits,
+            SearchListener listener) {
+        waitForSearch();
+        // Clear stop requests here rather than on the search threads, so that a stop() arriving
+        // before the threads get going still takes effect
+        for (Search search : searches) {
+            search.clearStop();
+            search.setListener(null);
+        }
+        Search main = searches.get(0);
+        main.setListener(listener);
+        List<Search> helpers = new ArrayList<>(searches.subList(1, searches.size()));
+        Position snapshot = root.copy();
+        running = CompletableFuture.supplyAsync(() -> runSearch(main, helpers, snapshot, limits), threads);
+        return running;
+    }
+
+    /**
+     * Searches a position, blocking until the search completes.
+     */
+    @Override
+    public SearchResult search(Position root, SearchLimits limits) {
+        return start(root, limits, null).join();
+    }
+
+    /**
+     * Stops the running search, if any. Its future completes with the best move found so far.
+     * Never blocks, so it can be called while another thread waits in {@link #start}.
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    public boolean isSearching() {
+        return !running.isDone();
+    }
+
+    @Override
+    public void close() {
+        stop();
+        threads.shutdownNow();
+    }
+
+    private void waitForSearch() {
+        try {
+            running.join();
+        } catch (RuntimeException e) {
+            // The failure has already been reported to whoever started the search
+        }
+    }
+
+    private SearchResult runSearch(Search main, List<Search> helpers, Position root, SearchLimits limits) {
+        List<Future<SearchResult>> helperResults = new ArrayList<>(helpers.size());
+        for (Search helper : helpers) {
+            helperResults.add(threads.submit(() -> helper.search(root, limits)));
+        }
+
+        SearchResult result = main.search(root, limits);
+        long nodes = result.getNodes();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        for (Future<SearchResult> helperResult : helperResults) {
+            try {
+                nodes += helperResult.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                result.getElapsedNanos(), result.getLines());
+    }
+}
@@ -0,0 +1,117 @@
+package chessmaster.engine;
+
+/**
+ * Limits of a single search. A search stops at whichever limit is reached first.
+ */
+public class SearchLimits {
+
+    public static final int MAX_DEPTH = 64;
+
+    private int depth = MAX_DEPTH;
+    private int startDepth = 1;
+    private int multiPv = 1;
+    private long nodes = Long.MAX_VALUE;
+    private long timeMillis;
+    private TimeManager timeManager;
+
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.depth = Math.min(depth, MAX_DEPTH);
+        return limits;
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        SearchLimits limits = new SearchLimits();
+        limits.timeMillis = timeMillis;
+        return limits;
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        SearchLimits limits = new SearchLimits();
+        limits.nodes = nodes;
+        return limits;
+    }
+
+    /**
+     * Returns limits that let a time manager decide when to stop, within its hard limit.
+     */
+    public static SearchLimits managed(TimeManager timeManager) {
+        return new SearchLimits().withTimeManager(timeManager);
+    }
+
+    public static SearchLimits infinite() {
+        return new SearchLimits();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the depth of the first iteration. Starting deeper than 1 is useful when the
+     * transposition table still holds the results of an earlier search of the same position.
+     */
+    public int getStartDepth() {
+        return startDepth;
+    }
+
+    /**
+     * Returns the number of best lines to find.
+     */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the time budget in milliseconds, or 0 if the search is not limited by time.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the time manager deciding when to stop between iterations, or null if there is none.
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    public SearchLimits withDepth(int depth) {
+        this.depth = Math.min(depth, MAX_DEPTH);
+        return this;
+    }
+
+    public SearchLimits withStartDepth(int startDepth) {
+        this.startDepth = Math.max(1, Math.min(startDepth, MAX_DEPTH));
+        return this;
+    }
+
+    public SearchLimits withMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+        return this;
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    public SearchLimits withTime(long timeMillis) {
+        this.timeMillis = timeMillis;
+        return this;
+    }
+
+    /**
+     * Sets the time manager, or removes it if null. The hard limit of the time manager
+     * replaces the time limit.
+     */
+    public SearchLimits withTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+        this.timeMillis = timeManager == null ? 0 : timeManager.getHardMillis();
+        return this;
+    }
+}
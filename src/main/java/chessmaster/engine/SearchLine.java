@@ -0,0 +1,26 @@
+package chessmaster.engine;
+
+/**
+ * One line of play found by a search: its moves and the score it leads to.
+ */
+public class SearchLine {
+
+    private final int score;
+    private final int[] moves;
+
+    public SearchLine(int score, int[] moves) {
+        this.score = score;
+        this.moves = moves;
+    }
+
+    /**
+     * Returns the score in centipawns from the point of view of the side to move at the root.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int[] getMoves() {
+        return moves;
+    }
+}
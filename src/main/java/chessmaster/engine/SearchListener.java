@@ -0,0 +1,14 @@
+package chessmaster.engine;
+
+/**
+ * Receives progress reports from a running search.
+ */
+public interface SearchListener {
+
+    /**
+     * Called on the search thread each time an iteration of iterative deepening completes.
+     *
+     * @param result Best move, score and principal variation found so far.
+     */
+    void onIteration(SearchResult result);
+}
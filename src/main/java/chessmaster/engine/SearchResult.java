@@ -0,0 +1,112 @@
+package chessmaster.engine;
+
+import chessmaster.game.MoveCode;
+
+import java.util.List;
+
+/**
+ * Outcome of a search: best move, score and principal variation, with search statistics.
+ */
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final List<SearchLine> lines;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos,
+            int[] principalVariation) {
+        this(bestMove, score, depth, nodes, elapsedNanos, List.of(new SearchLine(score, principalVariation)));
+    }
+
+    /**
+     * Creates the result of a search that may have looked for several lines.
+     *
+     * @param lines Lines found, best first. The first is the principal variation.
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos,
+            List<SearchLine> lines) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.lines = lines;
+    }
+
+    /**
+     * Returns the best move, or {@link MoveCode#NONE} if the position has no legal moves.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Returns the score in centipawns from the point of view of the side to move.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    public int[] getPrincipalVariation() {
+        return lines.get(0).getMoves();
+    }
+
+    /**
+     * Returns the lines found, best first. There is more than one only in a multi-PV search.
+     */
+    public List<SearchLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the move the opponent is expected to reply with, or {@link MoveCode#NONE} if unknown.
+     */
+    public int getExpectedReply() {
+        int[] principalVariation = getPrincipalVariation();
+        return principalVariation.length > 1 ? principalVariation[1] : MoveCode.NONE;
+    }
+
+    public boolean isMateScore() {
+        return isMateScore(score);
+    }
+
+    /**
+     * Returns the number of moves to mate, negative if the side to move is being mated.
+     */
+    public int getMateInMoves() {
+        return getMateInMoves(score);
+    }
+
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    public static int getMateInMoves(int score) {
+        int plies = Search.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+}
@@ -0,0 +1,84 @@
+package chessmaster.engine;
+
+/**
+ * Decides how long to think about a move. The soft limit is the time the search normally aims
+ * for; it is shortened while the best move stays the same across iterations and lengthened when
+ * the score drops. The hard limit is never exceeded: the search checks it every few thousand nodes.
+ */
+public class TimeManager {
+
+    /** Moves assumed to remain in the game when the number is not known. */
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+
+    /** Time kept in reserve for the delay between deciding on a move and the clock being stopped. */
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final long MIN_MOVE_TIME_MILLIS = 10;
+    /** Most of the remaining time a single move may use. */
+    private static final int MAX_REMAINING_TIME_DIVISOR = 4;
+    private static final int HARD_LIMIT_FACTOR = 4;
+
+    /** Score drops, in centipawns, that make the search think longer. */
+    private static final int SMALL_SCORE_DROP = 20;
+    private static final int LARGE_SCORE_DROP = 50;
+
+    private final long softMillis;
+    private final long hardMillis;
+
+    public TimeManager(long softMillis, long hardMillis) {
+        this.softMillis = Math.min(softMillis, hardMillis);
+        this.hardMillis = hardMillis;
+    }
+
+    /**
+     * Returns a time manager that always uses the given time per move.
+     */
+    public static TimeManager fixed(long moveTimeMillis) {
+        return new TimeManager(moveTimeMillis, moveTimeMillis);
+    }
+
+    /**
+     * Divides the remaining time over the moves still to be played.
+     *
+     * @param remainingMillis Time left on the clock.
+     * @param incrementMillis Time added to the clock after each move.
+     * @param movesToGo Moves left until the next time control, or the game's expected remaining length.
+     * @return Time manager for the next move.
+     */
+    public static TimeManager allocate(long remainingMillis, long incrementMillis, int movesToGo) {
+        long available = Math.max(MIN_MOVE_TIME_MILLIS, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        long maximum = Math.max(MIN_MOVE_TIME_MILLIS, available / MAX_REMAINING_TIME_DIVISOR);
+        long soft = available / Math.max(1, movesToGo) + incrementMillis * 3 / 4;
+        soft = Math.max(MIN_MOVE_TIME_MILLIS, Math.min(soft, maximum));
+        long hard = Math.min(soft * HARD_LIMIT_FACTOR, maximum);
+        return new TimeManager(soft, hard);
+    }
+
+    public long getSoftMillis() {
+        return softMillis;
+    }
+
+    public long getHardMillis() {
+        return hardMillis;
+    }
+
+    /**
+     * Decides, after an iteration has completed, whether to start another one.
+     * An iteration usually takes longer than all earlier ones together, so no new iteration is
+     * started once half of the adjusted soft limit has passed.
+     *
+     * @param elapsedMillis Time searched so far.
+     * @param stableIterations Number of consecutive iterations that returned the same best move.
+     * @param scoreDrop Amount the score fell in the last iteration, negative if it rose.
+     * @return true if the search should stop now.
+     */
+    public boolean shouldStop(long elapsedMillis, int stableIterations, int scoreDrop) {
+        int percent = Math.max(50, 130 - 20 * stableIterations);
+        if (scoreDrop >= LARGE_SCORE_DROP) {
+            percent += 50;
+        } else if (scoreDrop >= SMALL_SCORE_DROP) {
+            percent += 20;
+        }
+        long target = Math.min(hardMillis, softMillis * percent / 100);
+        return elapsedMillis * 2 >= target;
+    }
+}
@@ -0,0 +1,125 @@
+package chessmaster.engine;
+
+import chessmaster.metrics.Events;
+import chessmaster.metrics.HashTableEvent;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of search results shared by all search threads. Each entry is two longs: the
+ * packed data and the position key XOR-ed with that data. A torn write from a racing thread
+ * then fails the key check on read, so no locking is needed.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private long[] keys;
+    private long[] data;
+    private int mask;
+
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Replaces the table with an empty one of the given size, rounded down to a power of two entries.
+     * Must not be called while a search is using the table.
+     *
+     * @param sizeMb Table size in megabytes.
+     */
+    public synchronized void resize(int sizeMb) {
+        HashTableEvent event = new HashTableEvent();
+        event.begin();
+        long entries = Math.max(1024, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        int capacity = (int) Long.highestOneBit(Math.min(entries, 1 << 30));
+        keys = new long[capacity];
+        data = new long[capacity];
+        mask = capacity - 1;
+        Events.commit(event, e -> {
+            e.operation = HashTableEvent.RESIZE;
+            e.entries = keys.length;
+            e.bytes = (long) keys.length * BYTES_PER_ENTRY;
+        });
+    }
+
+    public synchronized void clear() {
+        HashTableEvent event = new HashTableEvent();
+        event.begin();
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        Events.commit(event, e -> {
+            e.operation = HashTableEvent.CLEAR;
+            e.entries = keys.length;
+            e.bytes = (long) keys.length * BYTES_PER_ENTRY;
+        });
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key Zobrist key of the position.
+     * @return Packed entry data, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entryData = data[index];
+        if ((keys[index] ^ entryData) != key) {
+            return 0;
+        }
+        return entryData;
+    }
+
+    /**
+     * Stores a search result, replacing the existing entry unless it is a deeper search of the same position.
+     *
+     * @param key Zobrist key of the position.
+     * @param move Best move found, or 0.
+     * @param score Score, with mate scores relative to the position.
+     * @param depth Remaining search depth.
+     * @param bound One of {@link #BOUND_EXACT}, {@link #BOUND_LOWER} or {@link #BOUND_UPPER}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long existing = data[index];
+        if ((keys[index] ^ existing) == key && getDepth(existing) > depth && bound != BOUND_EXACT) {
+            return;
+        }
+
+        if (move == 0 && (keys[index] ^ existing) == key) {
+            move = getMove(existing);
+        }
+        long entryData = (move & 0xFFFFFL)
+                | ((long) (score + 0x8000) & 0xFFFF) << 20
+                | ((long) Math.max(0, Math.min(depth, 0xFF))) << 36
+                | ((long) bound) << 44;
+        data[index] = entryData;
+        keys[index] = key ^ entryData;
+    }
+
+    public static int getMove(long entryData) {
+        return (int) (entryData & 0xFFFFF);
+    }
+
+    public static int getScore(long entryData) {
+        return (int) ((entryData >>> 20) & 0xFFFF) - 0x8000;
+    }
+
+    public static int getDepth(long entryData) {
+        return (int) ((entryData >>> 36) & 0xFF);
+    }
+
+    public static int getBound(long entryData) {
+        return (int) ((entryData >>> 44) & 0x3);
+    }
+}
@@ -7,4 +7,10 @@ public class ExceptionMessages {
     public static final String MESSAGE_LOAD_BOARD_EXCEPTION = "Unable to load board!";
     public static final String MESSAGE_INVALID_MOVE_EXCEPTION = "Oops, that move isn't valid!";
     public static final String MESSAGE_NULL_PIECE_EXCEPTION = "No piece found at coordinate!";
+    public static final String MESSAGE_PARSE_FEN_EXCEPTION = "Unable to parse FEN position!";
+    public static final String MESSAGE_PARSE_PGN_EXCEPTION = "Unable to parse PGN game!";
+    public static final String MESSAGE_GAME_OVER = "The game is already over!";
+    public static final String MESSAGE_NO_SOLUTION = "The position has no bm or am operation!";
+    public static final String MESSAGE_WRONG_SIDE =
+            "You're moving for the wrong side! Try moving one of your pieces instead.";
 }
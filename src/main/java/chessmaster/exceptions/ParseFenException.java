@@ -0,0 +1,13 @@
+package chessmaster.exceptions;
+
+public class ParseFenException extends ChessMasterException {
+
+    public ParseFenException() {
+        super(ExceptionMessages.MESSAGE_PARSE_FEN_EXCEPTION);
+    }
+
+    public ParseFenException(String message) {
+        super(message);
+    }
+
+}
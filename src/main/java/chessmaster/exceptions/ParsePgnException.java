@@ -0,0 +1,13 @@
+package chessmaster.exceptions;
+
+public class ParsePgnException extends ChessMasterException {
+
+    public ParsePgnException() {
+        super(ExceptionMessages.MESSAGE_PARSE_PGN_EXCEPTION);
+    }
+
+    public ParsePgnException(String message) {
+        super(message);
+    }
+
+}
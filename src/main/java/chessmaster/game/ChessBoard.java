@@ -2,11 +2,18 @@ package chessmaster.game;
 
 import chessmaster.exceptions.InvalidMoveException;
 import chessmaster.exceptions.NullPieceException;
+import chessmaster.metrics.MoveExecutedEvent;
 import chessmaster.parser.Parser;
 import chessmaster.pieces.ChessPiece;
 import chessmaster.pieces.Pawn;
+import chessmaster.storage.MoveStatistics;
+import chessmaster.storage.PositionDatabase;
 import chessmaster.ui.TextUI;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 
 public class ChessBoard {
 
@@ -24,6 +31,11 @@ public class ChessBoard {
     };
 
     private final ChessTile[][] board = new ChessTile[SIZE][SIZE];
+    /** Counts changes to the tiles, so that moves cached for an earlier position are not used. */
+    private int version;
+    /** Destinations of each piece, generated at {@link #cacheVersion}. */
+    private final Map<ChessPiece, Coordinate[]> legalDestinations = new IdentityHashMap<>();
+    private int cacheVersion;
 
     public ChessBoard() {
         for (int row = 0; row < SIZE; row++) {
@@ -40,7 +52,7 @@ public class ChessBoard {
             for (int j = 0; j < board.length ; j++) {
                 ChessPiece piece = board[i][j].getChessPiece();
                 if (piece != null){
-                    piece.displayAvailableCoordinates(this.board);
+                    piece.displayAvailableCoordinates(this);
                 }
             }
 
@@ -48,22 +60,23 @@ public class ChessBoard {
         }
     }
 
-    public void showChessBoard() {
-        System.out.println();
-        TextUI.printChessBoardHeader();
-        TextUI.printChessBoardDivider();
-        for (int i = 0; i < board.length; i++) {
-            ChessTile[] row = board[i];
-            StringBuilder rowString = new StringBuilder();
-
-            for (ChessTile tile : row) {
-                rowString.append(tile.toString());
-            }
-
-            int rowNum = (i - 8) * -1;
-            TextUI.printChessBoardRow(rowNum, rowString.toString());
+    /**
+     * Shows how often each move was played in the current position and how those games ended.
+     *
+     * @param explorer Opening explorer database to look the position up in.
+     * @param sideToMove Colour of the side to move.
+     */
+    public void displayExplorerMoves(PositionDatabase explorer, int sideToMove) {
+        Position position = Position.fromChessBoard(this, sideToMove);
+        if (position == null) {
+            return;
         }
-        System.out.println();
+        List<MoveStatistics> moveStatistics = explorer.query(position);
+        TextUI.printExplorerMoves(moveStatistics);
+    }
+
+    public void showChessBoard() {
+        TextUI.printChessBoard(this);
     }
 
     private ChessTile getTileAtCoor(Coordinate coor) {
@@ -80,6 +93,44 @@ public class ChessBoard {
 
     public void setTile(int row, int col, ChessTile tile) {
         board[col][row] = tile;
+        version++;
+    }
+
+    /**
+     * Returns a number that changes whenever a tile of the board does.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns every coordinate a piece can move to in the current position. They are generated
+     * once per piece and position, so listing, validating and choosing moves share one pass.
+     *
+     * @param piece Piece on this board.
+     * @return Destinations of the piece, which must not be modified.
+     */
+    public Coordinate[] getLegalDestinations(ChessPiece piece) {
+        if (cacheVersion != version) {
+            legalDestinations.clear();
+            cacheVersion = version;
+        }
+        return legalDestinations.computeIfAbsent(piece, p -> p.getFlattenedCoordinates(board));
+    }
+
+    /**
+     * Returns whether a move is one the board accepts in the current position.
+     */
+    public boolean isLegalMove(Move move) {
+        if (move.isEmpty()) {
+            return false;
+        }
+        for (Coordinate destination : getLegalDestinations(move.getPiece())) {
+            if (destination.equals(move.getTo())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -89,7 +140,9 @@ public class ChessBoard {
      * @throws InvalidMoveException If the move is not valid according to the game rules.
      */
     public void executeMove(Move move) throws InvalidMoveException {
-        if (move.isEmpty()) {
+        MoveExecutedEvent event = new MoveExecutedEvent();
+        event.begin();
+        if (!isLegalMove(move)) {
             throw new InvalidMoveException();
         }
 
@@ -97,14 +150,18 @@ public class ChessBoard {
         Coordinate destCoor = move.getTo();
         ChessPiece chessPiece = move.getPiece();
 
-        Coordinate[][] possibleCoordinates = chessPiece.getAvailableCoordinates(board);
-        if (!move.isValid(possibleCoordinates)) {
-            throw new InvalidMoveException();
-        }
-
         chessPiece.updatePosition(destCoor);
         getTileAtCoor(startCoor).setTileEmpty();
         getTileAtCoor(destCoor).updateTileChessPiece(chessPiece);
+        version++;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.piece = chessPiece.toString();
+            event.from = startCoor.toString();
+            event.to = destCoor.toString();
+            event.commit();
+        }
     }
 
     public boolean canPromote(Move move) {
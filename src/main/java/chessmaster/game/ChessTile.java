@@ -36,6 +36,6 @@ public class ChessTile {
     @Override
     public String toString() {
         String tileContent = isEmpty() ? EMPTY_TILE_STRING : chessPiece.toString();
-        return String.format("%s %s ", TILE_DIVIDER, tileContent);
+        return TILE_DIVIDER + " " + tileContent + " ";
     }
 }
@@ -0,0 +1,41 @@
+package chessmaster.game;
+
+import java.util.Map;
+
+/**
+ * A position read from an EPD (or FEN) line, with the EPD operations that followed it, such as
+ * "bm" (best moves) or "id". Operands are kept as written, without the surrounding quotes of a
+ * single string operand.
+ */
+public class EpdRecord {
+
+    public static final String BEST_MOVE = "bm";
+    public static final String AVOID_MOVE = "am";
+    public static final String ID = "id";
+
+    private final String fen;
+    private final Map<String, String> operations;
+
+    public EpdRecord(String fen, Map<String, String> operations) {
+        this.fen = fen;
+        this.operations = operations;
+    }
+
+    /**
+     * Returns the position as FEN: the four EPD fields, followed by the move counters if the line had them.
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    public Map<String, String> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the operands of an operation, or null if the record does not have it.
+     */
+    public String getOperation(String opcode) {
+        return operations.get(opcode);
+    }
+}
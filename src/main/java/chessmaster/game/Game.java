@@ -1,22 +1,26 @@
 package chessmaster.game;
 
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.TimeManager;
+import chessmaster.exceptions.ExceptionMessages;
+import chessmaster.exceptions.InvalidMoveException;
+import chessmaster.metrics.EngineMetrics;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.storage.PositionDatabase;
+import chessmaster.ui.TextUI;
 import chessmaster.user.CPU;
 import chessmaster.user.Human;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-public class Game {
 
-    // In v1.0 we will only have player1 = human (white)
-    // and player2 = CPU (black).
-    // However in the future these will be modifiable.
-    // private Player player1;
-    // private Player player2;
-    private Human human;
-    private CPU cpu;
+public class Game {
 
-    private ChessBoard board;
+    public static final String EXPLORER_FILE_PATH = "data/explorer.db";
 
-    private final String logo =
+    private static final String LOGO =
         "░█████╗░██╗░░██╗███████╗░██████╗░██████╗███╗░░░███╗░█████╗░░██████╗████████╗███████╗██████╗░"
         + System.lineSeparator() +
         "██╔══██╗██║░░██║██╔════╝██╔════╝██╔════╝████╗░████║██╔══██╗██╔════╝╚══██╔══╝██╔════╝██╔══██╗"
@@ -30,8 +34,32 @@ public class Game {
         "░╚════╝░╚═╝░░╚═╝╚══════╝╚═════╝░╚═════╝░╚═╝░░░░░╚═╝╚═╝░░╚═╝╚═════╝░░░░╚═╝░░░╚══════╝╚═╝░░╚═╝"
         + System.lineSeparator();
 
+    // In v1.0 we will only have player1 = human (white)
+    // and player2 = CPU (black).
+    // However in the future these will be modifiable.
+    // private Player player1;
+    // private Player player2;
+    private Human human;
+    private CPU cpu;
+
+    private ChessBoard board;
+    /** The board under the full rules, with the moves played on it so far; null if a king is missing. */
+    private Position position;
+    private GameClock clock;
+    /** Opening explorer of a console game, or null if none has been built. Closed when the game ends. */
+    private PositionDatabase explorer;
+
     public Game(String mode, int player1Colour) {
+        this(mode, player1Colour, GameClock.DEFAULT_BASE_TIME_MILLIS, GameClock.DEFAULT_INCREMENT_MILLIS);
+    }
+
+    public Game(String mode, int player1Colour, long baseTimeMillis, long incrementMillis) {
+        this(mode, player1Colour, baseTimeMillis, incrementMillis, new EngineConfig());
+    }
+
+    public Game(String mode, int player1Colour, long baseTimeMillis, long incrementMillis, EngineConfig cpuConfig) {
         board = new ChessBoard();
+        clock = new GameClock(baseTimeMillis, incrementMillis);
 
         switch (mode) {
         case "multi":
@@ -39,20 +67,167 @@ public class Game {
         case "single":
         default:
             this.human = new Human(player1Colour);
-            this.cpu = new CPU(1 - player1Colour);
+            this.cpu = new CPU(1 - player1Colour, cpuConfig);
         }
 
         this.human.initialisePieces(board);
         this.cpu.initialisePieces(board);
+        this.position = Position.fromChessBoard(board, human.getColour());
+        this.explorer = openExplorer();
+        this.human.setExplorer(explorer);
+        this.human.setOpponent(cpu);
+        this.cpu.setOpponent(human);
+    }
+
+    /**
+     * Creates a game that is driven by the caller through {@link #playTurn} rather than read from
+     * the console, as server sessions do. It has no clock and no opening explorer.
+     *
+     * @param human Player whose moves are fed in.
+     * @param cpu Opponent that replies to them.
+     */
+    public Game(Human human, CPU cpu) {
+        this(human, cpu, new ChessBoard());
     }
 
+    /**
+     * Creates a caller-driven game continuing on the given board, e.g. one restored from a snapshot.
+     * The move history before the board's position is not known.
+     */
+    public Game(Human human, CPU cpu, ChessBoard board) {
+        this.board = board;
+        this.human = human;
+        this.cpu = cpu;
+        this.human.collectPieces(board);
+        this.cpu.collectPieces(board);
+        this.position = Position.fromChessBoard(board, human.getColour());
+        this.human.setOpponent(cpu);
+        this.cpu.setOpponent(human);
+    }
+
+    public ChessBoard getBoard() {
+        return board;
+    }
+
+    public Human getHuman() {
+        return human;
+    }
+
+    /**
+     * Returns the position on the board between turns, with the human to move, packed for storage.
+     */
+    public PackedPosition getPackedPosition() {
+        return PackedPosition.fromChessBoard(board, human.getColour());
+    }
+
+    /**
+     * Plays the human's move followed by the CPU's reply.
+     *
+     * @param move Human's move, as parsed by {@link chessmaster.parser.Parser#parseMove}.
+     * @param timeManager Decides how long the CPU thinks.
+     * @return The CPU's reply, or null if the human's move ended the game.
+     * @throws InvalidMoveException If the move is not one of the human's legal moves.
+     */
+    public Move playTurn(Move move, TimeManager timeManager) throws InvalidMoveException {
+        if (move.getPiece().getColour() != human.getColour()) {
+            throw new InvalidMoveException(ExceptionMessages.MESSAGE_WRONG_SIDE);
+        }
+        // Checked here as well as by the board, so that a rejected move is not logged as an error
+        if (!board.isLegalMove(move) || !human.move(move, board)) {
+            throw new InvalidMoveException();
+        }
+        recordMove(move, human.getColour());
+        if (getState() != Position.GameState.ONGOING) {
+            return null;
+        }
+        return playCpuMove(move, timeManager);
+    }
+
+    /**
+     * Returns whether the game has ended, and how, as seen by the side to move.
+     */
+    public Position.GameState getState() {
+        return position == null ? Position.GameState.ONGOING : position.getGameState();
+    }
+
+    private void recordMove(Move move, int mover) {
+        position = Position.followBoardMove(position, board, move, mover);
+    }
+
+    /**
+     * Lets the CPU search for and play its reply, falling back to a random move if the search
+     * comes up with a move the board does not accept.
+     *
+     * @return The move played.
+     */
+    private Move playCpuMove(Move humanMove, TimeManager timeManager) {
+        Move cpuMove = cpu.getBestMove(board, position, humanMove, timeManager);
+        // Checked here as well as by the board, so that a rejected move is not logged as an error
+        if (!board.isLegalMove(cpuMove) || !cpu.move(cpuMove, board)) {
+            cpu.stopPondering();
+            cpuMove = cpu.getRandomMove(board);
+            cpu.move(cpuMove, board);
+        }
+        recordMove(cpuMove, cpu.getColour());
+        return cpuMove;
+    }
+
+    /**
+     * Opens the opening explorer database for lookups if one has been built.
+     *
+     * @return The explorer database, or null if there is none.
+     */
+    private static PositionDatabase openExplorer() {
+        Path path = Path.of(EXPLORER_FILE_PATH);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return PositionDatabase.openReadOnly(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Plays the game at the console until it ends or the user aborts, then closes the explorer.
+     */
     public void run() {
-        System.out.println(logo);
+        try {
+            play();
+        } finally {
+            closeExplorer();
+        }
+    }
 
+    private void closeExplorer() {
+        if (explorer == null) {
+            return;
+        }
+        human.setExplorer(null);
+        try {
+            explorer.close();
+        } catch (IOException e) {
+            // Opened read-only, so nothing is lost
+        }
+        explorer = null;
+    }
+
+    private void play() {
+        System.out.println(LOGO);
+
+        // When the human's last move was entered, until the board showing the reply is rendered
+        long inputTime = 0;
         while (true) {
 
-            // 1. Show the chessboard at every move.
+            // 1. Show the chessboard and clocks at every move, and start the human's clock.
             board.showChessBoard();
+            if (inputTime != 0) {
+                EngineMetrics.get().recordInputLatency(System.nanoTime() - inputTime);
+                inputTime = 0;
+            }
+            TextUI.printClock(clock.getRemainingMillis(ChessPiece.WHITE), clock.getRemainingMillis(ChessPiece.BLACK));
+            clock.start(human.getColour());
 
             // 2. Get the next move.
             // In v1.0 the human is always white, so they will always go first
@@ -60,28 +235,67 @@ public class Game {
             Move move = human.getNextMove(board);
             if (move == null) {
                 // user has entered "abort"
+                cpu.stopPondering();
                 break;
             } else if (move.isEmpty()) {
                 // if the move was not correctly parsed, move to the next iteration of the game
                 continue;
             } else if (move.getPiece().getColour() != this.human.getColour()) {
-                System.out.println("You're moving for the wrong side! Try moving one of your pieces instead." );
+                System.out.println(ExceptionMessages.MESSAGE_WRONG_SIDE);
                 continue;
             }
 
             // 3. Execute the next move.
+            inputTime = System.nanoTime();
             boolean success = human.move(move, board);
             if (!success) {
                 // if the move was Invalid, go to next iteration
                 continue;
             }
+            clock.stop();
+            if (clock.isOutOfTime(human.getColour())) {
+                TextUI.printOutOfTimeMessage(human.getColour());
+                cpu.stopPondering();
+                break;
+            }
+            recordMove(move, human.getColour());
+            if (isOver()) {
+                break;
+            }
+
+            // 4. CPU plays, then ponders on the human's expected reply until the next move is entered
+            clock.start(cpu.getColour());
+            TimeManager timeManager = TimeManager.allocate(clock.getRemainingMillis(cpu.getColour()),
+                    clock.getIncrementMillis(), TimeManager.DEFAULT_MOVES_TO_GO);
+            playCpuMove(move, timeManager);
+            clock.stop();
+            if (clock.isOutOfTime(cpu.getColour())) {
+                TextUI.printOutOfTimeMessage(cpu.getColour());
+                cpu.stopPondering();
+                break;
+            }
 
-            // 4. CPU plays
-            Move randomMove = cpu.getRandomMove(board);
-            cpu.move(randomMove, board);
+            // 5. Stop if the CPU's move ended the game
+            if (isOver()) {
+                break;
+            }
+        }
+    }
 
-            // Todo: Check game state
+    /**
+     * Shows the final board and how the game ended, if it has.
+     *
+     * @return true if the game has ended.
+     */
+    private boolean isOver() {
+        Position.GameState state = getState();
+        if (state == Position.GameState.ONGOING) {
+            return false;
         }
+        cpu.stopPondering();
+        board.showChessBoard();
+        TextUI.printGameOverMessage(state, position.getSideToMove());
+        return true;
     }
 
 }
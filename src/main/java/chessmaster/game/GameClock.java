@@ -0,0 +1,82 @@
+package chessmaster.game;
+
+import chessmaster.pieces.ChessPiece;
+
+/**
+ * Chess clock with a base time and an increment per move for each player.
+ * Time is measured with the monotonic {@link System#nanoTime()} timer.
+ */
+public class GameClock {
+
+    public static final long DEFAULT_BASE_TIME_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_INCREMENT_MILLIS = 3 * 1000;
+
+    private static final int NOT_RUNNING = -1;
+
+    /** Remaining time of each player, indexed by colour, not counting the running turn. */
+    private final long[] remainingNanos = new long[2];
+    private final long incrementNanos;
+
+    private int runningColour = NOT_RUNNING;
+    private long turnStartNanos;
+
+    public GameClock(long baseTimeMillis, long incrementMillis) {
+        remainingNanos[ChessPiece.WHITE] = baseTimeMillis * 1_000_000;
+        remainingNanos[ChessPiece.BLACK] = baseTimeMillis * 1_000_000;
+        incrementNanos = incrementMillis * 1_000_000;
+    }
+
+    /**
+     * Starts a player's clock, stopping the other player's clock without an increment.
+     * Does nothing if the player's clock is already running.
+     *
+     * @param colour Colour of the player to move.
+     */
+    public void start(int colour) {
+        if (runningColour == colour) {
+            return;
+        }
+        if (runningColour != NOT_RUNNING) {
+            remainingNanos[runningColour] -= System.nanoTime() - turnStartNanos;
+        }
+        runningColour = colour;
+        turnStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the running clock once its player has moved, adding the increment
+     * unless the player has already run out of time.
+     */
+    public void stop() {
+        if (runningColour == NOT_RUNNING) {
+            return;
+        }
+        remainingNanos[runningColour] -= System.nanoTime() - turnStartNanos;
+        if (remainingNanos[runningColour] > 0) {
+            remainingNanos[runningColour] += incrementNanos;
+        }
+        runningColour = NOT_RUNNING;
+    }
+
+    /**
+     * Returns a player's remaining time, including the time used so far in the running turn.
+     *
+     * @param colour Colour of the player.
+     * @return Remaining time in milliseconds, negative if the player has run out of time.
+     */
+    public long getRemainingMillis(int colour) {
+        long remaining = remainingNanos[colour];
+        if (runningColour == colour) {
+            remaining -= System.nanoTime() - turnStartNanos;
+        }
+        return remaining / 1_000_000;
+    }
+
+    public long getIncrementMillis() {
+        return incrementNanos / 1_000_000;
+    }
+
+    public boolean isOutOfTime(int colour) {
+        return getRemainingMillis(colour) <= 0;
+    }
+}
@@ -0,0 +1,47 @@
+package chessmaster.game;
+
+import java.util.Map;
+
+/**
+ * A complete game read from an external source such as a PGN file. Moves are stored as
+ * packed {@link MoveCode} ints, played from the starting position given by {@link #getStartingFen()}.
+ */
+public class GameRecord {
+
+    public static final String RESULT_WHITE_WIN = "1-0";
+    public static final String RESULT_BLACK_WIN = "0-1";
+    public static final String RESULT_DRAW = "1/2-1/2";
+    public static final String RESULT_UNKNOWN = "*";
+
+    private final Map<String, String> tags;
+    private final String startingFen;
+    private final int[] moves;
+    private final String result;
+
+    public GameRecord(Map<String, String> tags, String startingFen, int[] moves, String result) {
+        this.tags = tags;
+        this.startingFen = startingFen;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getStartingFen() {
+        return startingFen;
+    }
+
+    public int[] getMoves() {
+        return moves;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public boolean isStandardStart() {
+        return startingFen.equals(Position.STARTING_FEN);
+    }
+}
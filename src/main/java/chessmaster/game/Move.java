@@ -43,15 +43,4 @@ public class Move {
     public boolean isEmpty() {
         return (from == null && to == null && piece == null);
     }
-
-    public boolean isValid(Coordinate[][] possibleCoordinates) {
-        for (Coordinate[] direction : possibleCoordinates) {
-            for (Coordinate coor : direction) {
-                if (coor.equals(to)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
 }
@@ -0,0 +1,65 @@
+package chessmaster.game;
+
+/**
+ * Static helpers for moves packed into a single int, as used by {@link Position}.
+ * Bits 0-5 hold the origin square, bits 6-11 the destination square, bits 12-14 the
+ * promotion piece type and bits 16-19 the move flags.
+ */
+public final class MoveCode {
+
+    public static final int NONE = 0;
+
+    public static final int FLAG_CAPTURE = 1;
+    public static final int FLAG_EN_PASSANT = 2;
+    public static final int FLAG_CASTLE = 4;
+    public static final int FLAG_DOUBLE_PUSH = 8;
+
+    private static final String PROMOTION_LETTERS = "  nbrq";
+
+    private MoveCode() {
+    }
+
+    public static int of(int from, int to, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | (flags << 16);
+    }
+
+    public static int from(int move) {
+        return move & 0x3f;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3f;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 16) & 0xf;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & (FLAG_CAPTURE | FLAG_EN_PASSANT)) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (flags(move) & FLAG_CASTLE) != 0;
+    }
+
+    /**
+     * Returns the move in long algebraic (UCI) notation, e.g. "e2e4" or "e7e8q".
+     *
+     * @param move Packed move.
+     * @return Coordinate notation of the move.
+     */
+    public static String toUci(int move) {
+        StringBuilder builder = new StringBuilder(5);
+        builder.append(Position.squareName(from(move)));
+        builder.append(Position.squareName(to(move)));
+        if (promotion(move) != 0) {
+            builder.append(PROMOTION_LETTERS.charAt(promotion(move)));
+        }
+        return builder.toString();
+    }
+}
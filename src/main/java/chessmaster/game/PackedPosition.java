@@ -0,0 +1,222 @@
+package chessmaster.game;
+
+import chessmaster.parser.Parser;
+import chessmaster.pieces.ChessPiece;
+
+import java.util.Arrays;
+
+/**
+ * Immutable position for keeping many games in memory: a 64 byte mailbox in the piece codes and
+ * square numbering of {@link Position}, plus the side to move, castling rights, en passant square
+ * and move counters. It takes about {@link #FOOTPRINT_BYTES} of heap, against several kilobytes
+ * for a {@link ChessBoard} with its tiles, pieces and coordinates, or for a {@link Position} with
+ * its undo history.
+ *
+ * <p>Positions are converted to a ChessBoard to be played on by {@link Game}, and to a Position
+ * to be searched by the CPU. Two packed positions are equal if they hold the same position and
+ * move counters, so they can be used as map keys.
+ */
+public final class PackedPosition {
+
+    /** Heap taken by a packed position: a 24 byte object plus a 64 byte array with its 16 byte header. */
+    public static final int FOOTPRINT_BYTES = 104;
+
+    /** ChessPiece letters (as returned by toString) of each piece type, indexed by the type. */
+    private static final String CHESS_PIECE_LETTERS = " pnbrqk";
+    /** FEN letter of every piece code, indexed by the code itself. */
+    private static final String FEN_PIECES = " PNBRQK  pnbrqk";
+
+    private final byte[] squares;
+    private final byte sideToMove;
+    private final byte castlingRights;
+    private final byte enPassantSquare;
+    private final short halfMoveClock;
+    private final short fullMoveNumber;
+
+    /**
+     * Creates a packed position.
+     *
+     * @param squares Piece code on every square, in the numbering of {@link Position}. It is copied.
+     */
+    public PackedPosition(byte[] squares, int sideToMove, int castlingRights, int enPassantSquare, int halfMoveClock,
+            int fullMoveNumber) {
+        assert squares.length == 64 : "Mailbox must have 64 squares";
+        this.squares = squares.clone();
+        this.sideToMove = (byte) sideToMove;
+        this.castlingRights = (byte) castlingRights;
+        this.enPassantSquare = (byte) enPassantSquare;
+        this.halfMoveClock = (short) Math.min(halfMoveClock, Short.MAX_VALUE);
+        this.fullMoveNumber = (short) Math.min(fullMoveNumber, Short.MAX_VALUE);
+    }
+
+    /**
+     * Packs the pieces of a {@link ChessBoard}. ChessBoard row 0 holds white's back rank, so rows
+     * map directly onto ranks. Castling rights are given for every king and rook still on its
+     * starting square, and no en passant square is set.
+     *
+     * @param board Board to pack.
+     * @param sideToMove Colour of the side to move.
+     * @return Packed position, which may lack kings if the board does.
+     */
+    public static PackedPosition fromChessBoard(ChessBoard board, int sideToMove) {
+        byte[] squares = new byte[64];
+        ChessTile[][] tiles = board.getBoard();
+        for (int row = 0; row < ChessBoard.SIZE; row++) {
+            for (int col = 0; col < ChessBoard.SIZE; col++) {
+                ChessPiece chessPiece = tiles[row][col].getChessPiece();
+                if (chessPiece != null) {
+                    int type = CHESS_PIECE_LETTERS.indexOf(chessPiece.toString().toLowerCase());
+                    squares[Position.squareOf(col, row)] = (byte) Position.makePiece(type, chessPiece.getColour());
+                }
+            }
+        }
+
+        int whiteKing = Position.makePiece(Position.KING, ChessPiece.WHITE);
+        int whiteRook = Position.makePiece(Position.ROOK, ChessPiece.WHITE);
+        int blackKing = Position.makePiece(Position.KING, ChessPiece.BLACK);
+        int blackRook = Position.makePiece(Position.ROOK, ChessPiece.BLACK);
+        int castlingRights = 0;
+        if (squares[4] == whiteKing) {
+            castlingRights |= squares[7] == whiteRook ? Position.WHITE_KINGSIDE : 0;
+            castlingRights |= squares[0] == whiteRook ? Position.WHITE_QUEENSIDE : 0;
+        }
+        if (squares[60] == blackKing) {
+            castlingRights |= squares[63] == blackRook ? Position.BLACK_KINGSIDE : 0;
+            castlingRights |= squares[56] == blackRook ? Position.BLACK_QUEENSIDE : 0;
+        }
+        return new PackedPosition(squares, sideToMove, castlingRights, Position.NO_SQUARE, 0, 1);
+    }
+
+    /**
+     * Returns a new ChessBoard with the pieces of this position.
+     */
+    public ChessBoard toChessBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int row = 0; row < ChessBoard.SIZE; row++) {
+            for (int col = 0; col < ChessBoard.SIZE; col++) {
+                int piece = squares[Position.squareOf(col, row)];
+                ChessPiece chessPiece = null;
+                if (piece != Position.EMPTY) {
+                    String letter = String.valueOf(CHESS_PIECE_LETTERS.charAt(Position.typeOf(piece)));
+                    boolean isBlack = Position.colourOf(piece) == ChessPiece.BLACK;
+                    chessPiece = Parser.parseChessPiece(isBlack ? letter.toUpperCase() : letter, row, col);
+                }
+                // setTile stores into board[col][row], so it is given the column first, as Storage does
+                board.setTile(col, row, new ChessTile(chessPiece));
+            }
+        }
+        return board;
+    }
+
+    public int getPiece(int square) {
+        return squares[square];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * Returns true if the other position has the same pieces on the same squares, whatever the
+     * side to move, castling rights and counters.
+     */
+    public boolean hasSamePieces(PackedPosition other) {
+        return Arrays.equals(squares, other.squares);
+    }
+
+    /**
+     * Copies the mailbox into an array.
+     */
+    void copySquares(byte[] target) {
+        System.arraycopy(squares, 0, target, 0, 64);
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptyCount = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = squares[Position.squareOf(file, rank)];
+                if (piece == Position.EMPTY) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) {
+                    fen.append(emptyCount);
+                    emptyCount = 0;
+                }
+                fen.append(FEN_PIECES.charAt(piece));
+            }
+            if (emptyCount > 0) {
+                fen.append(emptyCount);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(sideToMove == ChessPiece.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, Position.WHITE_KINGSIDE, 'K');
+            appendIf(fen, Position.WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, Position.BLACK_KINGSIDE, 'k');
+            appendIf(fen, Position.BLACK_QUEENSIDE, 'q');
+        }
+        fen.append(' ').append(enPassantSquare == Position.NO_SQUARE ? "-" : Position.squareName(enPassantSquare));
+        fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return fen.toString();
+    }
+
+    private void appendIf(StringBuilder builder, int right, char c) {
+        if ((castlingRights & right) != 0) {
+            builder.append(c);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PackedPosition)) {
+            return false;
+        }
+        PackedPosition position = (PackedPosition) other;
+        return sideToMove == position.sideToMove && castlingRights == position.castlingRights
+                && enPassantSquare == position.enPassantSquare && halfMoveClock == position.halfMoveClock
+                && fullMoveNumber == position.fullMoveNumber && Arrays.equals(squares, position.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(squares);
+        result = 31 * result + sideToMove;
+        result = 31 * result + castlingRights;
+        result = 31 * result + enPassantSquare;
+        result = 31 * result + halfMoveClock;
+        return 31 * result + fullMoveNumber;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
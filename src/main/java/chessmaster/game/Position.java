@@ -0,0 +1,1051 @@
+package chessmaster.game;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.pieces.ChessPiece;
+
+import java.util.Arrays;
+
+/**
+ * Compact chess position backed by a 64 byte mailbox, with full legal move generation.
+ * Squares are numbered rank by rank from a1 (0) to h8 (63). Each square holds a piece
+ * type, with {@link #BLACK_FLAG} set for black pieces, or 0 if the square is empty.
+ * Moves are packed ints as described in {@link MoveCode}.
+ */
+public class Position {
+
+    /**
+     * Whether a game has ended, and how.
+     */
+    public enum GameState {
+        ONGOING,
+        CHECKMATE,
+        STALEMATE,
+        REPETITION,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL
+    }
+
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+    public static final int BLACK_FLAG = 8;
+
+    public static final int NO_SQUARE = -1;
+    public static final int MAX_MOVES = 256;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** Plies without a capture or pawn move after which the game is drawn. */
+    public static final int FIFTY_MOVE_RULE_PLIES = 100;
+
+    /** ChessPiece letters (as returned by toString) of each piece type, indexed by the type. */
+    private static final String CHESS_PIECE_LETTERS = " pnbrqk";
+
+    /** FEN letter of every piece code, indexed by the code itself. */
+    private static final String FEN_PIECES = " PNBRQK  pnbrqk";
+    private static final String FILES = "abcdefgh";
+
+    private static final int[][] KNIGHT_STEPS = {
+        {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2},
+    };
+    private static final int[][] KING_STEPS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1},
+    };
+
+    /** Directions 0-3 are orthogonal (rook) rays, directions 4-7 are diagonal (bishop) rays. */
+    private static final int[][][] RAYS = new int[64][8][];
+    private static final int[][] KNIGHT_TARGETS = new int[64][];
+    private static final int[][] KING_TARGETS = new int[64][];
+
+    /** Castling rights that survive a move touching the given square. */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    private static final int INITIAL_HISTORY = 256;
+    /** Most pseudo-legal moves a single piece can have: a queen in the middle of an open board. */
+    private static final int MAX_PIECE_MOVES = 27;
+    /** Promotion argument of {@link #findLegalMove(int, int, int)} matching any promotion. */
+    private static final int ANY_PROMOTION = -1;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_TARGETS[sq] = computeTargets(sq, KNIGHT_STEPS);
+            KING_TARGETS[sq] = computeTargets(sq, KING_STEPS);
+            for (int dir = 0; dir < KING_STEPS.length; dir++) {
+                RAYS[sq][dir] = computeRay(sq, KING_STEPS[dir][0], KING_STEPS[dir][1]);
+            }
+            CASTLING_MASK[sq] = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        }
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+    }
+
+    private final byte[] squares = new byte[64];
+    /** Number of pieces on the board of each piece code, kept up to date as moves are made. */
+    private final byte[] pieceCounts = new byte[16];
+    private final int[] kingSquares = new int[2];
+    private int sideToMove = ChessPiece.WHITE;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfMoveClock;
+    private int fullMoveNumber = 1;
+    private long key;
+
+    // Undo stack, one entry per move made
+    private int ply;
+    private int[] historyMoves = new int[INITIAL_HISTORY];
+    private byte[] historyCaptured = new byte[INITIAL_HISTORY];
+    private byte[] historyCastling = new byte[INITIAL_HISTORY];
+    private byte[] historyEnPassant = new byte[INITIAL_HISTORY];
+    private int[] historyHalfMoveClock = new int[INITIAL_HISTORY];
+    private long[] historyKeys = new long[INITIAL_HISTORY];
+
+    private Position() {
+    }
+
+    public static Position startingPosition() {
+        try {
+            return fromFen(STARTING_FEN);
+        } catch (ParseFenException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses a position in Forsyth-Edwards Notation. The half-move clock and full move
+     * number are optional, so the first four fields of an EPD record are also accepted.
+     *
+     * @param fen FEN string, e.g. {@link #STARTING_FEN}.
+     * @return Parsed position.
+     * @throws ParseFenException If the string is not a valid FEN position.
+     */
+    public static Position fromFen(String fen) throws ParseFenException {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new ParseFenException();
+        }
+
+        Position position = new Position();
+        position.kingSquares[0] = NO_SQUARE;
+        position.kingSquares[1] = NO_SQUARE;
+        position.parsePlacement(fields[0]);
+
+        switch (fields[1]) {
+        case "w":
+            position.sideToMove = ChessPiece.WHITE;
+            break;
+        case "b":
+            position.sideToMove = ChessPiece.BLACK;
+            break;
+        default:
+            throw new ParseFenException();
+        }
+
+        position.castlingRights = parseCastling(fields[2]);
+        position.enPassantSquare = fields[3].equals("-") ? NO_SQUARE : parseSquare(fields[3]);
+        if (fields[3].length() == 2 && position.enPassantSquare == NO_SQUARE) {
+            throw new ParseFenException();
+        }
+        position.halfMoveClock = fields.length > 4 ? parseCounter(fields[4], 0) : 0;
+        position.fullMoveNumber = fields.length > 5 ? parseCounter(fields[5], 1) : 1;
+
+        if (position.kingSquares[0] == NO_SQUARE || position.kingSquares[1] == NO_SQUARE) {
+            throw new ParseFenException();
+        }
+        // The side that has just moved cannot have left its king in check
+        if (position.isSquareAttacked(position.kingSquares[1 - position.sideToMove], position.sideToMove)) {
+            throw new ParseFenException();
+        }
+        position.key = position.computeKey();
+        return position;
+    }
+
+    private void parsePlacement(String placement) throws ParseFenException {
+        int rank = 7;
+        int file = 0;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) {
+                    throw new ParseFenException();
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if (piece <= 0 || file > 7) {
+                    throw new ParseFenException();
+                }
+                // A pawn on the first or last rank would have nowhere to move or have promoted
+                if (typeOf(piece) == PAWN && (rank == 0 || rank == 7)) {
+                    throw new ParseFenException();
+                }
+                int sq = rank * 8 + file;
+                squares[sq] = (byte) piece;
+                pieceCounts[piece]++;
+                if (typeOf(piece) == KING) {
+                    kingSquares[colourOf(piece)] = sq;
+                }
+                file++;
+            }
+            if (file > 8) {
+                throw new ParseFenException();
+            }
+        }
+        if (rank != 0 || file != 8) {
+            throw new ParseFenException();
+        }
+    }
+
+    private static int parseCastling(String castling) throws ParseFenException {
+        if (castling.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (int i = 0; i < castling.length(); i++) {
+            switch (castling.charAt(i)) {
+            case 'K':
+                rights |= WHITE_KINGSIDE;
+                break;
+            case 'Q':
+                rights |= WHITE_QUEENSIDE;
+                break;
+            case 'k':
+                rights |= BLACK_KINGSIDE;
+                break;
+            case 'q':
+                rights |= BLACK_QUEENSIDE;
+                break;
+            default:
+                throw new ParseFenException();
+            }
+        }
+        return rights;
+    }
+
+    private static int parseCounter(String field, int defaultValue) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Converts a {@link ChessBoard} into a position, as packed by {@link PackedPosition#fromChessBoard}.
+     *
+     * @param board Board to convert.
+     * @param sideToMove Colour of the side to move.
+     * @return Equivalent position, or null if either side has no king on the board.
+     */
+    public static Position fromChessBoard(ChessBoard board, int sideToMove) {
+        return fromPacked(PackedPosition.fromChessBoard(board, sideToMove));
+    }
+
+    /**
+     * Plays a move that has just been made on a board on the position following that board as well,
+     * which keeps the history repetitions are detected from. If the position does not end up with
+     * the same pieces as the board, e.g. after an under-promotion or a move the board allows but the
+     * full rules do not, it is rebuilt from the board and its history is lost.
+     *
+     * @param position Position before the move, or null if it has no kings.
+     * @param board Board the move has been made on.
+     * @param move Move made.
+     * @param mover Colour of the side that made it.
+     * @return The position after the move, which may be a new one, or null if it has no kings.
+     */
+    public static Position followBoardMove(Position position, ChessBoard board, Move move, int mover) {
+        if (position != null) {
+            int legalMove = position.findLegalMove(fromCoordinate(move.getFrom()), fromCoordinate(move.getTo()));
+            if (legalMove != MoveCode.NONE) {
+                position.makeMove(legalMove);
+                if (position.toPacked().hasSamePieces(PackedPosition.fromChessBoard(board, 1 - mover))) {
+                    return position;
+                }
+            }
+        }
+        return fromChessBoard(board, 1 - mover);
+    }
+
+    /**
+     * Unpacks a position, with an empty undo history.
+     *
+     * @param packed Position to unpack.
+     * @return Equivalent position, or null if either side has no king.
+     */
+    public static Position fromPacked(PackedPosition packed) {
+        Position position = new Position();
+        packed.copySquares(position.squares);
+        position.kingSquares[0] = NO_SQUARE;
+        position.kingSquares[1] = NO_SQUARE;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.squares[sq];
+            if (piece != EMPTY) {
+                position.pieceCounts[piece]++;
+            }
+            if (typeOf(piece) == KING) {
+                position.kingSquares[colourOf(piece)] = sq;
+            }
+        }
+        if (position.kingSquares[0] == NO_SQUARE || position.kingSquares[1] == NO_SQUARE) {
+            return null;
+        }
+        position.sideToMove = packed.getSideToMove();
+        position.castlingRights = packed.getCastlingRights();
+        position.enPassantSquare = packed.getEnPassantSquare();
+        position.halfMoveClock = packed.getHalfMoveClock();
+        position.fullMoveNumber = packed.getFullMoveNumber();
+        position.key = position.computeKey();
+        return position;
+    }
+
+    /**
+     * Packs this position for storage. The undo history is not kept.
+     */
+    public PackedPosition toPacked() {
+        return new PackedPosition(squares, sideToMove, castlingRights, enPassantSquare, halfMoveClock,
+                fullMoveNumber);
+    }
+
+    /**
+     * Returns the ChessBoard coordinate of a square, following the row mapping of {@link #fromChessBoard}.
+     */
+    public static Coordinate toCoordinate(int square) {
+        return new Coordinate(fileOf(square), rankOf(square));
+    }
+
+    public static int fromCoordinate(Coordinate coordinate) {
+        return squareOf(coordinate.getX(), coordinate.getY());
+    }
+
+    /**
+     * Returns a deep copy of this position, including its undo history.
+     *
+     * @return Independent copy that can be used by another thread.
+     */
+    public Position copy() {
+        Position copy = new Position();
+        System.arraycopy(squares, 0, copy.squares, 0, 64);
+        System.arraycopy(pieceCounts, 0, copy.pieceCounts, 0, pieceCounts.length);
+        copy.kingSquares[0] = kingSquares[0];
+        copy.kingSquares[1] = kingSquares[1];
+        copy.sideToMove = sideToMove;
+        copy.castlingRights = castlingRights;
+        copy.enPassantSquare = enPassantSquare;
+        copy.halfMoveClock = halfMoveClock;
+        copy.fullMoveNumber = fullMoveNumber;
+        copy.key = key;
+        copy.ply = ply;
+        copy.historyMoves = historyMoves.clone();
+        copy.historyCaptured = historyCaptured.clone();
+        copy.historyCastling = historyCastling.clone();
+        copy.historyEnPassant = historyEnPassant.clone();
+        copy.historyHalfMoveClock = historyHalfMoveClock.clone();
+        copy.historyKeys = historyKeys.clone();
+        return copy;
+    }
+
+    public String toFen() {
+        return toPacked().toFen();
+    }
+
+    public static int squareOf(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    public static int fileOf(int square) {
+        return square & 7;
+    }
+
+    public static int rankOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int colourOf(int piece) {
+        return (piece & BLACK_FLAG) != 0 ? ChessPiece.BLACK : ChessPiece.WHITE;
+    }
+
+    public static int makePiece(int type, int colour) {
+        return colour == ChessPiece.BLACK ? type | BLACK_FLAG : type;
+    }
+
+    public static String squareName(int square) {
+        return "" + FILES.charAt(fileOf(square)) + (rankOf(square) + 1);
+    }
+
+    /**
+     * Parses a square name such as "e4".
+     *
+     * @param name Algebraic square name.
+     * @return Square index, or {@link #NO_SQUARE} if the name is not a valid square.
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            return NO_SQUARE;
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return NO_SQUARE;
+        }
+        return squareOf(file, rank);
+    }
+
+    public int getPiece(int square) {
+        return squares[square];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * Returns the Zobrist key of this position, which is updated incrementally as moves are made.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Computes the Zobrist key of this position from scratch.
+     *
+     * @return Zobrist key of the position.
+     */
+    public long computeKey() {
+        long result = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (squares[sq] != EMPTY) {
+                result ^= Zobrist.pieceSquare(squares[sq], sq);
+            }
+        }
+        result ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        if (sideToMove == ChessPiece.BLACK) {
+            result ^= Zobrist.sideToMove();
+        }
+        return result;
+    }
+
+    public int getKingSquare(int colour) {
+        return kingSquares[colour];
+    }
+
+    /**
+     * Returns the number of moves made on this position that can still be unmade.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(kingSquares[sideToMove], 1 - sideToMove);
+    }
+
+    /**
+     * Returns true if the given square is attacked by any piece of the given colour.
+     *
+     * @param square Square to test.
+     * @param byColour Colour of the attacking side.
+     * @return Whether the square is attacked.
+     */
+    public boolean isSquareAttacked(int square, int byColour) {
+        int file = fileOf(square);
+        int pawn = makePiece(PAWN, byColour);
+        if (byColour == ChessPiece.WHITE) {
+            if (file > 0 && square >= 9 && squares[square - 9] == pawn) {
+                return true;
+            }
+            if (file < 7 && square >= 7 && squares[square - 7] == pawn) {
+                return true;
+            }
+        } else {
+            if (file > 0 && square <= 56 && squares[square + 7] == pawn) {
+                return true;
+            }
+            if (file < 7 && square <= 54 && squares[square + 9] == pawn) {
+                return true;
+            }
+        }
+
+        int knight = makePiece(KNIGHT, byColour);
+        for (int target : KNIGHT_TARGETS[square]) {
+            if (squares[target] == knight) {
+                return true;
+            }
+        }
+        int king = makePiece(KING, byColour);
+        for (int target : KING_TARGETS[square]) {
+            if (squares[target] == king) {
+                return true;
+            }
+        }
+
+        int queen = makePiece(QUEEN, byColour);
+        int rook = makePiece(ROOK, byColour);
+        int bishop = makePiece(BISHOP, byColour);
+        for (int dir = 0; dir < 8; dir++) {
+            int slider = dir < 4 ? rook : bishop;
+            for (int target : RAYS[square][dir]) {
+                int piece = squares[target];
+                if (piece == EMPTY) {
+                    continue;
+                }
+                if (piece == slider || piece == queen) {
+                    return true;
+                }
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates all legal moves of the side to move.
+     *
+     * @param moves Buffer of at least {@link #MAX_MOVES} entries to write the moves into.
+     * @return Number of moves written.
+     */
+    public int generateLegalMoves(int[] moves) {
+        int count = generatePseudoLegalMoves(moves);
+        int legalCount = 0;
+        for (int i = 0; i < count; i++) {
+            makeMove(moves[i]);
+            boolean isLegal = wasLastMoveLegal();
+            unmakeMove();
+            if (isLegal) {
+                moves[legalCount++] = moves[i];
+            }
+        }
+        return legalCount;
+    }
+
+    /**
+     * Returns true if the move just made did not leave the mover's king in check.
+     */
+    public boolean wasLastMoveLegal() {
+        int mover = 1 - sideToMove;
+        return !isSquareAttacked(kingSquares[mover], sideToMove);
+    }
+
+    /**
+     * Generates moves that obey piece movement rules but may leave the own king in check.
+     * Castling moves are only generated if the king does not pass through an attacked square.
+     *
+     * @param moves Buffer of at least {@link #MAX_MOVES} entries to write the moves into.
+     * @return Number of moves written.
+     */
+    public int generatePseudoLegalMoves(int[] moves) {
+        int count = 0;
+        int us = sideToMove;
+        for (int from = 0; from < 64; from++) {
+            int piece = squares[from];
+            if (piece != EMPTY && colourOf(piece) == us) {
+                count = generatePieceMoves(from, moves, count);
+            }
+        }
+        return count;
+    }
+
+    private int generatePieceMoves(int from, int[] moves, int count) {
+        switch (typeOf(squares[from])) {
+        case PAWN:
+            return generatePawnMoves(from, moves, count);
+        case KNIGHT:
+            return generateStepMoves(from, KNIGHT_TARGETS[from], moves, count);
+        case KING:
+            count = generateStepMoves(from, KING_TARGETS[from], moves, count);
+            return generateCastlingMoves(from, moves, count);
+        case BISHOP:
+            return generateSlidingMoves(from, 4, 8, moves, count);
+        case ROOK:
+            return generateSlidingMoves(from, 0, 4, moves, count);
+        case QUEEN:
+            return generateSlidingMoves(from, 0, 8, moves, count);
+        default:
+            return count;
+        }
+    }
+
+    private int generatePawnMoves(int from, int[] moves, int count) {
+        boolean isWhite = sideToMove == ChessPiece.WHITE;
+        int forward = isWhite ? 8 : -8;
+        int startRank = isWhite ? 1 : 6;
+        int lastRank = isWhite ? 7 : 0;
+        int file = fileOf(from);
+
+        int to = from + forward;
+        if (squares[to] == EMPTY) {
+            count = addPawnMove(from, to, 0, lastRank, moves, count);
+            int doubleTo = to + forward;
+            if (rankOf(from) == startRank && squares[doubleTo] == EMPTY) {
+                moves[count++] = MoveCode.of(from, doubleTo, 0, MoveCode.FLAG_DOUBLE_PUSH);
+            }
+        }
+
+        for (int side = -1; side <= 1; side += 2) {
+            if ((side == -1 && file == 0) || (side == 1 && file == 7)) {
+                continue;
+            }
+            int target = to + side;
+            int targetPiece = squares[target];
+            if (targetPiece != EMPTY && colourOf(targetPiece) != sideToMove) {
+                count = addPawnMove(from, target, MoveCode.FLAG_CAPTURE, lastRank, moves, count);
+            } else if (target == enPassantSquare) {
+                moves[count++] = MoveCode.of(from, target, 0, MoveCode.FLAG_EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMove(int from, int to, int flags, int lastRank, int[] moves, int count) {
+        if (rankOf(to) != lastRank) {
+            moves[count++] = MoveCode.of(from, to, 0, flags);
+            return count;
+        }
+        for (int promotion = QUEEN; promotion >= KNIGHT; promotion--) {
+            moves[count++] = MoveCode.of(from, to, promotion, flags);
+        }
+        return count;
+    }
+
+    private int generateStepMoves(int from, int[] targets, int[] moves, int count) {
+        for (int to : targets) {
+            int targetPiece = squares[to];
+            if (targetPiece == EMPTY) {
+                moves[count++] = MoveCode.of(from, to, 0, 0);
+            } else if (colourOf(targetPiece) != sideToMove) {
+                moves[count++] = MoveCode.of(from, to, 0, MoveCode.FLAG_CAPTURE);
+            }
+        }
+        return count;
+    }
+
+    private int generateSlidingMoves(int from, int firstDir, int lastDir, int[] moves, int count) {
+        for (int dir = firstDir; dir < lastDir; dir++) {
+            for (int to : RAYS[from][dir]) {
+                int targetPiece = squares[to];
+                if (targetPiece == EMPTY) {
+                    moves[count++] = MoveCode.of(from, to, 0, 0);
+                    continue;
+                }
+                if (colourOf(targetPiece) != sideToMove) {
+                    moves[count++] = MoveCode.of(from, to, 0, MoveCode.FLAG_CAPTURE);
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    private int generateCastlingMoves(int from, int[] moves, int count) {
+        int them = 1 - sideToMove;
+        int kingside = sideToMove == ChessPiece.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = sideToMove == ChessPiece.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        int homeSquare = sideToMove == ChessPiece.WHITE ? 4 : 60;
+        if ((castlingRights & (kingside | queenside)) == 0 || from != homeSquare || isSquareAttacked(from, them)) {
+            return count;
+        }
+
+        int rook = makePiece(ROOK, sideToMove);
+        if ((castlingRights & kingside) != 0 && squares[from + 3] == rook
+                && squares[from + 1] == EMPTY && squares[from + 2] == EMPTY
+                && !isSquareAttacked(from + 1, them) && !isSquareAttacked(from + 2, them)) {
+            moves[count++] = MoveCode.of(from, from + 2, 0, MoveCode.FLAG_CASTLE);
+        }
+        if ((castlingRights & queenside) != 0 && squares[from - 4] == rook
+                && squares[from - 1] == EMPTY && squares[from - 2] == EMPTY
+                && squares[from - 3] == EMPTY
+                && !isSquareAttacked(from - 1, them) && !isSquareAttacked(from - 2, them)) {
+            moves[count++] = MoveCode.of(from, from - 2, 0, MoveCode.FLAG_CASTLE);
+        }
+        return count;
+    }
+
+    /**
+     * Makes a move generated by this position. The move can be taken back with {@link #unmakeMove()}.
+     *
+     * @param move Packed move, which must be at least pseudo-legal in this position.
+     */
+    public void makeMove(int move) {
+        ensureHistoryCapacity();
+        int from = MoveCode.from(move);
+        int to = MoveCode.to(move);
+        int flags = MoveCode.flags(move);
+        int piece = squares[from];
+        int captured = squares[to];
+        int us = sideToMove;
+
+        historyMoves[ply] = move;
+        historyCastling[ply] = (byte) castlingRights;
+        historyEnPassant[ply] = (byte) enPassantSquare;
+        historyHalfMoveClock[ply] = halfMoveClock;
+        historyKeys[ply] = key;
+
+        squares[from] = EMPTY;
+        squares[to] = (byte) piece;
+        key ^= Zobrist.pieceSquare(piece, from) ^ Zobrist.pieceSquare(piece, to);
+        if (captured != EMPTY) {
+            key ^= Zobrist.pieceSquare(captured, to);
+        }
+
+        if ((flags & MoveCode.FLAG_EN_PASSANT) != 0) {
+            int capturedSquare = us == ChessPiece.WHITE ? to - 8 : to + 8;
+            captured = squares[capturedSquare];
+            squares[capturedSquare] = EMPTY;
+            key ^= Zobrist.pieceSquare(captured, capturedSquare);
+        } else if ((flags & MoveCode.FLAG_CASTLE) != 0) {
+            boolean isKingside = to > from;
+            int rookFrom = isKingside ? from + 3 : from - 4;
+            int rookTo = isKingside ? from + 1 : from - 1;
+            int rook = squares[rookFrom];
+            squares[rookTo] = (byte) rook;
+            squares[rookFrom] = EMPTY;
+            key ^= Zobrist.pieceSquare(rook, rookFrom) ^ Zobrist.pieceSquare(rook, rookTo);
+        }
+        historyCaptured[ply] = (byte) captured;
+        if (captured != EMPTY) {
+            pieceCounts[captured]--;
+        }
+
+        int promotion = MoveCode.promotion(move);
+        if (promotion != 0) {
+            int promotedPiece = makePiece(promotion, us);
+            squares[to] = (byte) promotedPiece;
+            key ^= Zobrist.pieceSquare(piece, to) ^ Zobrist.pieceSquare(promotedPiece, to);
+            pieceCounts[piece]--;
+            pieceCounts[promotedPiece]++;
+        }
+        if (typeOf(piece) == KING) {
+            kingSquares[us] = to;
+        }
+
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = (flags & MoveCode.FLAG_DOUBLE_PUSH) != 0 ? (from + to) / 2 : NO_SQUARE;
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare) ^ Zobrist.sideToMove();
+        if (typeOf(piece) == PAWN || captured != EMPTY) {
+            halfMoveClock = 0;
+        } else {
+            halfMoveClock++;
+        }
+        if (us == ChessPiece.BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = 1 - us;
+        ply++;
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}.
+     */
+    public void unmakeMove() {
+        ply--;
+        int move = historyMoves[ply];
+        int from = MoveCode.from(move);
+        int to = MoveCode.to(move);
+        int flags = MoveCode.flags(move);
+        int captured = historyCaptured[ply];
+        int us = 1 - sideToMove;
+
+        int piece = squares[to];
+        if (MoveCode.promotion(move) != 0) {
+            pieceCounts[piece]--;
+            piece = makePiece(PAWN, us);
+            pieceCounts[piece]++;
+        }
+        squares[from] = (byte) piece;
+        if (captured != EMPTY) {
+            pieceCounts[captured]++;
+        }
+
+        if ((flags & MoveCode.FLAG_EN_PASSANT) != 0) {
+            squares[to] = EMPTY;
+            squares[us == ChessPiece.WHITE ? to - 8 : to + 8] = (byte) captured;
+        } else {
+            squares[to] = (byte) captured;
+        }
+        if ((flags & MoveCode.FLAG_CASTLE) != 0) {
+            boolean isKingside = to > from;
+            int rookFrom = isKingside ? from + 3 : from - 4;
+            int rookTo = isKingside ? from + 1 : from - 1;
+            squares[rookFrom] = squares[rookTo];
+            squares[rookTo] = EMPTY;
+        }
+        if (typeOf(piece) == KING) {
+            kingSquares[us] = from;
+        }
+
+        castlingRights = historyCastling[ply];
+        enPassantSquare = historyEnPassant[ply];
+        halfMoveClock = historyHalfMoveClock[ply];
+        key = historyKeys[ply];
+        if (us == ChessPiece.BLACK) {
+            fullMoveNumber--;
+        }
+        sideToMove = us;
+    }
+
+    /**
+     * Passes the turn to the opponent without moving, as used by null move pruning in the search.
+     * The half-move clock is reset so that repetition checks do not look past the null move.
+     * Must be taken back with {@link #unmakeNullMove()}.
+     */
+    public void makeNullMove() {
+        ensureHistoryCapacity();
+        historyMoves[ply] = MoveCode.NONE;
+        historyCaptured[ply] = EMPTY;
+        historyCastling[ply] = (byte) castlingRights;
+        historyEnPassant[ply] = (byte) enPassantSquare;
+        historyHalfMoveClock[ply] = halfMoveClock;
+        historyKeys[ply] = key;
+
+        key ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.sideToMove();
+        enPassantSquare = NO_SQUARE;
+        halfMoveClock = 0;
+        sideToMove = 1 - sideToMove;
+        ply++;
+    }
+
+    public void unmakeNullMove() {
+        ply--;
+        enPassantSquare = historyEnPassant[ply];
+        halfMoveClock = historyHalfMoveClock[ply];
+        key = historyKeys[ply];
+        sideToMove = 1 - sideToMove;
+    }
+
+    /**
+     * Returns true if the given side has any piece other than pawns and the king.
+     */
+    public boolean hasNonPawnMaterial(int colour) {
+        return pieceCounts[makePiece(KNIGHT, colour)] + pieceCounts[makePiece(BISHOP, colour)]
+                + pieceCounts[makePiece(ROOK, colour)] + pieceCounts[makePiece(QUEEN, colour)] > 0;
+    }
+
+    public int getPieceCount(int piece) {
+        return pieceCounts[piece];
+    }
+
+    /**
+     * Returns true if neither side can possibly mate: bare kings, or a king and one minor piece.
+     */
+    public boolean hasInsufficientMaterial() {
+        int white = ChessPiece.WHITE;
+        int black = ChessPiece.BLACK;
+        int majorPiecesAndPawns = pieceCounts[makePiece(PAWN, white)] + pieceCounts[makePiece(PAWN, black)]
+                + pieceCounts[makePiece(ROOK, white)] + pieceCounts[makePiece(ROOK, black)]
+                + pieceCounts[makePiece(QUEEN, white)] + pieceCounts[makePiece(QUEEN, black)];
+        int minorPieces = pieceCounts[makePiece(KNIGHT, white)] + pieceCounts[makePiece(KNIGHT, black)]
+                + pieceCounts[makePiece(BISHOP, white)] + pieceCounts[makePiece(BISHOP, black)];
+        return majorPiecesAndPawns == 0 && minorPieces <= 1;
+    }
+
+    /**
+     * Returns true if the current position has occurred at least the given number of times before,
+     * with the same side to move. Only positions since the last capture or pawn move are compared,
+     * since none before it can recur, and positions before a null move are not looked at.
+     *
+     * @param times Earlier occurrences needed: 2 for a threefold repetition, 1 inside the search.
+     */
+    public boolean isRepeated(int times) {
+        int oldestPly = ply - Math.min(halfMoveClock, ply);
+        int count = 0;
+        // A position cannot recur after a single move by each side
+        for (int earlier = ply - 4; earlier >= oldestPly; earlier -= 2) {
+            if (historyKeys[earlier] == key && ++count >= times) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isFiftyMoveRuleDraw() {
+        return halfMoveClock >= FIFTY_MOVE_RULE_PLIES;
+    }
+
+    /**
+     * Returns true if the side to move has at least one legal move. Moves are generated and tried
+     * one piece at a time, starting with the king, so the search stops at the first legal one
+     * instead of generating the whole move list.
+     */
+    public boolean hasAnyLegalMove() {
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int kingSquare = kingSquares[sideToMove];
+        if (hasLegalMoveFrom(kingSquare, moves)) {
+            return true;
+        }
+        for (int from = 0; from < 64; from++) {
+            int piece = squares[from];
+            if (piece != EMPTY && colourOf(piece) == sideToMove && from != kingSquare
+                    && hasLegalMoveFrom(from, moves)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasLegalMoveFrom(int from, int[] moves) {
+        int count = generatePieceMoves(from, moves, 0);
+        for (int i = 0; i < count; i++) {
+            makeMove(moves[i]);
+            boolean isLegal = wasLastMoveLegal();
+            unmakeMove();
+            if (isLegal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the game has ended in this position, and how. Checkmate and stalemate take
+     * precedence over the draw rules, so a mate delivered on the hundredth quiet ply still wins.
+     */
+    public GameState getGameState() {
+        if (!hasAnyLegalMove()) {
+            return isInCheck() ? GameState.CHECKMATE : GameState.STALEMATE;
+        }
+        if (isRepeated(2)) {
+            return GameState.REPETITION;
+        }
+        if (isFiftyMoveRuleDraw()) {
+            return GameState.FIFTY_MOVE_RULE;
+        }
+        if (hasInsufficientMaterial()) {
+            return GameState.INSUFFICIENT_MATERIAL;
+        }
+        return GameState.ONGOING;
+    }
+
+    private void ensureHistoryCapacity() {
+        if (ply < historyMoves.length) {
+            return;
+        }
+        int newLength = historyMoves.length * 2;
+        historyMoves = Arrays.copyOf(historyMoves, newLength);
+        historyCaptured = Arrays.copyOf(historyCaptured, newLength);
+        historyCastling = Arrays.copyOf(historyCastling, newLength);
+        historyEnPassant = Arrays.copyOf(historyEnPassant, newLength);
+        historyHalfMoveClock = Arrays.copyOf(historyHalfMoveClock, newLength);
+        historyKeys = Arrays.copyOf(historyKeys, newLength);
+    }
+
+    /**
+     * Returns the legal move that goes from one square to another, preferring a queen
+     * promotion if several promotions match.
+     *
+     * @param from Origin square.
+     * @param to Destination square.
+     * @return Matching legal move, or {@link MoveCode#NONE} if there is none.
+     */
+    public int findLegalMove(int from, int to) {
+        return findLegalMove(from, to, ANY_PROMOTION);
+    }
+
+    /**
+     * Returns the legal move that goes from one square to another and promotes to the given piece.
+     *
+     * @param from Origin square.
+     * @param to Destination square.
+     * @param promotion Piece type promoted to, or 0 for moves that do not promote.
+     * @return Matching legal move, or {@link MoveCode#NONE} if there is none.
+     */
+    public int findLegalMove(int from, int to, int promotion) {
+        // Only the moves of the piece on the origin square are generated, and only the match is
+        // checked for legality
+        int piece = squares[from];
+        if (piece == EMPTY || colourOf(piece) != sideToMove) {
+            return MoveCode.NONE;
+        }
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int count = generatePieceMoves(from, moves, 0);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (MoveCode.to(move) == to && (promotion == ANY_PROMOTION || MoveCode.promotion(move) == promotion)) {
+                makeMove(move);
+                boolean isLegal = wasLastMoveLegal();
+                unmakeMove();
+                return isLegal ? move : MoveCode.NONE;
+            }
+        }
+        return MoveCode.NONE;
+    }
+
+    /**
+     * Parses a move in long algebraic (UCI) notation, e.g. "e2e4" or "e7e8q".
+     *
+     * @param text Move text.
+     * @return Matching legal move, or {@link MoveCode#NONE} if the text is malformed or the move illegal.
+     */
+    public int findUciMove(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            return MoveCode.NONE;
+        }
+        int from = parseSquare(text.substring(0, 2));
+        int to = parseSquare(text.substring(2, 4));
+        int promotion = text.length() == 5 ? CHESS_PIECE_LETTERS.indexOf(text.charAt(4)) : 0;
+        if (from == NO_SQUARE || to == NO_SQUARE || promotion < 0 || promotion == PAWN || promotion == KING) {
+            return MoveCode.NONE;
+        }
+        return findLegalMove(from, to, promotion);
+    }
+
+    private static int[] computeTargets(int square, int[][] steps) {
+        int[] buffer = new int[steps.length];
+        int count = 0;
+        for (int[] step : steps) {
+            int file = fileOf(square) + step[0];
+            int rank = rankOf(square) + step[1];
+            if (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                buffer[count++] = squareOf(file, rank);
+            }
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private static int[] computeRay(int square, int stepFile, int stepRank) {
+        int[] buffer = new int[7];
+        int count = 0;
+        int file = fileOf(square) + stepFile;
+        int rank = rankOf(square) + stepRank;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            buffer[count++] = squareOf(file, rank);
+            file += stepFile;
+            rank += stepRank;
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+}
@@ -0,0 +1,207 @@
+package chessmaster.game;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves explored from one starting position, with every side line kept, and the position at one
+ * node of them, the current node.
+ *
+ * <p>Nodes are indices into parallel int arrays holding each node's move and parent, with links to
+ * its first child and next sibling for walking the tree, so a node costs a few ints rather than a
+ * position. The main line continues through the first child. Positions are not stored but rebuilt
+ * when the current node changes: the moves back to the nearest common ancestor are unmade and
+ * those down to the new node made. If the new node is closer to a snapshot, a packed position
+ * kept every {@link #SNAPSHOT_INTERVAL} plies, the position is rebuilt from there instead, so no
+ * jump makes more moves than the interval. A position rebuilt from a snapshot has no history
+ * before it, so repetitions across the snapshot are not seen.
+ */
+public class VariationTree {
+
+    /** The starting position, which has no move. */
+    public static final int ROOT = 0;
+    public static final int NO_NODE = -1;
+    /** Plies between snapshots along every line. */
+    public static final int SNAPSHOT_INTERVAL = 16;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Position start;
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private int[] plies = new int[INITIAL_CAPACITY];
+    private int size = 1;
+    /** Positions of the nodes whose ply is a multiple of the interval, once visited. */
+    private final Map<Integer, PackedPosition> snapshots = new HashMap<>();
+
+    private Position position;
+    private int current = ROOT;
+    /** Node the position was built from, which it cannot unmake past. */
+    private int positionBase = ROOT;
+
+    /**
+     * @param start Starting position. It is copied, so the caller's position is not modified.
+     */
+    public VariationTree(Position start) {
+        this.start = start.copy();
+        this.position = start.copy();
+        moves[ROOT] = MoveCode.NONE;
+        parents[ROOT] = NO_NODE;
+        firstChildren[ROOT] = NO_NODE;
+        nextSiblings[ROOT] = NO_NODE;
+    }
+
+    /**
+     * Returns the position at the current node. It changes as the current node changes, and must
+     * not be modified by the caller.
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    public int getCurrent() {
+        return current;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Returns the number of moves from the starting position to a node.
+     */
+    public int getPly(int node) {
+        return plies[node];
+    }
+
+    /**
+     * Plays a move from the current node, following it if it has been explored already and adding
+     * it as the last side line if not.
+     *
+     * @param move Legal move in the current position.
+     * @return Node of the move, now the current node.
+     */
+    public int play(int move) {
+        int lastChild = NO_NODE;
+        for (int child = firstChildren[current]; child != NO_NODE; child = nextSiblings[child]) {
+            if (moves[child] == move) {
+                goTo(child);
+                return child;
+            }
+            lastChild = child;
+        }
+
+        int node = addNode(current, move);
+        if (lastChild == NO_NODE) {
+            firstChildren[current] = node;
+        } else {
+            nextSiblings[lastChild] = node;
+        }
+        makeMove(node);
+        current = node;
+        return node;
+    }
+
+    /**
+     * Makes a node the current node, rebuilding its position by the fewest moves.
+     */
+    public void goTo(int node) {
+        if (node < 0 || node >= size) {
+            throw new IllegalArgumentException("No node " + node);
+        }
+        int ancestor = findCommonAncestor(current, node);
+        int snapshotNode = findSnapshotAncestor(node);
+        int movesThroughAncestor = plies[current] - plies[ancestor] + plies[node] - plies[ancestor];
+        boolean canUnmake = plies[ancestor] >= plies[positionBase];
+        if (!canUnmake || plies[node] - plies[snapshotNode] < movesThroughAncestor) {
+            position = snapshotNode == ROOT ? start.copy() : Position.fromPacked(snapshots.get(snapshotNode));
+            positionBase = snapshotNode;
+            ancestor = snapshotNode;
+        } else {
+            for (int ply = plies[current]; ply > plies[ancestor]; ply--) {
+                position.unmakeMove();
+            }
+        }
+
+        int[] path = new int[plies[node] - plies[ancestor]];
+        int length = 0;
+        for (int next = node; next != ancestor; next = parents[next]) {
+            path[length++] = next;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            makeMove(path[i]);
+        }
+        current = node;
+    }
+
+    private int addNode(int parent, int move) {
+        if (size == moves.length) {
+            int capacity = size * 2;
+            moves = Arrays.copyOf(moves, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            plies = Arrays.copyOf(plies, capacity);
+        }
+        int node = size++;
+        moves[node] = move;
+        parents[node] = parent;
+        firstChildren[node] = NO_NODE;
+        nextSiblings[node] = NO_NODE;
+        plies[node] = plies[parent] + 1;
+        return node;
+    }
+
+    /**
+     * Plays the move of a child of the position's node, taking a snapshot if none is kept there yet.
+     */
+    private void makeMove(int node) {
+        position.makeMove(moves[node]);
+        if (plies[node] % SNAPSHOT_INTERVAL == 0 && !snapshots.containsKey(node)) {
+            snapshots.put(node, position.toPacked());
+        }
+    }
+
+    private int findCommonAncestor(int first, int second) {
+        while (plies[first] > plies[second]) {
+            first = parents[first];
+        }
+        while (plies[second] > plies[first]) {
+            second = parents[second];
+        }
+        while (first != second) {
+            first = parents[first];
+            second = parents[second];
+        }
+        return first;
+    }
+
+    /**
+     * Returns the nearest node at or above the given one with a snapshot, or the root.
+     */
+    private int findSnapshotAncestor(int node) {
+        while (node != ROOT && !snapshots.containsKey(node)) {
+            node = parents[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,67 @@
+package chessmaster.game;
+
+/**
+ * Zobrist hashing keys for {@link Position}. The keys are generated from a fixed seed, so a
+ * position hashes to the same value in every run and keys can be persisted to disk.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[][] PIECE_SQUARE = new long[16][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long SIDE_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int piece = 0; piece < PIECE_SQUARE.length; piece++) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECE_SQUARE[piece][square] = mix(state);
+            }
+        }
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING[rights] = mix(state);
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * SplitMix64 finaliser. Also used to spread other 64 bit values over the whole key space.
+     *
+     * @param value Value to mix.
+     * @return Well distributed 64 bit hash of the value.
+     */
+    public static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long pieceSquare(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int square) {
+        return square == Position.NO_SQUARE ? 0 : EN_PASSANT_FILE[Position.fileOf(square)];
+    }
+
+    public static long sideToMove() {
+        return SIDE_TO_MOVE;
+    }
+}
@@ -0,0 +1,33 @@
+package chessmaster.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a board or game snapshot written to or read from disk.
+ */
+@Name("chessmaster.BoardStorage")
+@Label("Board Storage")
+@Category({"ChessMaster", "Storage"})
+@Description("A board was saved to or loaded from a file")
+@Threshold("0 ms")
+public class BoardStorageEvent extends Event {
+
+    public static final String SAVE = "save";
+    public static final String LOAD = "load";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
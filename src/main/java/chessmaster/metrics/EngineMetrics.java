@@ -0,0 +1,260 @@
+package chessmaster.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the engine, shared by the whole process and published as
+ * the MBean {@value #OBJECT_NAME}:
+ *
+ * <ul>
+ * <li>every search, on every thread, adds its nodes, transposition table probes and hits, depth
+ * and time;</li>
+ * <li>the CPU player records how long it thought about each move;</li>
+ * <li>the console game and the server record the time from a move being entered to the reply
+ * being shown or sent.</li>
+ * </ul>
+ *
+ * <p>Counters are {@link LongAdder}s, which spread concurrent updates over several cells, so
+ * search threads finishing together do not contend. A search counts its nodes and probes in its
+ * own fields and adds them once it is done, so nothing is recorded per node.
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+
+    public static final String OBJECT_NAME = "chessmaster:type=EngineMetrics";
+    public static final String DEFAULT_DUMP_FILE = "data/metrics.txt";
+
+    private static final EngineMetrics INSTANCE = new EngineMetrics();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LatencyHistogram thinkTimes = new LatencyHistogram();
+    private final LatencyHistogram inputLatencies = new LatencyHistogram();
+
+    private EngineMetrics() {
+    }
+
+    public static EngineMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, unless they already are.
+     *
+     * @return false if they could not be registered.
+     */
+    public static boolean register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the metrics to a file when the JVM shuts down, if any search has been run by then.
+     */
+    public void dumpOnShutdown(Path path) {
+        Thread hook = new Thread(() -> {
+            if (searches.sum() == 0) {
+                return;
+            }
+            try {
+                dump(path.toString());
+            } catch (IOException e) {
+                // Nothing can be reported this late
+            }
+        }, "metrics-dump");
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /**
+     * Adds the statistics of a finished search.
+     *
+     * @param searchNodes Nodes searched.
+     * @param depth Depth of the last completed iteration.
+     * @param probes Transposition table probes.
+     * @param hits Probes that found an entry.
+     * @param elapsedNanos Time the search took.
+     */
+    public void recordSearch(long searchNodes, int depth, long probes, long hits, long elapsedNanos) {
+        searches.increment();
+        nodes.add(searchNodes);
+        depths.add(depth);
+        tableProbes.add(probes);
+        tableHits.add(hits);
+        searchNanos.add(elapsedNanos);
+    }
+
+    public void recordThinkTime(long nanos) {
+        thinkTimes.record(nanos);
+    }
+
+    public void recordInputLatency(long nanos) {
+        inputLatencies.record(nanos);
+    }
+
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * Returns the nodes searched per second by a single search thread.
+     */
+    @Override
+    public double getNodesPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : nodes.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getTableHitRate() {
+        long probes = tableProbes.sum();
+        return probes == 0 ? 0 : (double) tableHits.sum() / probes;
+    }
+
+    @Override
+    public double getAverageDepth() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double) depths.sum() / count;
+    }
+
+    @Override
+    public long getMoves() {
+        return thinkTimes.getCount();
+    }
+
+    @Override
+    public double getThinkTimeMeanMillis() {
+        return thinkTimes.getMeanMillis();
+    }
+
+    @Override
+    public double getThinkTimeP50Millis() {
+        return thinkTimes.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getThinkTimeP90Millis() {
+        return thinkTimes.getPercentileMillis(90);
+    }
+
+    @Override
+    public double getThinkTimeP99Millis() {
+        return thinkTimes.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getThinkTimeMaxMillis() {
+        return thinkTimes.getMaxMillis();
+    }
+
+    @Override
+    public long getInputs() {
+        return inputLatencies.getCount();
+    }
+
+    @Override
+    public double getInputLatencyMeanMillis() {
+        return inputLatencies.getMeanMillis();
+    }
+
+    @Override
+    public double getInputLatencyP50Millis() {
+        return inputLatencies.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getInputLatencyP90Millis() {
+        return inputLatencies.getPercentileMillis(90);
+    }
+
+    @Override
+    public double getInputLatencyP99Millis() {
+        return inputLatencies.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getInputLatencyMaxMillis() {
+        return inputLatencies.getMaxMillis();
+    }
+
+    @Override
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        searchNanos.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        depths.reset();
+        thinkTimes.reset();
+        inputLatencies.reset();
+    }
+
+    /**
+     * Writes the metrics to a file, one "name value" pair per line, creating its directory if needed.
+     */
+    @Override
+    public void dump(String path) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, format().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the metrics as text, one "name value" pair per line.
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        appendLine(text, "searches", getSearches());
+        appendLine(text, "nodes", getNodes());
+        appendLine(text, "nodes_per_second", getNodesPerSecond());
+        appendLine(text, "table_hit_rate", getTableHitRate());
+        appendLine(text, "average_depth", getAverageDepth());
+        appendHistogram(text, "think_time", thinkTimes);
+        appendHistogram(text, "input_latency", inputLatencies);
+        return text.toString();
+    }
+
+    private static void appendHistogram(StringBuilder text, String name, LatencyHistogram histogram) {
+        appendLine(text, name + "_count", histogram.getCount());
+        appendLine(text, name + "_mean_ms", histogram.getMeanMillis());
+        appendLine(text, name + "_p50_ms", histogram.getPercentileMillis(50));
+        appendLine(text, name + "_p90_ms", histogram.getPercentileMillis(90));
+        appendLine(text, name + "_p99_ms", histogram.getPercentileMillis(99));
+        appendLine(text, name + "_max_ms", histogram.getMaxMillis());
+    }
+
+    private static void appendLine(StringBuilder text, String name, long value) {
+        text.append(name).append(' ').append(value).append(System.lineSeparator());
+    }
+
+    private static void appendLine(StringBuilder text, String name, double value) {
+        text.append(name).append(' ').append(String.format(Locale.ROOT, "%.3f", value))
+                .append(System.lineSeparator());
+    }
+}
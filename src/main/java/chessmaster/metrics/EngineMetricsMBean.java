@@ -0,0 +1,48 @@
+package chessmaster.metrics;
+
+import java.io.IOException;
+
+/**
+ * Management interface of {@link EngineMetrics}, as seen in JConsole or any other JMX client.
+ * Times are in milliseconds.
+ */
+public interface EngineMetricsMBean {
+
+    long getSearches();
+
+    long getNodes();
+
+    double getNodesPerSecond();
+
+    double getTableHitRate();
+
+    double getAverageDepth();
+
+    long getMoves();
+
+    double getThinkTimeMeanMillis();
+
+    double getThinkTimeP50Millis();
+
+    double getThinkTimeP90Millis();
+
+    double getThinkTimeP99Millis();
+
+    double getThinkTimeMaxMillis();
+
+    long getInputs();
+
+    double getInputLatencyMeanMillis();
+
+    double getInputLatencyP50Millis();
+
+    double getInputLatencyP90Millis();
+
+    double getInputLatencyP99Millis();
+
+    double getInputLatencyMaxMillis();
+
+    void reset();
+
+    void dump(String path) throws IOException;
+}
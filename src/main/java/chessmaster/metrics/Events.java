@@ -0,0 +1,29 @@
+package chessmaster.metrics;
+
+import java.util.function.Consumer;
+
+import jdk.jfr.Event;
+
+/**
+ * Helpers shared by the code that reports Flight Recorder events.
+ */
+public final class Events {
+
+    private Events() {
+    }
+
+    /**
+     * Ends a timed event and commits it, if Flight Recorder is recording it. The fields are only
+     * filled in when the event is committed, so working them out costs nothing otherwise.
+     *
+     * @param event Event begun when the operation started.
+     * @param fields Fills in the event's fields.
+     */
+    public static <T extends Event> void commit(T event, Consumer<T> fields) {
+        event.end();
+        if (event.shouldCommit()) {
+            fields.accept(event);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package chessmaster.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a transposition table being allocated at a new size or cleared. Both
+ * touch every entry, so a large table shows up as a pause.
+ */
+@Name("chessmaster.HashTable")
+@Label("Hash Table Resize or Clear")
+@Category({"ChessMaster", "Engine"})
+@Description("A transposition table was resized or cleared")
+@Threshold("0 ms")
+public class HashTableEvent extends Event {
+
+    public static final String RESIZE = "resize";
+    public static final String CLEAR = "clear";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
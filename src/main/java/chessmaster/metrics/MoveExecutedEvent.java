@@ -0,0 +1,31 @@
+package chessmaster.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a move played on a {@code ChessBoard}, including the check that the
+ * move is legal.
+ */
+@Name("chessmaster.MoveExecuted")
+@Label("Move Executed")
+@Category({"ChessMaster", "Game"})
+@Description("A move was validated and played on the board")
+@StackTrace(false)
+@Threshold("1 ms")
+public class MoveExecutedEvent extends Event {
+
+    @Label("Piece")
+    public String piece;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+}
@@ -0,0 +1,40 @@
+package chessmaster.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one iteration of an iterative deepening search, on one search thread.
+ * Its duration is the time the iteration took.
+ */
+@Name("chessmaster.SearchIteration")
+@Label("Search Iteration")
+@Category({"ChessMaster", "Engine"})
+@Description("An iteration of the search completed or was aborted")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Nodes")
+    @Description("Nodes searched since the search began")
+    public long nodes;
+
+    @Label("Score")
+    @Description("Score of the best line in centipawns, from the side to move's point of view")
+    public int score;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Aborted")
+    @Description("Whether the iteration was cut short by a limit or a stop request")
+    public boolean isAborted;
+}
@@ -0,0 +1,97 @@
+package chessmaster.parser;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.game.EpdRecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses EPD lines: the first four fields of a FEN, then operations of an opcode and its
+ * operands, each ended by a semicolon, e.g. {@code bm Nf3; id "test 1";}. Plain FEN lines, with
+ * their two move counters, are accepted too.
+ */
+public class EpdParser {
+
+    /**
+     * Parses one line.
+     *
+     * @param line EPD or FEN line, without its line terminator.
+     * @return The parsed record. Its position is not checked beyond its field count.
+     * @throws ParseFenException If the line has fewer than four fields or an unterminated string.
+     */
+    public static EpdRecord parseRecord(String line) throws ParseFenException {
+        String[] fields = Parser.WHITESPACE.split(line.trim(), 5);
+        if (fields.length < 4) {
+            throw new ParseFenException();
+        }
+        StringBuilder fen = new StringBuilder();
+        fen.append(fields[0]).append(' ').append(fields[1]).append(' ').append(fields[2]).append(' ').append(fields[3]);
+        String rest = fields.length > 4 ? fields[4] : "";
+
+        // A FEN's move counters
+        String[] counters = Parser.WHITESPACE.split(rest, 3);
+        if (counters.length >= 2 && isNumber(counters[0]) && isNumber(counters[1])) {
+            fen.append(' ').append(counters[0]).append(' ').append(counters[1]);
+            rest = counters.length > 2 ? counters[2] : "";
+        }
+        return new EpdRecord(fen.toString(), parseOperations(rest));
+    }
+
+    private static Map<String, String> parseOperations(String text) throws ParseFenException {
+        Map<String, String> operations = new LinkedHashMap<>();
+        int index = 0;
+        while (index < text.length()) {
+            int end = findOperationEnd(text, index);
+            String operation = text.substring(index, end).trim();
+            index = end + 1;
+            if (operation.isEmpty()) {
+                continue;
+            }
+            String[] opcodeOperands = Parser.WHITESPACE.split(operation, 2);
+            String operands = opcodeOperands.length > 1 ? opcodeOperands[1].trim() : "";
+            if (isSingleString(operands)) {
+                operands = operands.substring(1, operands.length() - 1);
+            }
+            operations.put(opcodeOperands[0], operands);
+        }
+        return operations;
+    }
+
+    /**
+     * Returns the index of the semicolon ending the operation starting at the given index, or the
+     * end of the text if the last operation has none.
+     */
+    private static int findOperationEnd(String text, int index) throws ParseFenException {
+        boolean isQuoted = false;
+        for (int i = index; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                isQuoted = !isQuoted;
+            } else if (c == ';' && !isQuoted) {
+                return i;
+            }
+        }
+        if (isQuoted) {
+            throw new ParseFenException();
+        }
+        return text.length();
+    }
+
+    private static boolean isSingleString(String operands) {
+        return operands.length() >= 2 && operands.charAt(0) == '"'
+                && operands.indexOf('"', 1) == operands.length() - 1;
+    }
+
+    private static boolean isNumber(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (!Character.isDigit(field.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -13,11 +13,24 @@ import chessmaster.pieces.Pawn;
 import chessmaster.pieces.ChessPiece;
 import chessmaster.game.Move;
 
+import java.util.regex.Pattern;
+
 
 public class Parser {
 
+    /** Compiled once, as {@link String#split} compiles the pattern again on every call. */
+    public static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private static final String ABORT_COMMAND = "abort";
     private static final String EXIT_COMMAND = "exit";
+    private static final String EXPLORE_COMMAND = "explore";
+    private static final String ANALYSE_COMMAND = "analyse";
+    private static final String HINT_COMMAND = "hint";
+    private static final String ANSI_COMMAND = "ansi";
+    private static final String BACK_COMMAND = "back";
+    private static final String FORWARD_COMMAND = "forward";
+    private static final String TREE_COMMAND = "tree";
+    private static final String GOTO_COMMAND = "goto";
 
     public static boolean isUserInputAbort(String userInput) {
         return userInput.trim().toLowerCase().equals(ABORT_COMMAND);
@@ -27,6 +40,82 @@ public class Parser {
         return userInput.trim().toLowerCase().equals(EXIT_COMMAND);
     }
 
+    public static boolean isUserInputExplore(String userInput) {
+        return userInput.trim().toLowerCase().equals(EXPLORE_COMMAND);
+    }
+
+    public static boolean isUserInputAnalyse(String userInput) {
+        return userInput.trim().toLowerCase().equals(ANALYSE_COMMAND);
+    }
+
+    public static boolean isUserInputAnsi(String userInput) {
+        return userInput.trim().toLowerCase().equals(ANSI_COMMAND);
+    }
+
+    public static boolean isUserInputBack(String userInput) {
+        return userInput.trim().toLowerCase().equals(BACK_COMMAND);
+    }
+
+    public static boolean isUserInputForward(String userInput) {
+        return userInput.trim().toLowerCase().equals(FORWARD_COMMAND);
+    }
+
+    public static boolean isUserInputTree(String userInput) {
+        return userInput.trim().toLowerCase().equals(TREE_COMMAND);
+    }
+
+    /**
+     * Returns true if the user asked to jump to a move of the variation tree, "goto &lt;move number&gt;".
+     */
+    public static boolean isUserInputGoto(String userInput) {
+        return WHITESPACE.split(userInput.trim().toLowerCase())[0].equals(GOTO_COMMAND);
+    }
+
+    /**
+     * Parses the number of the move a goto command jumps to.
+     *
+     * @param userInput Goto command.
+     * @return Number of the move, or -1 if none was given or it is not a number.
+     */
+    public static int parseGotoNode(String userInput) {
+        String[] parseArray = WHITESPACE.split(userInput.trim());
+        if (parseArray.length < 2) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(parseArray[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns true if the user asked for a hint, either "hint" or "hint &lt;number of lines&gt;".
+     */
+    public static boolean isUserInputHint(String userInput) {
+        return WHITESPACE.split(userInput.trim().toLowerCase())[0].equals(HINT_COMMAND);
+    }
+
+    /**
+     * Parses the number of lines asked for by a hint command.
+     *
+     * @param userInput Hint command.
+     * @param defaultLineCount Number of lines to show if none was given or it is not a positive number.
+     * @return Number of lines to show.
+     */
+    public static int parseHintLineCount(String userInput, int defaultLineCount) {
+        String[] parseArray = WHITESPACE.split(userInput.trim());
+        if (parseArray.length < 2) {
+            return defaultLineCount;
+        }
+        try {
+            int lineCount = Integer.parseInt(parseArray[1]);
+            return lineCount > 0 ? lineCount : defaultLineCount;
+        } catch (NumberFormatException e) {
+            return defaultLineCount;
+        }
+    }
+
 
     /**
      * Parses a string telling which chess piece the user wants to promote his piece to,
@@ -66,7 +155,7 @@ public class Parser {
      * @throws NullPieceException If there is no piece at the 'from' coordinate.
      */
     public static Move parseMove(String in, ChessBoard board) throws ParseCoordinateException, NullPieceException {
-        String[] parseArray = in.toLowerCase().split("\\s+", 2);
+        String[] parseArray = WHITESPACE.split(in.toLowerCase(), 2);
         if (parseArray.length < 2) {
             throw new ParseCoordinateException();
         }
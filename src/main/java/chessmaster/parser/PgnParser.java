@@ -0,0 +1,200 @@
+package chessmaster.parser;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.exceptions.ParsePgnException;
+import chessmaster.game.GameRecord;
+import chessmaster.game.Position;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses the text of a single PGN game (tag pairs followed by movetext) and validates
+ * every move by playing it out on a {@link Position}. Comments, variations, NAGs and
+ * move numbers are skipped. Instances keep reusable buffers and are not thread-safe;
+ * each worker thread should own one.
+ */
+public class PgnParser {
+
+    private static final String FEN_TAG = "FEN";
+    private static final int INITIAL_MOVE_CAPACITY = 128;
+
+    private final int[] legalMoveBuffer = new int[Position.MAX_MOVES];
+    private int[] moveBuffer = new int[INITIAL_MOVE_CAPACITY];
+
+    private String text;
+    private int index;
+
+    /**
+     * Parses and validates one game.
+     *
+     * @param gameText Full text of the game, as split by {@link chessmaster.storage.PgnReader}.
+     * @return The parsed game.
+     * @throws ParsePgnException If the text is malformed or contains an illegal move.
+     */
+    public GameRecord parseGame(String gameText) throws ParsePgnException {
+        text = gameText;
+        index = 0;
+        Map<String, String> tags = new LinkedHashMap<>();
+        Position position = null;
+        String startingFen = Position.STARTING_FEN;
+        String result = GameRecord.RESULT_UNKNOWN;
+        int moveCount = 0;
+
+        while (skipWhitespace()) {
+            char c = text.charAt(index);
+            if (c == '[') {
+                if (position != null) {
+                    throw new ParsePgnException("Tag pair after movetext");
+                }
+                readTag(tags);
+            } else if (c == ')' || c == '}') {
+                throw new ParsePgnException("Unbalanced movetext: " + c);
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || (c == '%' && isLineStart())) {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                index++;
+                readToken();
+            } else {
+                if (position == null) {
+                    startingFen = tags.getOrDefault(FEN_TAG, Position.STARTING_FEN);
+                    position = createPosition(startingFen);
+                }
+                String token = stripMoveNumber(readToken());
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (isResultToken(token)) {
+                    result = token;
+                    break;
+                }
+
+                int move = SanParser.parseSan(token, position, legalMoveBuffer);
+                position.makeMove(move);
+                if (moveCount == moveBuffer.length) {
+                    moveBuffer = Arrays.copyOf(moveBuffer, moveCount * 2);
+                }
+                moveBuffer[moveCount++] = move;
+            }
+        }
+
+        if (tags.isEmpty() && moveCount == 0) {
+            throw new ParsePgnException();
+        }
+        text = null;
+        return new GameRecord(tags, startingFen, Arrays.copyOf(moveBuffer, moveCount), result);
+    }
+
+    private static Position createPosition(String fen) throws ParsePgnException {
+        try {
+            return Position.fromFen(fen);
+        } catch (ParseFenException e) {
+            throw new ParsePgnException("Invalid FEN tag: " + fen);
+        }
+    }
+
+    /**
+     * Advances past whitespace.
+     *
+     * @return true if there is more text to read.
+     */
+    private boolean skipWhitespace() {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index < text.length();
+    }
+
+    private boolean isLineStart() {
+        return index == 0 || text.charAt(index - 1) == '\n';
+    }
+
+    private void skipPast(char terminator) {
+        int end = text.indexOf(terminator, index);
+        index = end == -1 ? text.length() : end + 1;
+    }
+
+    private void skipVariation() throws ParsePgnException {
+        int depth = 0;
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (c == '{') {
+                skipPast('}');
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                index++;
+                return;
+            }
+            index++;
+        }
+        throw new ParsePgnException("Unterminated variation");
+    }
+
+    private void readTag(Map<String, String> tags) throws ParsePgnException {
+        int end = text.indexOf(']', index);
+        int quoteStart = text.indexOf('"', index);
+        if (end == -1 || quoteStart == -1 || quoteStart > end) {
+            throw new ParsePgnException("Invalid tag pair");
+        }
+
+        String name = text.substring(index + 1, quoteStart).trim();
+        StringBuilder value = new StringBuilder();
+        int i = quoteStart + 1;
+        while (i < text.length() && text.charAt(i) != '"') {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                i++;
+                c = text.charAt(i);
+            }
+            value.append(c);
+            i++;
+        }
+
+        index = i;
+        skipPast(']');
+        tags.put(name, value.toString());
+    }
+
+    private String readToken() {
+        int start = index;
+        while (index < text.length() && !isTokenEnd(text.charAt(index))) {
+            index++;
+        }
+        return text.substring(start, index);
+    }
+
+    private static boolean isTokenEnd(char c) {
+        return Character.isWhitespace(c) || c == '{' || c == '}' || c == '(' || c == ')'
+                || c == ';' || c == '[' || c == '$';
+    }
+
+    /**
+     * Removes a leading move number indication such as "12." or "12..." from a token.
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == token.length() || token.charAt(i) != '.') {
+            return token;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        return token.substring(i);
+    }
+
+    private static boolean isResultToken(String token) {
+        return token.equals(GameRecord.RESULT_WHITE_WIN) || token.equals(GameRecord.RESULT_BLACK_WIN)
+                || token.equals(GameRecord.RESULT_DRAW) || token.equals(GameRecord.RESULT_UNKNOWN);
+    }
+}
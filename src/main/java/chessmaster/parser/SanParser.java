@@ -0,0 +1,164 @@
+package chessmaster.parser;
+
+import chessmaster.exceptions.ParsePgnException;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+
+/**
+ * Parses moves in Standard Algebraic Notation (e.g. "Nbd7", "exd8=Q+", "O-O-O") against a position.
+ * The notation is scanned character by character instead of with regular expressions, since
+ * it is on the hot path when importing large PGN collections.
+ */
+public class SanParser {
+
+    private static final String PIECE_LETTERS = "  NBRQK";
+
+    /**
+     * Parses a SAN move into the matching legal move of the given position.
+     *
+     * @param san Move in standard algebraic notation.
+     * @param position Position the move is played in.
+     * @return Packed legal move.
+     * @throws ParsePgnException If the notation is malformed, illegal or ambiguous.
+     */
+    public static int parseSan(String san, Position position) throws ParsePgnException {
+        return parseSan(san, position, new int[Position.MAX_MOVES]);
+    }
+
+    /**
+     * Parses a SAN move, generating candidate moves into a caller supplied buffer so that
+     * repeated calls do not allocate.
+     *
+     * @param san Move in standard algebraic notation.
+     * @param position Position the move is played in.
+     * @param moveBuffer Scratch buffer of at least {@link Position#MAX_MOVES} entries.
+     * @return Packed legal move.
+     * @throws ParsePgnException If the notation is malformed, illegal or ambiguous.
+     */
+    public static int parseSan(String san, Position position, int[] moveBuffer) throws ParsePgnException {
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) {
+            end--;
+        }
+        if (end < 2) {
+            throw new ParsePgnException("Invalid move: " + san);
+        }
+
+        int castleLength = getCastleLength(san, end);
+        if (castleLength != 0) {
+            return findCastle(san, position, moveBuffer, castleLength == 3);
+        }
+
+        int promotion = 0;
+        char last = san.charAt(end - 1);
+        if (isPromotionLetter(last)) {
+            promotion = PIECE_LETTERS.indexOf(Character.toUpperCase(last));
+            end--;
+            if (san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+
+        if (end < 2 || !Character.isDigit(san.charAt(end - 1))) {
+            throw new ParsePgnException("Invalid move: " + san);
+        }
+        int to = Position.parseSquare(san.substring(end - 2, end));
+        if (to == Position.NO_SQUARE) {
+            throw new ParsePgnException("Invalid move: " + san);
+        }
+        end -= 2;
+
+        int pieceType = Position.PAWN;
+        int start = 0;
+        int letterIndex = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letterIndex >= Position.KNIGHT && end > 0) {
+            pieceType = letterIndex;
+            start = 1;
+        }
+
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new ParsePgnException("Invalid move: " + san);
+            }
+        }
+
+        // Only candidates that match the notation are checked for legality
+        int count = position.generatePseudoLegalMoves(moveBuffer);
+        int match = MoveCode.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            int from = MoveCode.from(move);
+            if (MoveCode.to(move) != to
+                    || Position.typeOf(position.getPiece(from)) != pieceType
+                    || MoveCode.promotion(move) != promotion
+                    || (fromFile != -1 && Position.fileOf(from) != fromFile)
+                    || (fromRank != -1 && Position.rankOf(from) != fromRank)
+                    || !isLegal(move, position)) {
+                continue;
+            }
+            if (match != MoveCode.NONE) {
+                throw new ParsePgnException("Ambiguous move: " + san);
+            }
+            match = move;
+        }
+
+        if (match == MoveCode.NONE) {
+            throw new ParsePgnException("Illegal move: " + san);
+        }
+        return match;
+    }
+
+    private static int findCastle(String san, Position position, int[] moveBuffer, boolean isKingside)
+            throws ParsePgnException {
+        int count = position.generatePseudoLegalMoves(moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (MoveCode.isCastle(move) && (MoveCode.to(move) > MoveCode.from(move)) == isKingside
+                    && isLegal(move, position)) {
+                return move;
+            }
+        }
+        throw new ParsePgnException("Illegal move: " + san);
+    }
+
+    private static boolean isLegal(int move, Position position) {
+        position.makeMove(move);
+        boolean isLegal = position.wasLastMoveLegal();
+        position.unmakeMove();
+        return isLegal;
+    }
+
+    /**
+     * Returns the number of castling tokens ("O" or "0") if the first {@code end} characters
+     * spell a castling move, or 0 otherwise.
+     */
+    private static int getCastleLength(String san, int end) {
+        if (end != 3 && end != 5) {
+            return 0;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            boolean isExpected = i % 2 == 0 ? (c == 'O' || c == '0') : c == '-';
+            if (!isExpected) {
+                return 0;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isPromotionLetter(char c) {
+        return c == 'N' || c == 'B' || c == 'R' || c == 'Q'
+                || c == 'n' || c == 'r' || c == 'q';
+    }
+}
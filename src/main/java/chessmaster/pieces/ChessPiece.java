@@ -1,5 +1,6 @@
 package chessmaster.pieces;
 
+import chessmaster.game.ChessBoard;
 import chessmaster.game.Coordinate;
 import chessmaster.game.ChessTile;
 
@@ -54,13 +55,18 @@ public abstract class ChessPiece {
      */
     public abstract Coordinate[][] getAvailableCoordinates(ChessTile[][] board);
 
+    /**
+     * Returns every coordinate the piece can move to, from a single pass of
+     * {@link #getAvailableCoordinates}. Callers holding a {@link ChessBoard} should use
+     * {@link ChessBoard#getLegalDestinations}, which caches the result until the board changes.
+     */
     public Coordinate[] getFlattenedCoordinates(ChessTile[][] board) {
         Coordinate[][] availableCoordinates = getAvailableCoordinates(board);
         ArrayList<Coordinate> flattenedCoordinates = new ArrayList<>();
 
         for (Coordinate[] direction : availableCoordinates) {
             for (Coordinate possibleCoord : direction) {
-                if (this.isMoveValid(possibleCoord, board)){
+                if (!isOccupiedByOwnPiece(possibleCoord, board)) {
                     flattenedCoordinates.add(possibleCoord);
                 }
             }
@@ -80,30 +86,23 @@ public abstract class ChessPiece {
         for (Coordinate[] direction : availableCoordinates) {
             for (Coordinate possibleCoord : direction) {
                 if (possibleCoord.equals(destination)) {
-                    ChessPiece destPiece = board[destination.getY()][destination.getX()].getChessPiece();
-                    if (destPiece == null){
-                        return true;
-                    } else if (destPiece.getColour() != this.color){
-                        return true;
-                    }
+                    return !isOccupiedByOwnPiece(destination, board);
                 }
             }
         }
         return false;
     }
 
-    public void displayAvailableCoordinates(ChessTile[][] board) {
-
-        System.out.println("Available coordinates for " + this.getClass().getSimpleName() + " at " + position + ":\n");
-        Coordinate[][] availableCoordinates = getAvailableCoordinates(board);
+    private boolean isOccupiedByOwnPiece(Coordinate coordinate, ChessTile[][] board) {
+        ChessPiece destPiece = board[coordinate.getY()][coordinate.getX()].getChessPiece();
+        return destPiece != null && destPiece.getColour() == this.color;
+    }
 
+    public void displayAvailableCoordinates(ChessBoard board) {
 
-        for (Coordinate[] direction : availableCoordinates) {
-            for (Coordinate possibleCoord : direction) {
-                if (this.isMoveValid(possibleCoord, board)){
-                    System.out.print(possibleCoord + " ");
-                }
-            }
+        System.out.println("Available coordinates for " + this.getClass().getSimpleName() + " at " + position + ":\n");
+        for (Coordinate possibleCoord : board.getLegalDestinations(this)) {
+            System.out.print(possibleCoord + " ");
         }
         System.out.println();
     }
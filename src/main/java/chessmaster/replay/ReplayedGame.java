@@ -0,0 +1,63 @@
+package chessmaster.replay;
+
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Position;
+
+/**
+ * Outcome of replaying one game of a move script.
+ */
+public class ReplayedGame {
+
+    private final long number;
+    private final ChessBoard board;
+    private final int moveCount;
+    private final Position.GameState state;
+    private final String rejectedMove;
+    private final String rejection;
+
+    /**
+     * @param number Number of the game in the script, counting from 1.
+     * @param board Board after the last move played.
+     * @param moveCount Moves played.
+     * @param state State of the final position.
+     * @param rejectedMove Move line that could not be played, or null if every move was.
+     * @param rejection Why it could not be played, or null.
+     */
+    public ReplayedGame(long number, ChessBoard board, int moveCount, Position.GameState state,
+            String rejectedMove, String rejection) {
+        this.number = number;
+        this.board = board;
+        this.moveCount = moveCount;
+        this.state = state;
+        this.rejectedMove = rejectedMove;
+        this.rejection = rejection;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public ChessBoard getBoard() {
+        return board;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public Position.GameState getState() {
+        return state;
+    }
+
+    public boolean isValid() {
+        return rejectedMove == null;
+    }
+
+    public String getRejectedMove() {
+        return rejectedMove;
+    }
+
+    public String getRejection() {
+        return rejection;
+    }
+}
@@ -0,0 +1,106 @@
+package chessmaster.replay;
+
+import chessmaster.exceptions.ChessMasterException;
+import chessmaster.exceptions.ExceptionMessages;
+import chessmaster.exceptions.InvalidMoveException;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.ChessTile;
+import chessmaster.game.Coordinate;
+import chessmaster.game.Move;
+import chessmaster.game.Position;
+import chessmaster.parser.Parser;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.pieces.Queen;
+import chessmaster.storage.MoveScriptReader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Replays move scripts through the same rules as a console game, without prompting, rendering or
+ * a CPU opponent: every move is parsed and executed on a {@link ChessBoard}, and followed on a
+ * {@link Position} to tell when the game is over. A game stops at its first move that cannot be
+ * played, including any move after the game has ended.
+ */
+public class Replayer {
+
+    /**
+     * Replays every game of a script.
+     *
+     * @param reader Script to read the games from.
+     * @param consumer Called with each game once it has been replayed, on the calling thread.
+     * @return Counts and timing of the replay.
+     * @throws IOException If the script cannot be read.
+     */
+    public ReplaySummary replay(MoveScriptReader reader, Consumer<ReplayedGame> consumer) throws IOException {
+        long startTime = System.nanoTime();
+        long gameCount = 0;
+        long invalidGameCount = 0;
+        long moveCount = 0;
+        for (List<String> script = reader.nextGame(); script != null; script = reader.nextGame()) {
+            ReplayedGame game = replayGame(++gameCount, script);
+            moveCount += game.getMoveCount();
+            if (!game.isValid()) {
+                invalidGameCount++;
+            }
+            consumer.accept(game);
+        }
+        return new ReplaySummary(gameCount, invalidGameCount, moveCount, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Replays one game from the starting position, white moving first.
+     *
+     * @param number Number of the game in its script.
+     * @param script Move lines of the game.
+     */
+    public ReplayedGame replayGame(long number, List<String> script) {
+        ChessBoard board = new ChessBoard();
+        int sideToMove = ChessPiece.WHITE;
+        Position position = Position.fromChessBoard(board, sideToMove);
+        int moveCount = 0;
+        for (String line : script) {
+            if (getState(position) != Position.GameState.ONGOING) {
+                return new ReplayedGame(number, board, moveCount, getState(position), line,
+                        ExceptionMessages.MESSAGE_GAME_OVER);
+            }
+            try {
+                Move move = playMove(board, line, sideToMove);
+                position = Position.followBoardMove(position, board, move, sideToMove);
+            } catch (ChessMasterException e) {
+                return new ReplayedGame(number, board, moveCount, getState(position), line, e.getMessage());
+            }
+            moveCount++;
+            sideToMove = 1 - sideToMove;
+        }
+        return new ReplayedGame(number, board, moveCount, getState(position), null, null);
+    }
+
+    private static Position.GameState getState(Position position) {
+        return position == null ? Position.GameState.ONGOING : position.getGameState();
+    }
+
+    /**
+     * Parses a move line and plays it, promoting to the piece named after the move, or to a queen.
+     */
+    private static Move playMove(ChessBoard board, String line, int sideToMove) throws ChessMasterException {
+        String[] tokens = Parser.WHITESPACE.split(line);
+        Move move = Parser.parseMove(tokens.length > 2 ? tokens[0] + " " + tokens[1] : line, board);
+        if (move.getPiece().getColour() != sideToMove) {
+            throw new InvalidMoveException(ExceptionMessages.MESSAGE_WRONG_SIDE);
+        }
+        board.executeMove(move);
+        if (board.canPromote(move)) {
+            ChessPiece pawn = move.getPiece();
+            ChessPiece promoted = Parser.parsePromote(pawn, tokens.length > 2 ? tokens[2] : Queen.QUEEN_WHITE);
+            if (promoted == pawn) {
+                promoted = Parser.parsePromote(pawn, Queen.QUEEN_WHITE);
+            }
+            Coordinate to = move.getTo();
+            // setTile stores into board[col][row], so it is given the column first, as Storage does
+            board.setTile(to.getX(), to.getY(), new ChessTile(promoted));
+        }
+        return move;
+    }
+}
@@ -0,0 +1,317 @@
+package chessmaster.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the moves of live games to spectators. Each game's latest {@link GameSnapshot} is held in
+ * an atomic reference, and every watcher has a small bounded queue of snapshots not yet sent.
+ *
+ * <p>Publishing never waits: it replaces the reference and offers the snapshot to each queue.
+ * A watcher whose queue is full has fallen behind; its queue is cleared, and it is sent the
+ * whole board again when it catches up. Writing is done by a few writer threads, which send
+ * everything queued for a watcher in a single write.
+ *
+ * <p>A socket write blocks while the spectator is not reading, so a stalled spectator holds a
+ * writer thread, and a few of them would hold up every broadcast. A watchdog drops any watcher
+ * whose write has taken longer than the write timeout, calling its end callback, which closes the
+ * connection and so makes the blocked write fail and frees the thread.
+ */
+public class Broadcaster implements AutoCloseable {
+
+    public static final int DEFAULT_WRITER_THREADS = 2;
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 5_000;
+
+    private static final int WATCHER_QUEUE_SIZE = 32;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    /** Every watcher that has not ended, for the watchdog to check. */
+    private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService watchdog;
+    private final long writeTimeoutNanos;
+    private final LongAdder resyncCount = new LongAdder();
+    private final LongAdder dropCount = new LongAdder();
+
+    public Broadcaster(int writerThreads) {
+        this(writerThreads, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a broadcaster.
+     *
+     * @param writerThreads Number of threads writing to watchers.
+     * @param writeTimeoutMillis Longest a single write to a watcher may take before it is dropped.
+     */
+    public Broadcaster(int writerThreads, long writeTimeoutMillis) {
+        writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "broadcast-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        long checkMillis = Math.max(1, writeTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::dropStalledWatchers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts broadcasting a game.
+     */
+    public void open(long gameId, GameSnapshot snapshot) {
+        channels.put(gameId, new Channel(snapshot));
+    }
+
+    /**
+     * Publishes the state of a game after a move. Never blocks.
+     */
+    public void publish(long gameId, GameSnapshot snapshot) {
+        Channel channel = channels.get(gameId);
+        if (channel != null) {
+            publish(channel, snapshot);
+        }
+    }
+
+    /**
+     * Stops broadcasting a game. Its watchers are told the game has ended and disconnected.
+     */
+    public void close(long gameId) {
+        Channel channel = channels.remove(gameId);
+        if (channel != null) {
+            publish(channel, channel.latest.get().toFinal());
+        }
+    }
+
+    private void publish(Channel channel, GameSnapshot snapshot) {
+        channel.latest.set(snapshot);
+        for (Watcher watcher : channel.watchers) {
+            watcher.offer(snapshot);
+        }
+    }
+
+    /**
+     * Returns the latest state of a game, or null if it is not being broadcast.
+     */
+    public GameSnapshot getSnapshot(long gameId) {
+        Channel channel = channels.get(gameId);
+        return channel == null ? null : channel.latest.get();
+    }
+
+    /**
+     * Adds a watcher to a game. The watcher is first sent the whole board, then every move.
+     *
+     * @param gameId Game to watch.
+     * @param out Stream to send the game to.
+     * @param onEnd Called once nothing more will be sent, e.g. to close the connection.
+     * @return The watcher, or null if the game is not being broadcast.
+     */
+    public Watcher watch(long gameId, OutputStream out, Runnable onEnd) {
+        Channel channel = channels.get(gameId);
+        if (channel == null) {
+            return null;
+        }
+        Watcher watcher = new Watcher(channel, out, onEnd);
+        watchers.add(watcher);
+        channel.watchers.add(watcher);
+        watcher.schedule();
+        return watcher;
+    }
+
+    /**
+     * Removes a watcher, e.g. because its connection has closed.
+     */
+    public void unwatch(Watcher watcher) {
+        watcher.channel.watchers.remove(watcher);
+        watchers.remove(watcher);
+    }
+
+    /**
+     * Ends every watcher whose current write has run past the timeout.
+     */
+    private void dropStalledWatchers() {
+        long now = System.nanoTime();
+        for (Watcher watcher : watchers) {
+            long writeStartTime = watcher.writeStartTime;
+            if (writeStartTime != 0 && now - writeStartTime > writeTimeoutNanos && watcher.end()) {
+                dropCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times a watcher fell behind and had to be sent the whole board again.
+     */
+    public long getResyncCount() {
+        return resyncCount.sum();
+    }
+
+    /**
+     * Returns the number of watchers dropped because a write to them stalled.
+     */
+    public long getDropCount() {
+        return dropCount.sum();
+    }
+
+    @Override
+    public void close() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private static class Channel {
+        private final AtomicReference<GameSnapshot> latest;
+        private final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+
+        private Channel(GameSnapshot snapshot) {
+            latest = new AtomicReference<>(snapshot);
+        }
+    }
+
+    /**
+     * A spectator of one game.
+     */
+    public class Watcher {
+
+        private final Channel channel;
+        private final OutputStream out;
+        private final Runnable onEnd;
+        private final BlockingQueue<GameSnapshot> pending = new ArrayBlockingQueue<>(WATCHER_QUEUE_SIZE);
+        /** True while a flush is queued or running, so at most one writer sends to this watcher. */
+        private final AtomicBoolean isScheduled = new AtomicBoolean();
+        private volatile boolean needsBoard = true;
+        private final AtomicBoolean hasEnded = new AtomicBoolean();
+        private final CountDownLatch endLatch = new CountDownLatch(1);
+        /** Line to send after everything queued, before ending, or null. */
+        private volatile String lastLine;
+        /** When the write in progress started, or 0 if none is. */
+        private volatile long writeStartTime;
+        /** Ply of the last snapshot sent; only touched by the writer flushing this watcher. */
+        private int sentPly = -1;
+
+        private Watcher(Channel channel, OutputStream out, Runnable onEnd) {
+            this.channel = channel;
+            this.out = out;
+            this.onEnd = onEnd;
+        }
+
+        private void offer(GameSnapshot snapshot) {
+            if (!pending.offer(snapshot)) {
+                // Fallen behind: skip to the latest board instead of queueing without limit
+                pending.clear();
+                needsBoard = true;
+                resyncCount.increment();
+            }
+            schedule();
+        }
+
+        /**
+         * Sends a last line, after everything already queued, and ends the watcher. Lines go
+         * through the writer, so they never interleave with the moves. Waits until the line has
+         * been written or the write has timed out, so the connection can be closed afterwards.
+         *
+         * @param line Line to send, without its terminator.
+         */
+        public void finish(String line) {
+            lastLine = line + "\n";
+            schedule();
+            try {
+                endLatch.await(2 * writeTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void schedule() {
+            if (isScheduled.compareAndSet(false, true)) {
+                writers.execute(this::flush);
+            }
+        }
+
+        private void flush() {
+            StringBuilder batch = new StringBuilder();
+            boolean isEnd = false;
+            if (needsBoard) {
+                needsBoard = false;
+                GameSnapshot latest = channel.latest.get();
+                batch.append("board ").append(latest.toFen()).append('\n');
+                sentPly = latest.getPly();
+                isEnd = latest.isFinal();
+            }
+            for (GameSnapshot snapshot = pending.poll(); snapshot != null; snapshot = pending.poll()) {
+                if (snapshot.getPly() > sentPly) {
+                    batch.append(snapshot.getDelta());
+                    sentPly = snapshot.getPly();
+                    isEnd |= snapshot.isFinal();
+                }
+            }
+            if (isEnd) {
+                batch.append("end\n");
+            }
+            String last = lastLine;
+            if (last != null) {
+                batch.append(last);
+            }
+            write(batch, isEnd || last != null);
+
+            isScheduled.set(false);
+            if (!hasEnded.get() && (!pending.isEmpty() || needsBoard || lastLine != null)) {
+                schedule();
+            }
+        }
+
+        private void write(StringBuilder batch, boolean isEnd) {
+            if (hasEnded.get()) {
+                return;
+            }
+            try {
+                if (batch.length() > 0) {
+                    writeStartTime = System.nanoTime();
+                    out.write(batch.toString().getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                isEnd = true;
+            } finally {
+                writeStartTime = 0;
+            }
+            if (isEnd) {
+                end();
+            }
+        }
+
+        /**
+         * Stops sending to this watcher, the first time it is called.
+         *
+         * @return Whether this call ended the watcher.
+         */
+        private boolean end() {
+            if (!hasEnded.compareAndSet(false, true)) {
+                return false;
+            }
+            unwatch(this);
+            onEnd.run();
+            endLatch.countDown();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package chessmaster.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves games to clients on the local machine, one {@link GameSession} per connection.
+ *
+ * <p>Each session has a thread of its own, which spends nearly all of its time blocked reading
+ * the client's next move. Since sessions never search themselves (searches run on the shared
+ * {@link SearchScheduler}) their threads are given small stacks. The thread count is what limits the
+ * number of concurrent games, so connections beyond the session limit are turned away.
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 4150;
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    public static final long DEFAULT_MOVE_TIME_MILLIS = 100;
+    public static final int DEFAULT_HASH_SIZE_MB = 64;
+
+    /** Reading a line and replaying a move on the board needs far less than the default stack. */
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+    private static final int BACKLOG = 1024;
+    private static final long ACCEPT_RETRY_MILLIS = 100;
+
+    private final ServerSocket serverSocket;
+    private final SearchScheduler scheduler;
+    private final SessionStore store;
+    private final Broadcaster broadcaster;
+    private final ExecutorService sessions;
+    private final int maxSessions;
+    private final long moveTimeMillis;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private long nextSessionId;
+
+    /**
+     * Opens the server's socket on the loopback interface.
+     *
+     * @param port Port to listen on, or 0 for any free port.
+     * @param maxSessions Largest number of games played at once.
+     * @param moveTimeMillis Time the CPU spends on each move.
+     * @param searchThreads Number of threads searching for all games together.
+     * @param heapBudgetBytes Heap the games in memory may take; the least recently used ones beyond it
+     *     are spilled to {@link SessionStore#DEFAULT_DIRECTORY}.
+     * @throws IOException If the socket cannot be opened or the spill directory cannot be prepared.
+     */
+    public GameServer(int port, int maxSessions, long moveTimeMillis, int searchThreads, long heapBudgetBytes)
+            throws IOException {
+        this.store = new SessionStore(Path.of(SessionStore.DEFAULT_DIRECTORY), heapBudgetBytes);
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.scheduler = new SearchScheduler(searchThreads, DEFAULT_HASH_SIZE_MB);
+        this.broadcaster = new Broadcaster(Broadcaster.DEFAULT_WRITER_THREADS);
+        this.sessions = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "session", SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxSessions = maxSessions;
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public SessionStore getStore() {
+        return store;
+    }
+
+    public int getActiveSessionCount() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Accepts connections until the server is closed or the calling thread is interrupted.
+     */
+    public void run() {
+        while (!serverSocket.isClosed() && !Thread.currentThread().isInterrupted()) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                // Typically out of file descriptors; pending connections wait until sessions end
+                pauseAccepting();
+                continue;
+            }
+            if (activeSessions.incrementAndGet() > maxSessions) {
+                activeSessions.decrementAndGet();
+                turnAway(client);
+                continue;
+            }
+            sessions.execute(new GameSession(client, nextSessionId++, scheduler, store, broadcaster, moveTimeMillis,
+                    activeSessions::decrementAndGet));
+        }
+    }
+
+    private static void pauseAccepting() {
+        try {
+            Thread.sleep(ACCEPT_RETRY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void turnAway(Socket client) {
+        try (Socket socket = client; OutputStream out = socket.getOutputStream()) {
+            out.write("error server full\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Nothing more to do for a client that is being turned away
+        }
+    }
+
+    /**
+     * Stops accepting connections and searching. Sessions still connected are abandoned; their
+     * threads are daemons, so they do not keep the application alive.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+        scheduler.close();
+        broadcaster.close();
+    }
+}
@@ -0,0 +1,300 @@
+package chessmaster.server;
+
+import chessmaster.engine.TimeManager;
+import chessmaster.exceptions.ChessMasterException;
+import chessmaster.exceptions.LoadBoardException;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Game;
+import chessmaster.game.Move;
+import chessmaster.game.Position;
+import chessmaster.metrics.EngineMetrics;
+import chessmaster.parser.Parser;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.user.CPU;
+import chessmaster.user.RemoteHuman;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One client's game, played over a line protocol. The client plays white and sends moves the way
+ * they are typed at the console; every request gets exactly one reply line.
+ *
+ * <pre>
+ * e7 e5        -&gt; move e2 e4       (the CPU's reply)
+ * b2 b1 n      -&gt; move ...         (promotion piece after the move; queen if left out)
+ * board        -&gt; board &lt;fen&gt;
+ * level 3      -&gt; level 3          (difficulty, 1 to 5; 5 unless set)
+ * id           -&gt; id 42            (the id others can watch this game by)
+ * watch 42     -&gt; board &lt;fen&gt;, then move &lt;from&gt; &lt;to&gt; for every move and end when the game is over
+ * stats        -&gt; stats queue 0 maxqueue 4 searches 120 degraded 3 wait 0.8 max 41.0 games 900
+ *                   packed 5000 spilled 100 hitrate 0.995
+ * abort / exit -&gt; bye              (and the connection is closed)
+ * </pre>
+ *
+ * <p>A reply of "gameover" means the game has ended by checkmate, stalemate, repetition, the
+ * fifty-move rule or insufficient material, and "error &lt;message&gt;" that the request was rejected
+ * and the game is unchanged. On connecting, the client is sent
+ * "ready &lt;fen&gt;".
+ *
+ * <p>A session that starts watching another game gives up its own. From then on, everything it is
+ * sent comes from the {@link Broadcaster}, and requests other than "abort" and "exit" are ignored.
+ */
+public class GameSession implements Runnable {
+
+    private static final String BOARD_COMMAND = "board";
+    private static final String LEVEL_COMMAND = "level";
+    private static final String STATS_COMMAND = "stats";
+    private static final String ID_COMMAND = "id";
+    private static final String WATCH_COMMAND = "watch";
+    private static final int HUMAN_COLOUR = ChessPiece.WHITE;
+    private static final int CPU_COLOUR = ChessPiece.BLACK;
+    /** Requests are short lines, so the default 8K buffer would mostly sit empty. */
+    private static final int LINE_BUFFER_SIZE = 256;
+    private static final int MAX_LINE_LENGTH = 256;
+
+    private final Socket socket;
+    private final long id;
+    private final SearchScheduler scheduler;
+    private final SessionStore store;
+    private final Broadcaster broadcaster;
+    private final long moveTimeMillis;
+    private final Runnable onClose;
+    private int level = SearchScheduler.MAX_LEVEL;
+    /** Half-moves played in the session's game. */
+    private int ply;
+    private OutputStream out;
+    /** The game this session is watching, or null if it is playing its own. */
+    private Broadcaster.Watcher watcher;
+
+    /**
+     * Creates a session for a connection.
+     *
+     * @param socket Connection to the client; closed when the session ends.
+     * @param id Id of the session's game in the store.
+     * @param scheduler Scheduler the CPU's searches share with the other sessions.
+     * @param store Store holding the session's game between requests.
+     * @param broadcaster Sends the session's moves to spectators, and other games' moves to this session
+     *     if it watches them.
+     * @param moveTimeMillis Most time the CPU spends on each move.
+     * @param onClose Called once the session has ended.
+     */
+    public GameSession(Socket socket, long id, SearchScheduler scheduler, SessionStore store,
+            Broadcaster broadcaster, long moveTimeMillis, Runnable onClose) {
+        this.socket = socket;
+        this.id = id;
+        this.scheduler = scheduler;
+        this.store = store;
+        this.broadcaster = broadcaster;
+        this.moveTimeMillis = moveTimeMillis;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Creates the session's game on a board, which is either new or restored by the store.
+     * Nothing else refers to the game's players and pieces, so a spilled game takes no heap.
+     */
+    private Game createGame(ChessBoard board) {
+        CPU cpu = new CPU(CPU_COLOUR, (position, limits) -> scheduler.search(position, limits, level));
+        return new Game(new RemoteHuman(HUMAN_COLOUR), cpu, board);
+    }
+
+    @Override
+    public void run() {
+        try (Socket client = socket;
+                InputStream in = new BufferedInputStream(client.getInputStream(), LINE_BUFFER_SIZE);
+                OutputStream out = client.getOutputStream()) {
+            this.out = out;
+            client.setTcpNoDelay(true);
+            // Stored here rather than on the accepting thread, as storing may spill another game to disk
+            Game game = createGame(new ChessBoard());
+            broadcaster.open(id, new GameSnapshot(ply, game.getPackedPosition(), "", false));
+            store.put(id, game);
+            reply(out, "ready " + game.getPackedPosition().toFen());
+            String line = readLine(in);
+            while (line != null) {
+                long receivedTime = System.nanoTime();
+                String response = execute(line.trim());
+                if (response != null && watcher != null) {
+                    // The broadcaster writes to the connection too, so the reply goes through it
+                    watcher.finish(response);
+                } else if (response != null) {
+                    reply(out, response);
+                    EngineMetrics.get().recordInputLatency(System.nanoTime() - receivedTime);
+                }
+                if (Parser.isUserInputAbort(line) || Parser.isUserInputExit(line)) {
+                    break;
+                }
+                line = readLine(in);
+            }
+        } catch (IOException e) {
+            // The client went away, so the session is over
+        } finally {
+            if (watcher != null) {
+                broadcaster.unwatch(watcher);
+            }
+            broadcaster.close(id);
+            store.remove(id);
+            onClose.run();
+        }
+    }
+
+    /**
+     * Executes a single request.
+     *
+     * @param line Request, without surrounding whitespace.
+     * @return Reply line, or null if the request was blank.
+     */
+    String execute(String line) {
+        if (line.isEmpty() || watcher != null) {
+            return null;
+        }
+        if (Parser.isUserInputAbort(line) || Parser.isUserInputExit(line)) {
+            return "bye";
+        }
+        String[] tokens = line.split("\\s+");
+        if (line.equalsIgnoreCase(STATS_COMMAND)) {
+            return String.format("stats queue %d maxqueue %d searches %d degraded %d wait %.1f max %.1f "
+                    + "games %d packed %d spilled %d hitrate %.3f",
+                    scheduler.getQueueDepth(), scheduler.getMaxQueueDepth(), scheduler.getRequestCount(),
+                    scheduler.getDegradedCount(), scheduler.getAverageWaitMillis(), scheduler.getMaxWaitMillis(),
+                    store.getInMemoryCount(), store.getPackedCount(), store.getSpilledCount(),
+                    store.getHitRate());
+        }
+        if (line.equalsIgnoreCase(ID_COMMAND)) {
+            return "id " + id;
+        }
+        if (tokens[0].equalsIgnoreCase(WATCH_COMMAND)) {
+            return watch(tokens);
+        }
+        if (tokens[0].equalsIgnoreCase(LEVEL_COMMAND)) {
+            try {
+                level = SearchScheduler.toLevel(Integer.parseInt(tokens[1]));
+                return "level " + level;
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                return "error level must be a number from " + SearchScheduler.MIN_LEVEL + " to "
+                        + SearchScheduler.MAX_LEVEL;
+            }
+        }
+
+        Game game;
+        try {
+            game = store.get(id, this::createGame);
+        } catch (LoadBoardException e) {
+            return "error " + e.getMessage();
+        }
+        try {
+            return execute(line, tokens, game);
+        } finally {
+            store.put(id, game);
+        }
+    }
+
+    /**
+     * Executes a request that needs the game.
+     */
+    private String execute(String line, String[] tokens, Game game) {
+        if (line.equalsIgnoreCase(BOARD_COMMAND)) {
+            return "board " + game.getPackedPosition().toFen();
+        }
+        if (game.getState() != Position.GameState.ONGOING) {
+            return "gameover";
+        }
+
+        try {
+            Move move = Parser.parseMove(tokens.length > 2 ? tokens[0] + " " + tokens[1] : line, game.getBoard());
+            ((RemoteHuman) game.getHuman()).setPromotion(tokens.length > 2 ? tokens[2] : null);
+            Move reply = game.playTurn(move, TimeManager.fixed(moveTimeMillis));
+            publish(game, move, reply, reply == null || game.getState() != Position.GameState.ONGOING);
+            if (reply == null) {
+                return "gameover";
+            }
+            return "move " + reply.getFrom() + " " + reply.getTo();
+        } catch (ChessMasterException e) {
+            return "error " + e.getMessage();
+        }
+    }
+
+    /**
+     * Starts watching another game in place of playing this one.
+     *
+     * @return Error reply, or null if watching started; the board is then sent by the broadcaster.
+     */
+    private String watch(String[] tokens) {
+        long gameId;
+        try {
+            gameId = Long.parseLong(tokens[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return "error watch needs the id of a game";
+        }
+        if (gameId == id || broadcaster.getSnapshot(gameId) == null) {
+            return "error no game " + gameId + " to watch";
+        }
+        broadcaster.close(id);
+        store.remove(id);
+        watcher = broadcaster.watch(gameId, out, this::disconnect);
+        return watcher == null ? "error no game " + gameId + " to watch" : null;
+    }
+
+    /**
+     * Tells spectators about the moves of a turn. The board is copied into the snapshot here, on
+     * the only thread that changes it, so spectators never see it half updated.
+     */
+    private void publish(Game game, Move move, Move reply, boolean isOver) {
+        StringBuilder delta = new StringBuilder("move ").append(move.getFrom()).append(' ').append(move.getTo())
+                .append('\n');
+        ply++;
+        if (reply != null) {
+            delta.append("move ").append(reply.getFrom()).append(' ').append(reply.getTo()).append('\n');
+            ply++;
+        }
+        broadcaster.publish(id, new GameSnapshot(ply, game.getPackedPosition(), delta.toString(), false));
+        if (isOver) {
+            broadcaster.close(id);
+        }
+    }
+
+    /**
+     * Closes the connection, which ends the session once its thread notices.
+     */
+    private void disconnect() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Reads a line of ASCII text. Reading bytes directly, rather than through a Reader, saves the
+     * two 8K buffers a Reader and Writer pair would hold for every session.
+     *
+     * @return The line without its terminator, or null at the end of the input.
+     * @throws IOException If the line is longer than any request can be, or the input cannot be read.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int next = in.read();
+        if (next < 0) {
+            return null;
+        }
+        while (next >= 0 && next != '\n') {
+            if (next != '\r') {
+                line.append((char) next);
+            }
+            if (line.length() > MAX_LINE_LENGTH) {
+                throw new IOException("Request too long");
+            }
+            next = in.read();
+        }
+        return line.toString();
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,54 @@
+package chessmaster.server;
+
+import chessmaster.game.PackedPosition;
+
+/**
+ * Immutable view of a live game after a move, for spectators. Since it never changes once
+ * published, any thread can read it without locking, while the game's own board goes on being
+ * updated by the player's thread.
+ */
+public class GameSnapshot {
+
+    private final int ply;
+    private final PackedPosition position;
+    private final String delta;
+    private final boolean isFinal;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param ply Number of half-moves played so far.
+     * @param position Position after the move.
+     * @param delta Lines describing the moves since the previous snapshot, each ending in a newline.
+     * @param isFinal Whether the game has ended.
+     */
+    public GameSnapshot(int ply, PackedPosition position, String delta, boolean isFinal) {
+        this.ply = ply;
+        this.position = position;
+        this.delta = delta;
+        this.isFinal = isFinal;
+    }
+
+    /**
+     * Returns a snapshot marking the end of a game, keeping this snapshot's position.
+     */
+    public GameSnapshot toFinal() {
+        return new GameSnapshot(ply + 1, position, "", true);
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public String getDelta() {
+        return delta;
+    }
+
+    public boolean isFinal() {
+        return isFinal;
+    }
+
+    public String toFen() {
+        return position.toFen();
+    }
+}
@@ -0,0 +1,173 @@
+package chessmaster.server;
+
+import chessmaster.engine.Search;
+import chessmaster.engine.SearchLimits;
+import chessmaster.engine.SearchResult;
+import chessmaster.engine.TimeManager;
+import chessmaster.engine.TranspositionTable;
+import chessmaster.game.Position;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the CPU searches of every game on the server on a fixed number of threads, so that the
+ * number of games does not change how many cores are searching. Each thread keeps its own search,
+ * and all of them share one transposition table; positions from different games simply hash apart.
+ *
+ * <p>Requests beyond the thread count wait in a queue. When a request is taken from the queue its
+ * budget is set from the game's difficulty level and from the current load: time already spent
+ * waiting is taken off the time limit, and the longer the queue behind it, the shallower and
+ * shorter the search. Under overload, moves get weaker instead of slower.
+ */
+public class SearchScheduler implements AutoCloseable {
+
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 5;
+
+    /** Deepest search and most nodes at each difficulty level, from {@link #MIN_LEVEL} up. */
+    private static final int[] LEVEL_DEPTHS = {1, 2, 4, 6, SearchLimits.MAX_DEPTH};
+    private static final long[] LEVEL_NODES = {500, 5_000, 50_000, 500_000, Long.MAX_VALUE};
+    private static final int MIN_DEPTH = 1;
+    private static final long MIN_TIME_MILLIS = 1;
+
+    private final TranspositionTable table;
+    private final ThreadPoolExecutor threads;
+    private final ThreadLocal<Search> searches;
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder degradedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public SearchScheduler(int threadCount, int hashSizeMb) {
+        int count = Math.max(1, threadCount);
+        table = new TranspositionTable(hashSizeMb);
+        threads = new ThreadPoolExecutor(count, count, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "server-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        searches = ThreadLocal.withInitial(() -> new Search(table));
+    }
+
+    /**
+     * Clamps a difficulty level to the supported range.
+     */
+    public static int toLevel(int level) {
+        return Math.max(MIN_LEVEL, Math.min(level, MAX_LEVEL));
+    }
+
+    /**
+     * Queues a search and blocks until it completes.
+     *
+     * @param root Position to search. It is not modified.
+     * @param limits Most the game asks for; the search may be given less.
+     * @param level Difficulty level, from {@link #MIN_LEVEL} to {@link #MAX_LEVEL}.
+     * @return Result of the search.
+     */
+    public SearchResult search(Position root, SearchLimits limits, int level) {
+        long queuedTime = System.nanoTime();
+        maxQueueDepth.accumulateAndGet(threads.getQueue().size() + 1, Math::max);
+        return CompletableFuture.supplyAsync(() -> {
+            long waitNanos = System.nanoTime() - queuedTime;
+            requestCount.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            SearchLimits budget = createBudget(limits, toLevel(level), waitNanos / 1_000_000);
+            return searches.get().search(root, budget);
+        }, threads).join();
+    }
+
+    /**
+     * Works out the limits of a search that is about to start.
+     *
+     * @param requested Limits the game asked for.
+     * @param level Difficulty level.
+     * @param waitedMillis Time the request spent in the queue.
+     */
+    SearchLimits createBudget(SearchLimits requested, int level, long waitedMillis) {
+        // Every doubling of the queue, relative to the thread count, takes a ply off
+        double load = (double) threads.getQueue().size() / threads.getMaximumPoolSize();
+        int reduction = load < 1 ? 0 : 1 + (int) (Math.log(load) / Math.log(2));
+
+        int depth = Math.min(requested.getDepth(), LEVEL_DEPTHS[level - 1]);
+        long nodes = Math.min(requested.getNodes(), LEVEL_NODES[level - 1]);
+        SearchLimits budget = SearchLimits.depth(Math.max(MIN_DEPTH, depth - reduction))
+                .withNodes(Math.max(1, nodes >> Math.min(reduction, Long.SIZE - 1)))
+                .withMultiPv(requested.getMultiPv());
+
+        boolean isDegraded = reduction > 0;
+        TimeManager timeManager = requested.getTimeManager();
+        if (timeManager != null) {
+            long soft = scaleTime(timeManager.getSoftMillis(), waitedMillis, load);
+            long hard = scaleTime(timeManager.getHardMillis(), waitedMillis, load);
+            budget.withTimeManager(new TimeManager(soft, hard));
+            isDegraded |= hard < timeManager.getHardMillis();
+        } else if (requested.getTimeMillis() > 0) {
+            long time = scaleTime(requested.getTimeMillis(), waitedMillis, load);
+            budget.withTime(time);
+            isDegraded |= time < requested.getTimeMillis();
+        }
+        if (isDegraded) {
+            degradedCount.increment();
+        }
+        return budget;
+    }
+
+    /**
+     * Takes the time already waited off a time limit, then shares what is left with the queue.
+     */
+    private static long scaleTime(long millis, long waitedMillis, double load) {
+        return Math.max(MIN_TIME_MILLIS, (long) ((millis - waitedMillis) / (1 + load)));
+    }
+
+    /**
+     * Returns the number of searches waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return threads.getQueue().size();
+    }
+
+    /**
+     * Returns the largest number of searches that have waited at once, counting the one being queued.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Returns the number of searches started.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * Returns the number of searches given less than was asked for because of the load.
+     */
+    public long getDegradedCount() {
+        return degradedCount.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = requestCount.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    @Override
+    public void close() {
+        threads.shutdownNow();
+    }
+}
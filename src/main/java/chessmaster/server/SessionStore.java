@@ -0,0 +1,277 @@
+package chessmaster.server;
+
+import chessmaster.exceptions.LoadBoardException;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Game;
+import chessmaster.game.PackedPosition;
+import chessmaster.metrics.BoardStorageEvent;
+import chessmaster.metrics.Events;
+import chessmaster.storage.BoardSnapshot;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps the games of a server within a heap budget, in three tiers. The most recently used games
+ * stay in memory whole. When there are more than half the budget allows, the least recently used
+ * one is packed into a {@link PackedPosition}, some fifty times smaller, and its players and
+ * pieces are dropped. When the packed games fill the other half, the least recently used of them
+ * is written to disk as a {@link BoardSnapshot}. A game is rebuilt from its packed position, in
+ * memory or on disk, the next time it is asked for.
+ *
+ * <p>A game is kept under a numeric id and must only be used by one thread at a time, between
+ * {@link #get} and {@link #put}. While it is in use its board may be changing, so it is never
+ * packed then; the least recently used game not in use is packed instead, and the store may hold
+ * more whole games than its capacity while they are all in use. All methods are synchronized; the
+ * disk I/O they do is a single small file, so the lock is never held for long.
+ */
+public class SessionStore {
+
+    public static final String DEFAULT_DIRECTORY = "data/sessions";
+    public static final long DEFAULT_HEAP_BUDGET_BYTES = 64L << 20;
+
+    /** Heap taken by a game in memory: the board and its pieces, the players and their lists. */
+    public static final int GAME_FOOTPRINT_BYTES = 5 * 1024;
+    /** Heap taken by a packed game: the position, its map entry, table slot and boxed id. */
+    public static final int PACKED_FOOTPRINT_BYTES = PackedPosition.FOOTPRINT_BYTES + 72;
+
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int capacity;
+    private final int packedCapacity;
+    private final Map<Long, Game> games;
+    private final Map<Long, PackedPosition> packedGames;
+    /** Ids of the games between {@link #get} and {@link #put}. */
+    private final Set<Long> inUse = new HashSet<>();
+
+    private long hits;
+    private long packedHits;
+    private long misses;
+    private long spills;
+    private int spilledCount;
+
+    /**
+     * Creates a store, removing any snapshots left in the directory by an earlier server.
+     *
+     * @param directory Directory the snapshots are written to.
+     * @param heapBudgetBytes Heap the games in memory may take, whole or packed, which sets how many are kept.
+     * @throws IOException If the directory cannot be created or cleared.
+     */
+    public SessionStore(Path directory, long heapBudgetBytes) throws IOException {
+        this.directory = directory;
+        this.capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE, heapBudgetBytes / 2 / GAME_FOOTPRINT_BYTES));
+        this.packedCapacity = (int) Math.max(1,
+                Math.min(Integer.MAX_VALUE, heapBudgetBytes / 2 / PACKED_FOOTPRINT_BYTES));
+        this.games = new LinkedHashMap<>(16, 0.75f, true);
+        this.packedGames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PackedPosition> eldest) {
+                return size() > packedCapacity && spill(eldest.getKey(), eldest.getValue());
+            }
+        };
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "*" + SNAPSHOT_SUFFIX)) {
+            for (Path path : stale) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Returns a game, rebuilding it if it was packed or spilled.
+     *
+     * @param id Id the game was stored under.
+     * @param restorer Turns the board of a packed or spilled game back into a game.
+     * @return The game, or null if there is no game with this id.
+     * @throws LoadBoardException If the game was spilled but cannot be read back.
+     */
+    public synchronized Game get(long id, Function<ChessBoard, Game> restorer) throws LoadBoardException {
+        Game game = games.get(id);
+        if (game != null) {
+            hits++;
+            inUse.add(id);
+            return game;
+        }
+
+        PackedPosition position = packedGames.remove(id);
+        if (position != null) {
+            packedHits++;
+        } else {
+            position = read(id);
+            if (position == null) {
+                return null;
+            }
+            misses++;
+        }
+        game = restorer.apply(position.toChessBoard());
+        games.put(id, game);
+        inUse.add(id);
+        packLeastRecentlyUsed();
+        return game;
+    }
+
+    /**
+     * Packs the least recently used games not in use until no more are whole than the capacity allows.
+     */
+    private void packLeastRecentlyUsed() {
+        Iterator<Map.Entry<Long, Game>> entries = games.entrySet().iterator();
+        while (games.size() > capacity && entries.hasNext()) {
+            Map.Entry<Long, Game> entry = entries.next();
+            if (!inUse.contains(entry.getKey())) {
+                packedGames.put(entry.getKey(), entry.getValue().getPackedPosition());
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Reads a spilled game back from disk and deletes its snapshot.
+     *
+     * @return Its position, or null if the game was not spilled.
+     */
+    private PackedPosition read(long id) throws LoadBoardException {
+        Path path = getPath(id);
+        BoardStorageEvent event = new BoardStorageEvent();
+        event.begin();
+        byte[] snapshot;
+        try {
+            snapshot = Files.readAllBytes(path);
+            Files.delete(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new LoadBoardException();
+        }
+        spilledCount--;
+        Events.commit(event, e -> {
+            e.operation = BoardStorageEvent.LOAD;
+            e.path = path.toString();
+            e.bytes = snapshot.length;
+        });
+        return BoardSnapshot.decode(snapshot);
+    }
+
+    /**
+     * Stores a game, or marks it as just used if it is already in memory, and ends its use.
+     */
+    public synchronized void put(long id, Game game) {
+        inUse.remove(id);
+        if (!games.containsKey(id)) {
+            // A new game, or one put without being taken with get; any older copy is out of date
+            remove(id);
+        }
+        games.put(id, game);
+        packLeastRecentlyUsed();
+    }
+
+    /**
+     * Forgets a game, in memory or on disk.
+     */
+    public synchronized void remove(long id) {
+        inUse.remove(id);
+        if (games.remove(id) != null || packedGames.remove(id) != null) {
+            return;
+        }
+        try {
+            if (Files.deleteIfExists(getPath(id))) {
+                spilledCount--;
+            }
+        } catch (IOException e) {
+            // Left for the next server to clear away
+        }
+    }
+
+    /**
+     * Writes a packed game to disk.
+     *
+     * @return false if it could not be written, in which case it has to stay in memory.
+     */
+    private boolean spill(long id, PackedPosition position) {
+        BoardStorageEvent event = new BoardStorageEvent();
+        event.begin();
+        Path path = getPath(id);
+        try {
+            Files.write(path, BoardSnapshot.encode(position));
+        } catch (IOException e) {
+            return false;
+        }
+        spills++;
+        spilledCount++;
+        Events.commit(event, e -> {
+            e.operation = BoardStorageEvent.SAVE;
+            e.path = path.toString();
+            e.bytes = BoardSnapshot.SIZE;
+        });
+        return true;
+    }
+
+    private Path getPath(long id) {
+        return directory.resolve(id + SNAPSHOT_SUFFIX);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getPackedCapacity() {
+        return packedCapacity;
+    }
+
+    /**
+     * Returns the number of games held whole in memory.
+     */
+    public synchronized int getInMemoryCount() {
+        return games.size();
+    }
+
+    public synchronized int getPackedCount() {
+        return packedGames.size();
+    }
+
+    public synchronized int getSpilledCount() {
+        return spilledCount;
+    }
+
+    /**
+     * Returns the number of times a game was found whole in memory.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a game was rebuilt from its packed position in memory.
+     */
+    public synchronized long getPackedHits() {
+        return packedHits;
+    }
+
+    /**
+     * Returns the number of times a game had to be read back from disk.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSpills() {
+        return spills;
+    }
+
+    /**
+     * Returns the fraction of requests for a game that were served from memory, whole or packed.
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + packedHits + misses;
+        return requests == 0 ? 1 : (double) (hits + packedHits) / requests;
+    }
+}
@@ -0,0 +1,75 @@
+package chessmaster.storage;
+
+import chessmaster.exceptions.LoadBoardException;
+import chessmaster.game.PackedPosition;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+
+/**
+ * Binary form of a {@link PackedPosition}: a version byte, one nibble per square, then the side
+ * to move, castling rights, en passant square and the two move counters, 40 bytes in all.
+ */
+public class BoardSnapshot {
+
+    public static final int SIZE = 1 + 64 / 2 + 3 + 2 * 2;
+
+    private static final byte VERSION = 2;
+    private static final int STATE_OFFSET = 1 + 64 / 2;
+    private static final int ALL_CASTLING_RIGHTS = Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE
+            | Position.BLACK_KINGSIDE | Position.BLACK_QUEENSIDE;
+
+    /**
+     * Encodes a position.
+     */
+    public static byte[] encode(PackedPosition position) {
+        byte[] snapshot = new byte[SIZE];
+        snapshot[0] = VERSION;
+        for (int square = 0; square < 64; square++) {
+            snapshot[1 + square / 2] |= (byte) (position.getPiece(square) << (square % 2 * 4));
+        }
+        snapshot[STATE_OFFSET] = (byte) position.getSideToMove();
+        snapshot[STATE_OFFSET + 1] = (byte) position.getCastlingRights();
+        snapshot[STATE_OFFSET + 2] = (byte) position.getEnPassantSquare();
+        writeShort(snapshot, STATE_OFFSET + 3, position.getHalfMoveClock());
+        writeShort(snapshot, STATE_OFFSET + 5, position.getFullMoveNumber());
+        return snapshot;
+    }
+
+    /**
+     * Rebuilds a position from its snapshot.
+     *
+     * @throws LoadBoardException If the snapshot is not one written by {@link #encode}.
+     */
+    public static PackedPosition decode(byte[] snapshot) throws LoadBoardException {
+        if (snapshot.length != SIZE || snapshot[0] != VERSION) {
+            throw new LoadBoardException();
+        }
+        byte[] squares = new byte[64];
+        for (int square = 0; square < 64; square++) {
+            int piece = snapshot[1 + square / 2] >> (square % 2 * 4) & 0xF;
+            if (Position.typeOf(piece) > Position.KING || piece == Position.BLACK_FLAG) {
+                throw new LoadBoardException();
+            }
+            squares[square] = (byte) piece;
+        }
+        int sideToMove = snapshot[STATE_OFFSET];
+        int castlingRights = snapshot[STATE_OFFSET + 1];
+        int enPassantSquare = snapshot[STATE_OFFSET + 2];
+        if ((sideToMove != ChessPiece.WHITE && sideToMove != ChessPiece.BLACK)
+                || (castlingRights & ~ALL_CASTLING_RIGHTS) != 0 || enPassantSquare < Position.NO_SQUARE
+                || enPassantSquare >= 64) {
+            throw new LoadBoardException();
+        }
+        return new PackedPosition(squares, sideToMove, castlingRights, enPassantSquare,
+                readShort(snapshot, STATE_OFFSET + 3), readShort(snapshot, STATE_OFFSET + 5));
+    }
+
+    private static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+    }
+}
@@ -0,0 +1,39 @@
+package chessmaster.storage;
+
+/**
+ * Counts and timing of a finished PGN import.
+ */
+public class IngestSummary {
+
+    private final long gameCount;
+    private final long invalidGameCount;
+    private final long moveCount;
+    private final long elapsedNanos;
+
+    public IngestSummary(long gameCount, long invalidGameCount, long moveCount, long elapsedNanos) {
+        this.gameCount = gameCount;
+        this.invalidGameCount = invalidGameCount;
+        this.moveCount = moveCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    public long getInvalidGameCount() {
+        return invalidGameCount;
+    }
+
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : gameCount * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,76 @@
+package chessmaster.storage;
+
+import chessmaster.parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a move script one game at a time. A script holds what would be typed at the console:
+ * one move per line, such as "e2 e4" or "b7 b8 n" to under-promote, for both sides in turn. A game
+ * ends at an "abort" or "exit" line, or at the end of the file. Blank lines, comment lines starting
+ * with '#' and the console's other commands are skipped.
+ */
+public class MoveScriptReader implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader reader;
+
+    public MoveScriptReader(Path path) throws IOException {
+        this(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    public MoveScriptReader(Reader reader) {
+        this.reader = new BufferedReader(reader, READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the moves of the next game.
+     *
+     * @return Move lines of the game, trimmed, or null at the end of the file.
+     * @throws IOException If the underlying file cannot be read.
+     */
+    public List<String> nextGame() throws IOException {
+        List<String> moves = new ArrayList<>();
+        String line = reader.readLine();
+        while (line != null) {
+            line = line.trim();
+            if (isMove(line)) {
+                moves.add(line);
+            } else if (Parser.isUserInputAbort(line) || Parser.isUserInputExit(line)) {
+                return moves;
+            } else if (!line.isEmpty() && line.charAt(0) != '#' && !isCommand(line)) {
+                // Not a move either, but left for the replay to reject
+                moves.add(line);
+            }
+            line = reader.readLine();
+        }
+        return moves.isEmpty() ? null : moves;
+    }
+
+    /**
+     * Returns true for lines that start like a move, e.g. "e2", which skips the command checks.
+     */
+    private static boolean isMove(String line) {
+        return line.length() >= 2 && Character.isLetter(line.charAt(0)) && Character.isDigit(line.charAt(1));
+    }
+
+    private static boolean isCommand(String line) {
+        return Parser.isUserInputHint(line) || Parser.isUserInputExplore(line) || Parser.isUserInputAnalyse(line)
+                || Parser.isUserInputAnsi(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
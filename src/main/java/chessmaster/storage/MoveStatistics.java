@@ -0,0 +1,47 @@
+package chessmaster.storage;
+
+/**
+ * How often a move was played in a position and how those games ended.
+ */
+public class MoveStatistics {
+
+    private final int move;
+    private final long whiteWins;
+    private final long draws;
+    private final long blackWins;
+
+    public MoveStatistics(int move, long whiteWins, long draws, long blackWins) {
+        this.move = move;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public long getWhiteWins() {
+        return whiteWins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getBlackWins() {
+        return blackWins;
+    }
+
+    public long getGameCount() {
+        return whiteWins + draws + blackWins;
+    }
+
+    /**
+     * Returns the percentage of games that ended with the given result count.
+     */
+    public int getPercentage(long resultCount) {
+        long games = getGameCount();
+        return games == 0 ? 0 : (int) (resultCount * 100 / games);
+    }
+}
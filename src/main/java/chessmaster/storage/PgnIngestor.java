@@ -0,0 +1,123 @@
+package chessmaster.storage;
+
+import chessmaster.exceptions.ParsePgnException;
+import chessmaster.game.GameRecord;
+import chessmaster.parser.PgnParser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Imports PGN collections in parallel. The calling thread splits the file into games with a
+ * {@link PgnReader} and hands them to a pool of workers through a bounded queue, so reading
+ * blocks whenever the workers fall behind and memory use does not depend on the file size.
+ * Each worker parses and validates games with its own {@link PgnParser}.
+ */
+public class PgnIngestor {
+
+    public static final int DEFAULT_QUEUE_CAPACITY_PER_WORKER = 64;
+
+    /** Marks the end of the input for one worker. Compared by identity. */
+    private static final String END_OF_INPUT = new String("");
+
+    private final int workerCount;
+    private final int queueCapacity;
+
+    public PgnIngestor(int workerCount) {
+        this(workerCount, workerCount * DEFAULT_QUEUE_CAPACITY_PER_WORKER);
+    }
+
+    public PgnIngestor(int workerCount, int queueCapacity) {
+        assert workerCount > 0 : "At least one worker is needed";
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns a worker count that leaves one core for the reading thread.
+     */
+    public static int getDefaultWorkerCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Reads, parses and validates every game of a PGN file. Games that fail to parse are
+     * counted and skipped.
+     *
+     * @param path PGN file to import.
+     * @param consumer Receives each valid game. It is called from the worker threads and must be thread-safe.
+     * @return Summary of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public IngestSummary ingest(Path path, Consumer<GameRecord> consumer) throws IOException {
+        BlockingQueue<String> gameTexts = new ArrayBlockingQueue<>(queueCapacity);
+        LongAdder gameCount = new LongAdder();
+        LongAdder invalidCount = new LongAdder();
+        LongAdder moveCount = new LongAdder();
+        AtomicReference<RuntimeException> consumerFailure = new AtomicReference<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(() -> {
+                PgnParser parser = new PgnParser();
+                String gameText = takeGame(gameTexts);
+                while (gameText != END_OF_INPUT) {
+                    try {
+                        GameRecord game = parser.parseGame(gameText);
+                        gameCount.increment();
+                        moveCount.add(game.getMoves().length);
+                        consumer.accept(game);
+                    } catch (ParsePgnException e) {
+                        invalidCount.increment();
+                    } catch (RuntimeException e) {
+                        consumerFailure.compareAndSet(null, e);
+                    }
+                    gameText = takeGame(gameTexts);
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        try (PgnReader reader = new PgnReader(path)) {
+            String gameText = reader.nextGame();
+            while (gameText != null) {
+                gameTexts.put(gameText);
+                gameText = reader.nextGame();
+            }
+            for (int i = 0; i < workerCount; i++) {
+                gameTexts.put(END_OF_INPUT);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if (consumerFailure.get() != null) {
+            throw consumerFailure.get();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        return new IngestSummary(gameCount.sum(), invalidCount.sum(), moveCount.sum(), elapsedNanos);
+    }
+
+    private static String takeGame(BlockingQueue<String> gameTexts) {
+        try {
+            return gameTexts.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return END_OF_INPUT;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package chessmaster.storage;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams a PGN file one game at a time. Only the text of the current game is held in
+ * memory, so files of any size can be read. A new game starts at the first tag pair
+ * line that follows movetext.
+ */
+public class PgnReader implements Closeable {
+
+    /** Games longer than this are cut short and will fail validation instead of growing the heap. */
+    private static final int MAX_GAME_LENGTH = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader reader;
+    private String pendingLine;
+
+    public PgnReader(Path path) throws IOException {
+        this(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    public PgnReader(Reader reader) {
+        this.reader = new BufferedReader(reader, READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the text of the next game.
+     *
+     * @return Text of the game including its tag pairs, or null at the end of the file.
+     * @throws IOException If the underlying file cannot be read.
+     */
+    public String nextGame() throws IOException {
+        StringBuilder game = new StringBuilder();
+        boolean hasMoveText = false;
+        boolean hasContent = false;
+
+        String line = pendingLine != null ? pendingLine : reader.readLine();
+        pendingLine = null;
+        while (line != null) {
+            boolean isTagLine = line.startsWith("[");
+            if (isTagLine && hasMoveText) {
+                pendingLine = line;
+                break;
+            }
+            if (!line.isBlank()) {
+                hasContent = true;
+                hasMoveText |= !isTagLine;
+            }
+            if (game.length() < MAX_GAME_LENGTH) {
+                game.append(line).append('\n');
+            }
+            line = reader.readLine();
+        }
+
+        return hasContent ? game.toString() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
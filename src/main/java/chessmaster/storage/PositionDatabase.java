@@ -0,0 +1,367 @@
+package chessmaster.storage;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.game.GameRecord;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.game.Zobrist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opening explorer index from (position, move) pairs to game results, stored off-heap so that
+ * hundreds of millions of entries put no load on the garbage collector.
+ *
+ * <p>The table uses open addressing with linear probing over fixed 24 byte entries:
+ * an 8 byte tag (hash of the position's Zobrist key, without the en passant square, and the move),
+ * the 4 byte move and three 4 byte counters for white wins, draws and black wins. Entries are claimed with a
+ * compare-and-set on the tag and counters are updated atomically, so games can be added from
+ * many threads at once. The table lives either in direct memory or in a memory-mapped file,
+ * split into segments because a single buffer is limited to 2 GB.
+ */
+public class PositionDatabase implements Closeable {
+
+    public static final int DEFAULT_MAX_PLY = 40;
+
+    /** "CHEXPLR2"; files of the first version keyed positions with their en passant square. */
+    private static final long MAGIC = 0x43484558504c5232L;
+    private static final int HEADER_BYTES = 64;
+    private static final int ENTRY_BYTES = 24;
+    /** Entries per segment as a power of two, keeping a segment within a buffer's 2 GB. */
+    private static final int DEFAULT_SEGMENT_SHIFT = 24;
+
+    private static final int TAG_OFFSET = 0;
+    private static final int MOVE_OFFSET = 8;
+    private static final int COUNTS_OFFSET = 12;
+    private static final int WHITE_WIN = 0;
+    private static final int DRAW = 1;
+    private static final int BLACK_WIN = 2;
+
+    /** Proportion of entries that may be filled before inserts are refused, as probe chains grow quickly. */
+    private static final double MAX_LOAD_FACTOR = 0.9;
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long capacity;
+    private final long mask;
+    private final FileChannel channel;
+    /** Header of a file mapped for writing, or null if the table is in memory or read-only. */
+    private final MappedByteBuffer header;
+    private final LongAdder size = new LongAdder();
+
+    private PositionDatabase(ByteBuffer[] segments, int segmentShift, long capacity, FileChannel channel,
+            MappedByteBuffer header, long initialSize) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.channel = channel;
+        this.header = header;
+        this.size.add(initialSize);
+    }
+
+    /**
+     * Creates an empty database in direct (off-heap) memory.
+     *
+     * @param capacity Number of entries, rounded up to a power of two.
+     * @return Empty database.
+     */
+    public static PositionDatabase createInMemory(long capacity) {
+        return createInMemory(capacity, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Creates an empty database in direct memory with segments of {@code 1 << segmentShift} entries.
+     */
+    static PositionDatabase createInMemory(long capacity, int segmentShift) {
+        long entries = roundUpToPowerOfTwo(capacity);
+        ByteBuffer[] segments = new ByteBuffer[getSegmentCount(entries, segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+            int segmentEntries = (int) Math.min(entries, 1L << segmentShift);
+            segments[i] = ByteBuffer.allocateDirect(segmentEntries * ENTRY_BYTES);
+        }
+        return new PositionDatabase(segments, segmentShift, entries, null, null, 0);
+    }
+
+    /**
+     * Opens a database backed by a memory-mapped file, creating the file if it does not exist.
+     * The operating system pages the table in and out, so it may be larger than the heap.
+     *
+     * @param path Database file.
+     * @param capacity Number of entries of a new file, rounded up to a power of two. Ignored if the file exists.
+     * @return The mapped database.
+     * @throws IOException If the file cannot be mapped or is not a position database.
+     */
+    public static PositionDatabase openMapped(Path path, long capacity) throws IOException {
+        return openMapped(path, capacity, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Opens an existing database file for lookups only. The file is mapped read-only, so it is
+     * never written to, and games must not be added.
+     *
+     * @param path Database file.
+     * @return The mapped database.
+     * @throws IOException If the file cannot be mapped or is not a position database.
+     */
+    public static PositionDatabase openReadOnly(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException("Not a position database: " + path);
+            }
+            long entries = header.getLong(8);
+            ByteBuffer[] segments = mapSegments(channel, FileChannel.MapMode.READ_ONLY, entries, DEFAULT_SEGMENT_SHIFT);
+            return new PositionDatabase(segments, DEFAULT_SEGMENT_SHIFT, entries, channel, null, header.getLong(16));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a database backed by a memory-mapped file with segments of {@code 1 << segmentShift}
+     * entries. The segments are laid out one after another, so the file does not depend on their size.
+     */
+    static PositionDatabase openMapped(Path path, long capacity, int segmentShift) throws IOException {
+        boolean isNew = !Files.exists(path) || Files.size(path) == 0;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        long entries;
+        long initialSize;
+        if (isNew) {
+            entries = roundUpToPowerOfTwo(capacity);
+            initialSize = 0;
+            header.putLong(0, MAGIC);
+            header.putLong(8, entries);
+            header.putLong(16, 0);
+        } else {
+            if (header.getLong(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a position database: " + path);
+            }
+            entries = header.getLong(8);
+            initialSize = header.getLong(16);
+        }
+
+        ByteBuffer[] segments = mapSegments(channel, FileChannel.MapMode.READ_WRITE, entries, segmentShift);
+        return new PositionDatabase(segments, segmentShift, entries, channel, header, initialSize);
+    }
+
+    private static ByteBuffer[] mapSegments(FileChannel channel, FileChannel.MapMode mode, long entries,
+            int segmentShift) throws IOException {
+        long entriesPerSegment = 1L << segmentShift;
+        ByteBuffer[] segments = new ByteBuffer[getSegmentCount(entries, segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+            long segmentBytes = Math.min(entries, entriesPerSegment) * ENTRY_BYTES;
+            long offset = HEADER_BYTES + i * entriesPerSegment * ENTRY_BYTES;
+            segments[i] = channel.map(mode, offset, segmentBytes);
+        }
+        return segments;
+    }
+
+    private static long roundUpToPowerOfTwo(long value) {
+        long result = Long.highestOneBit(Math.max(2, value));
+        return result < value ? result << 1 : result;
+    }
+
+    private static int getSegmentCount(long entries, int segmentShift) {
+        return (int) ((entries + (1L << segmentShift) - 1) >>> segmentShift);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getSize() {
+        return size.sum();
+    }
+
+    /**
+     * Adds the first {@code maxPly} moves of a game. Games without a decisive or drawn result are skipped.
+     * Safe to call from several threads at once.
+     *
+     * @param game Game to add.
+     * @param maxPly Number of half moves from the start of the game to index.
+     */
+    public void addGame(GameRecord game, int maxPly) {
+        int result = getResultIndex(game.getResult());
+        if (result == -1) {
+            return;
+        }
+
+        Position position;
+        try {
+            position = Position.fromFen(game.getStartingFen());
+        } catch (ParseFenException e) {
+            return;
+        }
+        int[] moves = game.getMoves();
+        int plies = Math.min(maxPly, moves.length);
+        for (int i = 0; i < plies; i++) {
+            record(getPositionKey(position), moves[i], result);
+            position.makeMove(moves[i]);
+        }
+    }
+
+    private static int getResultIndex(String result) {
+        switch (result) {
+        case GameRecord.RESULT_WHITE_WIN:
+            return WHITE_WIN;
+        case GameRecord.RESULT_DRAW:
+            return DRAW;
+        case GameRecord.RESULT_BLACK_WIN:
+            return BLACK_WIN;
+        default:
+            return -1;
+        }
+    }
+
+    private void record(long positionKey, int move, int result) {
+        long tag = getTag(positionKey, move);
+        long index = tag & mask;
+        for (long probes = 0; probes < capacity; probes++) {
+            ByteBuffer segment = segments[(int) (index >>> segmentShift)];
+            int offset = getOffset(index);
+            long existingTag = (long) LONG_VIEW.getVolatile(segment, offset + TAG_OFFSET);
+
+            if (existingTag == 0) {
+                if (size.sum() >= capacity * MAX_LOAD_FACTOR) {
+                    throw new IllegalStateException("Position database is full");
+                }
+                if (LONG_VIEW.compareAndSet(segment, offset + TAG_OFFSET, 0L, tag)) {
+                    INT_VIEW.setVolatile(segment, offset + MOVE_OFFSET, getStoredMove(move));
+                    size.increment();
+                    existingTag = tag;
+                } else {
+                    existingTag = (long) LONG_VIEW.getVolatile(segment, offset + TAG_OFFSET);
+                }
+            }
+
+            if (existingTag == tag) {
+                INT_VIEW.getAndAdd(segment, offset + COUNTS_OFFSET + result * 4, 1);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        throw new IllegalStateException("Position database is full");
+    }
+
+    /**
+     * Looks up the statistics of every legal move in a position.
+     *
+     * @param position Position to look up.
+     * @return Statistics of the moves that were played in the position, most played first.
+     */
+    public List<MoveStatistics> query(Position position) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateLegalMoves(moves);
+        long positionKey = getPositionKey(position);
+        List<MoveStatistics> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MoveStatistics statistics = lookup(positionKey, moves[i]);
+            if (statistics != null) {
+                results.add(statistics);
+            }
+        }
+        results.sort(Comparator.comparingLong(MoveStatistics::getGameCount).reversed());
+        return results;
+    }
+
+    private MoveStatistics lookup(long positionKey, int move) {
+        long tag = getTag(positionKey, move);
+        long index = tag & mask;
+        for (long probes = 0; probes < capacity; probes++) {
+            ByteBuffer segment = segments[(int) (index >>> segmentShift)];
+            int offset = getOffset(index);
+            long existingTag = (long) LONG_VIEW.getVolatile(segment, offset + TAG_OFFSET);
+            if (existingTag == 0) {
+                return null;
+            }
+            if (existingTag == tag) {
+                int whiteWins = (int) INT_VIEW.getVolatile(segment, offset + COUNTS_OFFSET + WHITE_WIN * 4);
+                int draws = (int) INT_VIEW.getVolatile(segment, offset + COUNTS_OFFSET + DRAW * 4);
+                int blackWins = (int) INT_VIEW.getVolatile(segment, offset + COUNTS_OFFSET + BLACK_WIN * 4);
+                return new MoveStatistics(move, whiteWins, draws, blackWins);
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the byte offset of an entry within its segment.
+     */
+    private int getOffset(long index) {
+        return (int) (index & ((1L << segmentShift) - 1)) * ENTRY_BYTES;
+    }
+
+    /**
+     * Returns the key a position is indexed under, its Zobrist key without the en passant square.
+     * A replayed game has one after every double push, capturable or not, while a position rebuilt
+     * from a {@link chessmaster.game.ChessBoard} to query the explorer never has one.
+     */
+    private static long getPositionKey(Position position) {
+        return position.getKey() ^ Zobrist.enPassant(position.getEnPassantSquare());
+    }
+
+    /**
+     * Combines a position key and a move into a non-zero tag that identifies a table entry.
+     */
+    private static long getTag(long positionKey, int move) {
+        long tag = Zobrist.mix(positionKey ^ (getStoredMove(move) * 0x9E3779B97F4A7C15L));
+        return tag == 0 ? 1 : tag;
+    }
+
+    /**
+     * Returns the part of a move that identifies it within a position (squares and promotion).
+     */
+    private static int getStoredMove(int move) {
+        return MoveCode.of(MoveCode.from(move), MoveCode.to(move), MoveCode.promotion(move), 0);
+    }
+
+    /**
+     * Writes the entry count back to the file header and flushes a mapped database to disk. A
+     * read-only database only has its file closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        if (header == null) {
+            channel.close();
+            return;
+        }
+        header.putLong(16, size.sum());
+        header.force();
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+        channel.close();
+    }
+}
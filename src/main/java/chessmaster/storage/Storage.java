@@ -5,6 +5,8 @@ import chessmaster.exceptions.SaveBoardException;
 import chessmaster.game.ChessBoard;
 import chessmaster.game.ChessTile;
 import chessmaster.game.Coordinate;
+import chessmaster.metrics.BoardStorageEvent;
+import chessmaster.metrics.Events;
 import chessmaster.parser.Parser;
 import chessmaster.pieces.ChessPiece;
 
@@ -26,6 +28,8 @@ public class Storage {
      * Method to save board to file
      */
     public void saveBoard(ChessBoard board) throws SaveBoardException {
+        BoardStorageEvent event = new BoardStorageEvent();
+        event.begin();
         try (FileWriter fileWriter = new FileWriter(filePath)){
             for (int row = 0; row < 8; row++) {
                 for (int col = 0; col < 8; col++) {
@@ -41,9 +45,16 @@ public class Storage {
         } catch (IOException e) {
             throw new SaveBoardException();
         }
+        Events.commit(event, e -> {
+            e.operation = BoardStorageEvent.SAVE;
+            e.path = filePath;
+            e.bytes = new File(filePath).length();
+        });
     }
 
     public ChessBoard loadBoard() throws LoadBoardException {
+        BoardStorageEvent event = new BoardStorageEvent();
+        event.begin();
         File file = new File(filePath);
         ChessBoard chessBoard = new ChessBoard();
         ChessTile[][] boardTiles;
@@ -63,26 +74,28 @@ public class Storage {
             }
             return chessBoard;
         }
-        try {
-            Scanner fileScanner = new Scanner(file);
+        try (Scanner fileScanner = new Scanner(file)) {
             boardTiles = new ChessTile[ChessBoard.SIZE][ChessBoard.SIZE];
 
-            while (fileScanner.hasNext()) {
-                for (int row = 0; row < ChessBoard.SIZE; row++) {
-                    String tileRow = fileScanner.nextLine();
-                    for (int col = 0; col < ChessBoard.SIZE; col++) {
-                        String pieceString = tileRow.substring(col, col + 1);
-                        if (pieceString.equals(" ")) {
-                            boardTiles[col][row] = new ChessTile();
-                        } else {
-                            ChessPiece piece = Parser.parseChessPiece(pieceString, row + 1, col + 1);
-                            boardTiles[col][row] = new ChessTile(piece);
-                        }
+            for (int row = 0; row < ChessBoard.SIZE; row++) {
+                // A short or blank file, e.g. one cut off while being saved, does not hold a board
+                if (!fileScanner.hasNextLine()) {
+                    throw new LoadBoardException();
+                }
+                String tileRow = fileScanner.nextLine();
+                if (tileRow.length() < ChessBoard.SIZE) {
+                    throw new LoadBoardException();
+                }
+                for (int col = 0; col < ChessBoard.SIZE; col++) {
+                    String pieceString = tileRow.substring(col, col + 1);
+                    if (pieceString.equals(" ")) {
+                        boardTiles[col][row] = new ChessTile();
+                    } else {
+                        ChessPiece piece = Parser.parseChessPiece(pieceString, row + 1, col + 1);
+                        boardTiles[col][row] = new ChessTile(piece);
                     }
                 }
             }
-
-            fileScanner.close();
         } catch (FileNotFoundException e) {
             throw new LoadBoardException();
         }
@@ -91,6 +104,11 @@ public class Storage {
                 chessBoard.setTile(col, row, boardTiles[col][row]);
             }
         }
+        Events.commit(event, e -> {
+            e.operation = BoardStorageEvent.LOAD;
+            e.path = filePath;
+            e.bytes = new File(filePath).length();
+        });
         return chessBoard;
     }
 }
@@ -0,0 +1,125 @@
+package chessmaster.tournament;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starting positions for tournament games. Each opening is played twice, once with each engine
+ * as white, so that an unbalanced opening favours neither engine.
+ */
+public class OpeningSuite {
+
+    /** Common openings as moves from the starting position, in long algebraic notation. */
+    private static final String[] BUILT_IN_OPENINGS = {
+        "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6",
+        "e2e4 e7e5 g1f3 b8c6 f1c4 f8c5",
+        "e2e4 e7e5 g1f3 g8f6 f3e5 d7d6",
+        "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4",
+        "e2e4 c7c5 g1f3 b8c6 d2d4 c5d4",
+        "e2e4 c7c5 b1c3 b8c6 g2g3 g7g6",
+        "e2e4 e7e6 d2d4 d7d5 b1c3 g8f6",
+        "e2e4 c7c6 d2d4 d7d5 e4e5 c8f5",
+        "e2e4 d7d5 e4d5 d8d5 b1c3 d5a5",
+        "e2e4 d7d6 d2d4 g8f6 b1c3 g7g6",
+        "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6",
+        "d2d4 d7d5 c2c4 c7c6 g1f3 g8f6",
+        "d2d4 d7d5 c2c4 d5c4 g1f3 g8f6",
+        "d2d4 g8f6 c2c4 e7e6 b1c3 f8b4",
+        "d2d4 g8f6 c2c4 g7g6 b1c3 f8g7",
+        "d2d4 g8f6 c2c4 e7e6 g1f3 b7b6",
+        "d2d4 g8f6 c2c4 c7c5 d4d5 e7e6",
+        "d2d4 f7f5 g2g3 g8f6 f1g2 e7e6",
+        "c2c4 e7e5 b1c3 g8f6 g1f3 b8c6",
+        "c2c4 c7c5 g1f3 g8f6 b1c3 b8c6",
+        "g1f3 d7d5 g2g3 g8f6 f1g2 e7e6",
+        "g1f3 g8f6 c2c4 g7g6 b1c3 d7d5",
+        "e2e4 g7g6 d2d4 f8g7 b1c3 d7d6",
+        "d2d4 e7e6 c2c4 f8b4 c1d2 a7a5",
+    };
+
+    private final List<Position> openings;
+
+    private OpeningSuite(List<Position> openings) {
+        this.openings = openings;
+    }
+
+    /**
+     * Returns the built-in openings.
+     */
+    public static OpeningSuite builtIn() {
+        List<Position> openings = new ArrayList<>(BUILT_IN_OPENINGS.length);
+        for (String moves : BUILT_IN_OPENINGS) {
+            Position position = Position.startingPosition();
+            for (String moveText : moves.split(" ")) {
+                int move = position.findUciMove(moveText);
+                if (move == MoveCode.NONE) {
+                    throw new IllegalStateException("Illegal move " + moveText + " in built-in opening " + moves);
+                }
+                position.makeMove(move);
+            }
+            openings.add(position);
+        }
+        return new OpeningSuite(openings);
+    }
+
+    /**
+     * Reads openings from a file with one FEN (or EPD) position per line.
+     * Blank lines and lines starting with '#' are skipped.
+     *
+     * @param path File to read.
+     * @return Openings read.
+     * @throws IOException If the file cannot be read.
+     * @throws ParseFenException If a line is not a valid position.
+     */
+    public static OpeningSuite load(Path path) throws IOException, ParseFenException {
+        List<Position> openings = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    openings.add(Position.fromFen(firstFields(trimmed, 6)));
+                }
+                line = reader.readLine();
+            }
+        }
+        if (openings.isEmpty()) {
+            throw new ParseFenException();
+        }
+        return new OpeningSuite(openings);
+    }
+
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * Returns a copy of an opening position, cycling through the suite.
+     */
+    public Position get(int index) {
+        return openings.get(index % openings.size()).copy();
+    }
+
+    /**
+     * Returns at most the first {@code count} space-separated fields, dropping EPD operations.
+     */
+    private static String firstFields(String line, int count) {
+        String[] fields = line.split("\\s+");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(count, fields.length); i++) {
+            if (i >= 4 && !fields[i].matches("\\d+")) {
+                break;
+            }
+            builder.append(i == 0 ? "" : " ").append(fields[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package chessmaster.tournament;
+
+/**
+ * Sequential probability ratio test deciding between two hypotheses about the Elo difference
+ * between two engines: elo0 (usually "no improvement") and elo1 (the improvement hoped for).
+ * The log-likelihood ratio uses the normal approximation to the game score distribution,
+ * so draws are accounted for.
+ */
+public class Sprt {
+
+    public static final double DEFAULT_ELO0 = 0;
+    public static final double DEFAULT_ELO1 = 10;
+    public static final double DEFAULT_ALPHA = 0.05;
+    public static final double DEFAULT_BETA = 0.05;
+
+    /**
+     * Outcome of the test so far.
+     */
+    public enum Decision {
+        CONTINUE,
+        ACCEPT_H0,
+        ACCEPT_H1
+    }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    public Sprt() {
+        this(DEFAULT_ELO0, DEFAULT_ELO1, DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * Creates a test.
+     *
+     * @param elo0 Elo difference of the null hypothesis.
+     * @param elo1 Elo difference of the alternative hypothesis.
+     * @param alpha Probability of accepting H1 when H0 is true.
+     * @param beta Probability of accepting H0 when H1 is true.
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0 given the results so far.
+     */
+    public double getLogLikelihoodRatio(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if (wins == 0 || losses == 0 || games == 0) {
+            // The variance estimate is meaningless until both results have occurred
+            return 0;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    public Decision decide(long wins, long draws, long losses) {
+        double llr = getLogLikelihoodRatio(wins, draws, losses);
+        if (llr >= upperBound) {
+            return Decision.ACCEPT_H1;
+        } else if (llr <= lowerBound) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * Returns the expected score of a player that is the given number of Elo points stronger.
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Returns the Elo difference matching an expected score, the inverse of {@link #expectedScore}.
+     */
+    public static double eloDifference(double score) {
+        double clamped = Math.max(1e-6, Math.min(1 - 1e-6, score));
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+}
@@ -0,0 +1,191 @@
+package chessmaster.tournament;
+
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.Search;
+import chessmaster.engine.SearchResult;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Plays games between two engine configurations until a sequential probability ratio test
+ * decides which is stronger, or a game limit is reached. Games are played concurrently, one per
+ * worker thread; each worker searches single-threaded, so the pool size bounds the number of
+ * busy cores.
+ *
+ * <p>Games are played on {@link Position}, which knows the full rules, with the same search the
+ * CPU player uses. Hopeless positions are adjudicated as resignations and dead-level ones as
+ * draws, which saves most of the time otherwise spent on long endgames.
+ */
+public class Tournament {
+
+    public static final int DEFAULT_MAX_GAMES = 2000;
+
+    private static final int MAX_PLIES = 400;
+    /** Score, from the winner's point of view, at which the loser resigns. */
+    private static final int RESIGN_SCORE = 700;
+    private static final int RESIGN_PLIES = 6;
+    /** Both engines must see a score this close to zero for DRAW_PLIES plies after DRAW_MIN_PLY. */
+    private static final int DRAW_SCORE = 10;
+    private static final int DRAW_PLIES = 12;
+    private static final int DRAW_MIN_PLY = 80;
+
+    private static final int WHITE_WINS = 1;
+    private static final int DRAW = 0;
+    private static final int BLACK_WINS = -1;
+    private static final int ABORTED = Integer.MIN_VALUE;
+
+    private final EngineConfig first;
+    private final EngineConfig second;
+    private final OpeningSuite openings;
+    private final Sprt sprt;
+    private final int concurrency;
+    private final int maxGames;
+
+    /** Per worker: a search for each engine, reused from game to game. */
+    private final ThreadLocal<Search[]> searches;
+
+    public Tournament(EngineConfig first, EngineConfig second, OpeningSuite openings, Sprt sprt,
+            int concurrency, int maxGames) {
+        this.first = first;
+        this.second = second;
+        this.openings = openings;
+        this.sprt = sprt;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxGames = maxGames;
+        this.searches = ThreadLocal.withInitial(() -> new Search[] {first.createSearch(), second.createSearch()});
+    }
+
+    public static int getDefaultConcurrency() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Plays games until the test reaches a decision or the game limit is reached.
+     *
+     * @param progress Told about the results after every game; called from the calling thread.
+     * @return Final results.
+     * @throws InterruptedException If the calling thread is interrupted.
+     */
+    public TournamentResult run(Consumer<TournamentResult> progress) throws InterruptedException {
+        long startTime = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CompletionService<Integer> games = new ExecutorCompletionService<>(workers);
+        long wins = 0;
+        long draws = 0;
+        long losses = 0;
+        int submitted = 0;
+        int inFlight = 0;
+        TournamentResult result = new TournamentResult(0, 0, 0, sprt, 0);
+        try {
+            // Keep every worker busy, with a few games queued, without queueing all of them up front
+            while (submitted < maxGames && inFlight < concurrency * 2) {
+                submitGame(games, submitted++);
+                inFlight++;
+            }
+            while (inFlight > 0) {
+                int score = games.take().get();
+                inFlight--;
+                if (score > 0) {
+                    wins++;
+                } else if (score < 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+                result = new TournamentResult(wins, draws, losses, sprt, System.nanoTime() - startTime);
+                progress.accept(result);
+                if (result.getDecision() != Sprt.Decision.CONTINUE) {
+                    break;
+                }
+                if (submitted < maxGames) {
+                    submitGame(games, submitted++);
+                    inFlight++;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Submits a game. Games come in pairs playing the same opening with colours reversed.
+     */
+    private void submitGame(CompletionService<Integer> games, int index) {
+        Position opening = openings.get(index / 2);
+        boolean isFirstWhite = index % 2 == 0;
+        games.submit(() -> {
+            Search[] pair = searches.get();
+            Search white = isFirstWhite ? pair[0] : pair[1];
+            Search black = isFirstWhite ? pair[1] : pair[0];
+            EngineConfig whiteConfig = isFirstWhite ? first : second;
+            EngineConfig blackConfig = isFirstWhite ? second : first;
+            int outcome = playGame(opening, white, whiteConfig, black, blackConfig);
+            if (outcome == ABORTED) {
+                // Only happens when the tournament has been decided and the pool is shut down
+                return DRAW;
+            }
+            return isFirstWhite ? outcome : -outcome;
+        });
+    }
+
+    /**
+     * Plays a single game.
+     *
+     * @return {@link #WHITE_WINS}, {@link #DRAW}, {@link #BLACK_WINS} or {@link #ABORTED} if interrupted.
+     */
+    private static int playGame(Position position, Search white, EngineConfig whiteConfig, Search black,
+            EngineConfig blackConfig) {
+        white.getTable().clear();
+        black.getTable().clear();
+        int resignPlies = 0;
+        int resignWinner = DRAW;
+        int drawPlies = 0;
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return ABORTED;
+            }
+            switch (position.getGameState()) {
+            case ONGOING:
+                break;
+            case CHECKMATE:
+                return position.getSideToMove() == ChessPiece.WHITE ? BLACK_WINS : WHITE_WINS;
+            default:
+                return DRAW;
+            }
+
+            boolean isWhiteToMove = position.getSideToMove() == ChessPiece.WHITE;
+            Search search = isWhiteToMove ? white : black;
+            EngineConfig config = isWhiteToMove ? whiteConfig : blackConfig;
+            SearchResult result = search.search(position, config.createLimits());
+            int whiteScore = isWhiteToMove ? result.getScore() : -result.getScore();
+
+            int leader = whiteScore >= RESIGN_SCORE ? WHITE_WINS : whiteScore <= -RESIGN_SCORE ? BLACK_WINS : DRAW;
+            if (leader != DRAW && leader == resignWinner) {
+                resignPlies++;
+            } else {
+                resignPlies = leader == DRAW ? 0 : 1;
+                resignWinner = leader;
+            }
+            if (resignPlies >= RESIGN_PLIES) {
+                return resignWinner;
+            }
+            drawPlies = ply >= DRAW_MIN_PLY && Math.abs(whiteScore) <= DRAW_SCORE ? drawPlies + 1 : 0;
+            if (drawPlies >= DRAW_PLIES) {
+                return DRAW;
+            }
+
+            position.makeMove(result.getBestMove());
+        }
+        return DRAW;
+    }
+}
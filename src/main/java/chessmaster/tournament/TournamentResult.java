@@ -0,0 +1,81 @@
+package chessmaster.tournament;
+
+/**
+ * Results of a tournament so far, counted from the first engine's point of view.
+ */
+public class TournamentResult {
+
+    /** Number of standard deviations either side of the Elo estimate covering 95% of outcomes. */
+    private static final double CONFIDENCE_95 = 1.96;
+
+    private final long wins;
+    private final long draws;
+    private final long losses;
+    private final double logLikelihoodRatio;
+    private final Sprt.Decision decision;
+    private final long elapsedNanos;
+
+    public TournamentResult(long wins, long draws, long losses, Sprt sprt, long elapsedNanos) {
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+        this.logLikelihoodRatio = sprt.getLogLikelihoodRatio(wins, draws, losses);
+        this.decision = sprt.decide(wins, draws, losses);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public long getGameCount() {
+        return wins + draws + losses;
+    }
+
+    public double getScore() {
+        long games = getGameCount();
+        return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Returns the estimated Elo difference, positive if the first engine is stronger.
+     */
+    public double getElo() {
+        return Sprt.eloDifference(getScore());
+    }
+
+    /**
+     * Returns half the width of the 95% confidence interval of the Elo difference.
+     */
+    public double getEloErrorMargin() {
+        long games = getGameCount();
+        if (games == 0) {
+            return 0;
+        }
+        double score = getScore();
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        double margin = CONFIDENCE_95 * Math.sqrt(variance / games);
+        return (Sprt.eloDifference(score + margin) - Sprt.eloDifference(score - margin)) / 2;
+    }
+
+    public double getLogLikelihoodRatio() {
+        return logLikelihoodRatio;
+    }
+
+    public Sprt.Decision getDecision() {
+        return decision;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,103 @@
+package chessmaster.ui;
+
+import chessmaster.game.ChessBoard;
+import chessmaster.game.ChessTile;
+
+/**
+ * Draws chess boards as text, a whole frame at a time, into a buffer reused from frame to frame,
+ * so a frame can be written out in one go.
+ *
+ * <p>In ANSI mode the board is kept at the top of the terminal. After the first frame only the
+ * squares that changed are redrawn, by moving the cursor to them, and the text below the board is
+ * cleared. Text that scrolls the board off the screen throws the squares out of place until the
+ * renderer is {@link #reset}. A renderer remembers the last frame it drew, so each output needs
+ * its own.
+ */
+public class BoardRenderer {
+
+    public static final String CHESS_BOARD_DIVIDER = "_".repeat(4 * ChessBoard.SIZE + 1);
+
+    private static final String COLUMN_HEADER = "abcdefgh";
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String ESCAPE = "\u001b[";
+    /** Terminal line of the top rank in ANSI mode, counting from 1; each rank takes two lines. */
+    private static final int TOP_RANK_LINE = 4;
+    /** Terminal line just below a frame in ANSI mode. */
+    private static final int BELOW_FRAME_LINE = TOP_RANK_LINE + 2 * ChessBoard.SIZE + 1;
+
+    private final boolean isAnsi;
+    private final StringBuilder frame = new StringBuilder(1024);
+    private final char[] lastSquares = new char[ChessBoard.SIZE * ChessBoard.SIZE];
+    private boolean hasLastFrame;
+
+    public BoardRenderer(boolean isAnsi) {
+        this.isAnsi = isAnsi;
+    }
+
+    public boolean isAnsi() {
+        return isAnsi;
+    }
+
+    /**
+     * Makes the next frame a full one.
+     */
+    public void reset() {
+        hasLastFrame = false;
+    }
+
+    /**
+     * Draws a board.
+     *
+     * @param tiles Tiles of the board, as returned by {@link ChessBoard#getBoard()}.
+     * @return The frame, valid until the next call.
+     */
+    public CharSequence render(ChessTile[][] tiles) {
+        frame.setLength(0);
+        if (isAnsi && hasLastFrame) {
+            appendChangedSquares(tiles);
+        } else {
+            if (isAnsi) {
+                frame.append(ESCAPE).append('H').append(ESCAPE).append("2J");
+            }
+            appendFullFrame(tiles);
+            hasLastFrame = true;
+        }
+        return frame;
+    }
+
+    private void appendFullFrame(ChessTile[][] tiles) {
+        frame.append(NEWLINE);
+        for (int col = 0; col < COLUMN_HEADER.length(); col++) {
+            frame.append(" (").append(COLUMN_HEADER.charAt(col)).append(')');
+        }
+        frame.append(NEWLINE).append(CHESS_BOARD_DIVIDER).append(NEWLINE);
+        for (int row = 0; row < ChessBoard.SIZE; row++) {
+            for (int col = 0; col < ChessBoard.SIZE; col++) {
+                char square = getSquare(tiles[row][col]);
+                lastSquares[row * ChessBoard.SIZE + col] = square;
+                frame.append(ChessTile.TILE_DIVIDER).append(' ').append(square).append(' ');
+            }
+            frame.append(ChessTile.TILE_DIVIDER).append(" (").append(ChessBoard.SIZE - row).append(')')
+                    .append(NEWLINE).append(CHESS_BOARD_DIVIDER).append(NEWLINE);
+        }
+        frame.append(NEWLINE);
+    }
+
+    private void appendChangedSquares(ChessTile[][] tiles) {
+        for (int row = 0; row < ChessBoard.SIZE; row++) {
+            for (int col = 0; col < ChessBoard.SIZE; col++) {
+                char square = getSquare(tiles[row][col]);
+                if (square != lastSquares[row * ChessBoard.SIZE + col]) {
+                    lastSquares[row * ChessBoard.SIZE + col] = square;
+                    frame.append(ESCAPE).append(TOP_RANK_LINE + 2 * row).append(';').append(4 * col + 3).append('H')
+                            .append(square);
+                }
+            }
+        }
+        frame.append(ESCAPE).append(BELOW_FRAME_LINE).append(";1H").append(ESCAPE).append('J');
+    }
+
+    private static char getSquare(ChessTile tile) {
+        return tile.isEmpty() ? ' ' : tile.getChessPiece().toString().charAt(0);
+    }
+}
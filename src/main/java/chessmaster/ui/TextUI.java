@@ -1,26 +1,45 @@
 package chessmaster.ui;
 
 import java.io.PrintStream;
+import java.util.List;
 import java.util.Scanner;
 
+import chessmaster.analysis.AnalysisSummary;
+import chessmaster.analysis.SuiteResult;
+import chessmaster.analysis.SuiteSummary;
+import chessmaster.engine.MateNode;
+import chessmaster.engine.MateSolution;
+import chessmaster.engine.MoveAnnotation;
+import chessmaster.engine.SearchLine;
+import chessmaster.engine.SearchResult;
 import chessmaster.game.ChessBoard;
-import chessmaster.game.ChessTile;
 import chessmaster.game.Coordinate;
+import chessmaster.game.EpdRecord;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.game.VariationTree;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.replay.ReplaySummary;
+import chessmaster.replay.ReplayedGame;
+import chessmaster.storage.IngestSummary;
+import chessmaster.storage.MoveStatistics;
+import chessmaster.tournament.Sprt;
+import chessmaster.tournament.TournamentResult;
 
 public final class TextUI {
 
-    public static final String CHESS_BOARD_DIVIDER = "_".repeat(4 * ChessBoard.SIZE + 1);
-
-    private static final String COLUMN_HEADER = "abcdefgh";
-
     /**
      * Format of a comment input line. Comment lines are silently consumed when
      * reading user input.
      */
     private static final String COMMENT_LINE_FORMAT_REGEX = "#.*";
 
+    /** Letter after a promotion in a variation tree, indexed by the piece type promoted to. */
+    private static final String[] PROMOTION_SUFFIXES = {"", "", "n", "b", "r", "q"};
+
     private static final Scanner scanner = new Scanner(System.in);
     private static final PrintStream out = System.out;
+    private static BoardRenderer boardRenderer = new BoardRenderer(false);
 
     /**
      * Prompts for the command and reads the text entered by the user.
@@ -61,24 +80,371 @@ public final class TextUI {
         out.println(UiMessages.PROMPT_PROMOTE_INVALID_MESSAGE);
     }
 
-    public static void printChessBoardDivider() {
-        out.println(CHESS_BOARD_DIVIDER);
+    /**
+     * Prints a board as one frame, in a single write.
+     */
+    public static void printChessBoard(ChessBoard board) {
+        out.append(boardRenderer.render(board.getBoard()));
+        out.flush();
+    }
+
+    /**
+     * Switches between printing every board in full and redrawing only the squares that changed,
+     * with ANSI escape codes. Either way the next board is printed in full.
+     *
+     * @return true if only changed squares are redrawn from now on.
+     */
+    public static boolean toggleAnsiBoard() {
+        boardRenderer = new BoardRenderer(!boardRenderer.isAnsi());
+        return boardRenderer.isAnsi();
+    }
+
+    public static void printImportSummary(IngestSummary summary) {
+        String message = String.format(UiMessages.IMPORT_SUMMARY_MESSAGE, summary.getGameCount(),
+                summary.getInvalidGameCount(), summary.getMoveCount(), summary.getElapsedMillis(),
+                summary.getGamesPerSecond());
+        out.println(message);
+    }
+
+    public static void printReplaySummary(ReplaySummary summary) {
+        out.println(String.format(UiMessages.REPLAY_SUMMARY_MESSAGE, summary.getGameCount(),
+                summary.getInvalidGameCount(), summary.getMoveCount(), summary.getElapsedMillis(),
+                summary.getMovesPerSecond()));
+    }
+
+    /**
+     * Prints the summary of a batch analysis as an EPD comment, so it can follow the results on the console.
+     */
+    public static void printBatchAnalysisSummary(AnalysisSummary summary) {
+        out.println(String.format(UiMessages.BATCH_ANALYSIS_SUMMARY_MESSAGE, summary.getPositionCount(),
+                summary.getInvalidCount(), summary.getNodes(), summary.getElapsedMillis(),
+                summary.getPositionsPerSecond(), summary.getNodesPerSecond()));
+    }
+
+    public static void printBenchPosition(int number, int count, SearchResult result) {
+        out.println(String.format(UiMessages.BENCH_POSITION_MESSAGE, number, count,
+                result.getBestMove() == MoveCode.NONE ? "-" : MoveCode.toUci(result.getBestMove()),
+                result.getScore(), result.getNodes()));
+    }
+
+    /**
+     * Prints the total node count of a bench, which is its signature, and the search speed.
+     */
+    public static void printBenchSummary(AnalysisSummary summary, int depth) {
+        out.println(String.format(UiMessages.BENCH_SUMMARY_MESSAGE, summary.getNodes(), summary.getNodesPerSecond(),
+                summary.getPositionCount(), depth, summary.getElapsedMillis()));
+    }
+
+    /**
+     * Prints the outcome of a mate search and, for a proven mate, its whole solution tree: each
+     * move of the mating side followed by every reply to it, indented by ply.
+     */
+    public static void printMateSolution(MateSolution solution) {
+        switch (solution.getStatus()) {
+        case PROVEN:
+            out.println(String.format(UiMessages.MATE_FOUND_MESSAGE, solution.getMovesToMate(), solution.getNodes(),
+                    solution.getElapsedMillis()));
+            if (solution.getTree() == null) {
+                out.println(UiMessages.MATE_TREE_TOO_LARGE_MESSAGE);
+            } else {
+                printMateNode(solution.getTree(), 0);
+            }
+            break;
+        case DISPROVEN:
+            out.println(String.format(UiMessages.MATE_NOT_FOUND_MESSAGE, solution.getMaxMoves(), solution.getNodes(),
+                    solution.getElapsedMillis()));
+            break;
+        default:
+            out.println(String.format(UiMessages.MATE_UNKNOWN_MESSAGE, solution.getMaxMoves(), solution.getNodes(),
+                    solution.getElapsedMillis()));
+        }
+    }
+
+    private static void printMateNode(MateNode node, int ply) {
+        String format = ply % 2 == 0 ? UiMessages.MATE_MOVE_MESSAGE : UiMessages.MATE_REPLY_MESSAGE;
+        out.println(String.format(format, "  ".repeat(ply), ply / 2 + 1, MoveCode.toUci(node.getMove())));
+        for (MateNode reply : node.getReplies()) {
+            printMateNode(reply, ply + 1);
+        }
     }
 
-    public static void printChessBoardHeader() {
-        for (int i = 0; i < COLUMN_HEADER.length(); i++) {
-            char col = COLUMN_HEADER.charAt(i);
-            out.printf(" (%s)", col);
+    /**
+     * Prints whether the engine solved a test suite position and, if so, how fast, or else the
+     * move it chose instead.
+     */
+    public static void printSuiteResult(SuiteResult result) {
+        if (!result.isValid()) {
+            out.println(String.format(UiMessages.SUITE_INVALID_MESSAGE, result.getName(), result.getError()));
+            return;
         }
-        out.println("");
+        String move = MoveCode.toUci(result.getResult().getBestMove());
+        SearchResult solution = result.getSolution();
+        if (solution != null) {
+            out.println(String.format(UiMessages.SUITE_SOLVED_MESSAGE, result.getName(), move, solution.getDepth(),
+                    solution.getElapsedMillis(), solution.getNodes()));
+            return;
+        }
+        String bestMoves = result.getRecord().getOperation(EpdRecord.BEST_MOVE);
+        boolean hasBestMoves = bestMoves != null && !bestMoves.isEmpty();
+        out.println(String.format(UiMessages.SUITE_FAILED_MESSAGE, result.getName(), move,
+                hasBestMoves ? EpdRecord.BEST_MOVE : EpdRecord.AVOID_MOVE,
+                hasBestMoves ? bestMoves : result.getRecord().getOperation(EpdRecord.AVOID_MOVE)));
+    }
+
+    public static void printSuiteSummary(SuiteSummary summary) {
+        out.println(String.format(UiMessages.SUITE_SUMMARY_MESSAGE, summary.getSolvedCount(),
+                summary.getPositionCount(), summary.getInvalidCount(), summary.getElapsedMillis(),
+                summary.getMeanSolutionMillis(), summary.getMeanSolutionNodes()));
+    }
+
+    /**
+     * Prints the move a replayed game stopped at and why it could not be played.
+     */
+    public static void printReplayRejectedMove(ReplayedGame game) {
+        out.println(String.format(UiMessages.REPLAY_REJECTED_MESSAGE, game.getNumber(), game.getMoveCount() + 1,
+                game.getRejectedMove(), game.getRejection()));
+    }
+
+    /**
+     * Prints opening explorer statistics, using the board's coordinate labels for the moves.
+     *
+     * @param moveStatistics Statistics of the moves played in the current position.
+     */
+    public static void printExplorerMoves(List<MoveStatistics> moveStatistics) {
+        if (moveStatistics.isEmpty()) {
+            out.println(UiMessages.EXPLORER_EMPTY_MESSAGE);
+            return;
+        }
+        for (MoveStatistics statistics : moveStatistics) {
+            int move = statistics.getMove();
+            out.println(String.format(UiMessages.EXPLORER_MOVE_MESSAGE,
+                    Position.toCoordinate(MoveCode.from(move)), Position.toCoordinate(MoveCode.to(move)),
+                    statistics.getGameCount(), statistics.getPercentage(statistics.getWhiteWins()),
+                    statistics.getPercentage(statistics.getDraws()),
+                    statistics.getPercentage(statistics.getBlackWins())));
+        }
+    }
+
+    public static void printExplorerUnavailableMessage() {
+        out.println(UiMessages.EXPLORER_UNAVAILABLE_MESSAGE);
+    }
+
+    public static void printExplorerBuiltMessage(long size, long capacity) {
+        out.println(String.format(UiMessages.EXPLORER_BUILT_MESSAGE, size, capacity));
+    }
+
+    public static void printAnalysisEmptyMessage() {
+        out.println(UiMessages.ANALYSIS_EMPTY_MESSAGE);
+    }
+
+    public static void printAnalysisStartedMessage(int moveCount) {
+        out.println(String.format(UiMessages.ANALYSIS_STARTED_MESSAGE, moveCount));
+    }
+
+    /**
+     * Prints the moves graded worse than good, followed by a count of each grade.
+     *
+     * @param annotations Annotations of every move of the game.
+     */
+    public static void printAnnotations(List<MoveAnnotation> annotations) {
+        int[] gradeCounts = new int[MoveAnnotation.Grade.values().length];
+        for (MoveAnnotation annotation : annotations) {
+            MoveAnnotation.Grade grade = annotation.getGrade();
+            gradeCounts[grade.ordinal()]++;
+            if (grade == MoveAnnotation.Grade.GOOD) {
+                continue;
+            }
+            int move = annotation.getMove();
+            int bestMove = annotation.getBestMove();
+            String moveNumberSuffix = annotation.getPly() % 2 == 0 ? "." : "...";
+            out.println(String.format(UiMessages.ANALYSIS_MOVE_MESSAGE, annotation.getPly() / 2 + 1,
+                    moveNumberSuffix, Position.toCoordinate(MoveCode.from(move)),
+                    Position.toCoordinate(MoveCode.to(move)), grade.getSymbol(), annotation.getLoss(),
+                    Position.toCoordinate(MoveCode.from(bestMove)), Position.toCoordinate(MoveCode.to(bestMove))));
+        }
+        out.println(String.format(UiMessages.ANALYSIS_SUMMARY_MESSAGE,
+                gradeCounts[MoveAnnotation.Grade.INACCURACY.ordinal()],
+                gradeCounts[MoveAnnotation.Grade.MISTAKE.ordinal()],
+                gradeCounts[MoveAnnotation.Grade.BLUNDER.ordinal()]));
+    }
+
+    public static void printStudyHelpMessage() {
+        out.println(UiMessages.STUDY_HELP_MESSAGE);
+    }
+
+    public static void printStudyStartMessage() {
+        out.println(UiMessages.STUDY_START_MESSAGE);
+    }
+
+    public static void printStudyEndMessage() {
+        out.println(UiMessages.STUDY_END_MESSAGE);
+    }
+
+    public static void printStudyNoNodeMessage(int node) {
+        out.println(String.format(UiMessages.STUDY_NO_NODE_MESSAGE, node));
+    }
+
+    /**
+     * Prints every line of a variation tree in PGN style, side lines in parentheses after the move
+     * they replace. Each move is followed by its number for the goto command, and the current move
+     * is marked with a '*'.
+     */
+    public static void printVariationTree(VariationTree tree) {
+        StringBuilder text = new StringBuilder();
+        appendVariation(text, tree, tree.getFirstChild(VariationTree.ROOT));
+        out.println(text.toString().trim());
+    }
+
+    /**
+     * Appends a line starting at a node, following first children, with the side lines of each move.
+     */
+    private static void appendVariation(StringBuilder text, VariationTree tree, int first) {
+        boolean isNumberNeeded = true;
+        for (int node = first; node != VariationTree.NO_NODE; node = tree.getFirstChild(node)) {
+            int ply = tree.getPly(node) - 1;
+            if (ply % 2 == 0) {
+                text.append(ply / 2 + 1).append(". ");
+            } else if (isNumberNeeded) {
+                text.append(ply / 2 + 1).append("... ");
+            }
+            int move = tree.getMove(node);
+            text.append(Position.toCoordinate(MoveCode.from(move))).append('-')
+                    .append(Position.toCoordinate(MoveCode.to(move)))
+                    .append(PROMOTION_SUFFIXES[MoveCode.promotion(move)])
+                    .append('[').append(node).append(node == tree.getCurrent() ? "*] " : "] ");
+            isNumberNeeded = false;
+            boolean isMainMove = tree.getFirstChild(tree.getParent(node)) == node;
+            for (int sideLine = isMainMove ? tree.getNextSibling(node) : VariationTree.NO_NODE;
+                    sideLine != VariationTree.NO_NODE; sideLine = tree.getNextSibling(sideLine)) {
+                text.append('(');
+                appendVariation(text, tree, sideLine);
+                text.setLength(text.length() - 1);
+                text.append(") ");
+                isNumberNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * Prints the best lines found in a position, each starting with the move to play.
+     *
+     * @param result Multi-PV search result.
+     */
+    public static void printHint(SearchResult result) {
+        if (result.getBestMove() == MoveCode.NONE) {
+            out.println(UiMessages.HINT_EMPTY_MESSAGE);
+            return;
+        }
+        List<SearchLine> lines = result.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            int[] moves = lines.get(i).getMoves();
+            StringBuilder continuation = new StringBuilder();
+            for (int j = 1; j < moves.length; j++) {
+                continuation.append(Position.toCoordinate(MoveCode.from(moves[j])))
+                        .append('-')
+                        .append(Position.toCoordinate(MoveCode.to(moves[j])))
+                        .append(' ');
+            }
+            out.println(String.format(UiMessages.HINT_LINE_MESSAGE, i + 1,
+                    Position.toCoordinate(MoveCode.from(moves[0])), Position.toCoordinate(MoveCode.to(moves[0])),
+                    formatScore(lines.get(i).getScore()), continuation.toString().trim()));
+        }
+        out.println(String.format(UiMessages.HINT_DEPTH_MESSAGE, result.getDepth()));
+    }
+
+    private static String formatScore(int score) {
+        if (SearchResult.isMateScore(score)) {
+            return "mate in " + SearchResult.getMateInMoves(score);
+        }
+        return String.format("%+.2f", score / 100.0);
+    }
+
+    public static void printClock(long whiteRemainingMillis, long blackRemainingMillis) {
+        out.println(String.format(UiMessages.CLOCK_MESSAGE, formatClockTime(whiteRemainingMillis),
+                formatClockTime(blackRemainingMillis)));
+    }
+
+    public static void printOutOfTimeMessage(int colour) {
+        String player = colour == ChessPiece.WHITE ? "White" : "Black";
+        out.println(String.format(UiMessages.OUT_OF_TIME_MESSAGE, player));
+    }
+
+    /**
+     * Prints how a game has ended.
+     *
+     * @param state State of the final position; must not be {@link Position.GameState#ONGOING}.
+     * @param sideToMove Colour of the side to move in the final position.
+     */
+    public static void printGameOverMessage(Position.GameState state, int sideToMove) {
+        String player = sideToMove == ChessPiece.WHITE ? "White" : "Black";
+        String opponent = sideToMove == ChessPiece.WHITE ? "Black" : "White";
+        switch (state) {
+        case CHECKMATE:
+            out.println(String.format(UiMessages.CHECKMATE_MESSAGE, opponent));
+            break;
+        case STALEMATE:
+            out.println(String.format(UiMessages.STALEMATE_MESSAGE, player));
+            break;
+        case REPETITION:
+            out.println(String.format(UiMessages.DRAW_MESSAGE, "threefold repetition"));
+            break;
+        case FIFTY_MOVE_RULE:
+            out.println(String.format(UiMessages.DRAW_MESSAGE, "the fifty-move rule"));
+            break;
+        case INSUFFICIENT_MATERIAL:
+            out.println(String.format(UiMessages.DRAW_MESSAGE, "insufficient material"));
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static String formatClockTime(long millis) {
+        long seconds = Math.max(0, millis) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    public static void printTournamentStartedMessage(String firstName, String secondName, int maxGames,
+            int concurrency, int openingCount) {
+        out.println(String.format(UiMessages.TOURNAMENT_STARTED_MESSAGE, firstName, secondName, maxGames,
+                concurrency, openingCount));
+    }
+
+    public static void printTournamentProgress(TournamentResult result, Sprt sprt) {
+        out.println(String.format(UiMessages.TOURNAMENT_PROGRESS_MESSAGE, result.getGameCount(), result.getWins(),
+                result.getDraws(), result.getLosses(), result.getElo(), result.getEloErrorMargin(),
+                result.getLogLikelihoodRatio(), sprt.getLowerBound(), sprt.getUpperBound()));
+    }
+
+    /**
+     * Prints the final result of a tournament, naming the engine the test found stronger.
+     */
+    public static void printTournamentResult(TournamentResult result, String firstName, String secondName) {
+        String verdict;
+        switch (result.getDecision()) {
+        case ACCEPT_H1:
+            verdict = firstName + " is stronger than " + secondName;
+            break;
+        case ACCEPT_H0:
+            verdict = firstName + " is not stronger than " + secondName;
+            break;
+        default:
+            verdict = "Inconclusive";
+        }
+        out.println(String.format(UiMessages.TOURNAMENT_RESULT_MESSAGE, verdict, result.getGameCount(),
+                result.getElapsedMillis() / 1000, result.getElo(), result.getEloErrorMargin()));
+    }
+
+    public static void printServerStartedMessage(int port, int maxSessions, int searchThreads) {
+        out.println(String.format(UiMessages.SERVER_STARTED_MESSAGE, port, maxSessions, searchThreads));
+    }
+
+    public static void printUsageMessage(String usage) {
+        out.println(String.format(UiMessages.USAGE_MESSAGE, usage));
     }
 
-    public static void printChessBoardRow(int rowNum, String chessBoardRow) {
-        out.print(chessBoardRow);
-        out.print(ChessTile.TILE_DIVIDER);
-        out.print(String.format(" (%d)", rowNum));
-        out.print(System.lineSeparator() + CHESS_BOARD_DIVIDER);
-        out.println("");
+    public static void printUnknownModeMessage(String mode, String availableModes) {
+        out.println(String.format(UiMessages.UNKNOWN_MODE_MESSAGE, mode, availableModes));
     }
 
     public static void printErrorMessage(Exception e) {
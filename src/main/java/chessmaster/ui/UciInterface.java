@@ -0,0 +1,338 @@
+package chessmaster.ui;
+
+import chessmaster.engine.SearchEngine;
+import chessmaster.engine.SearchLimits;
+import chessmaster.engine.SearchLine;
+import chessmaster.engine.SearchResult;
+import chessmaster.engine.TimeManager;
+import chessmaster.engine.TranspositionTable;
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the engine through the Universal Chess Interface, so that it can be run by chess GUIs and
+ * tournament managers. The calling thread only reads and answers commands; searches run on the
+ * engine's own threads, so "stop" and "isready" are handled while a search is in progress.
+ */
+public class UciInterface {
+
+    public static final String ENGINE_NAME = "ChessMaster";
+    public static final String ENGINE_AUTHOR = "ChessMaster team";
+
+    public static final int MAX_HASH_SIZE_MB = 16384;
+    public static final int MAX_MULTI_PV = 64;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final SearchEngine engine;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Position position = Position.startingPosition();
+    private int multiPv = 1;
+
+    /** Incremented on every "go", so a timer set for an earlier search cannot stop a later one. */
+    private int searchId;
+    /** True while bestmove must be held back until "stop" or "ponderhit". */
+    private boolean isWaitingForRelease;
+    /** Time to search once a ponder search is told "ponderhit", or 0 for no limit. */
+    private long ponderHitMillis;
+
+    public UciInterface(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+        this.engine = new SearchEngine(TranspositionTable.DEFAULT_SIZE_MB, 1);
+    }
+
+    /**
+     * Reads and executes commands until "quit" or the end of the input.
+     *
+     * @throws IOException If the input cannot be read.
+     */
+    public void run() throws IOException {
+        try {
+            String line = in.readLine();
+            while (line != null && execute(line.trim())) {
+                line = in.readLine();
+            }
+        } finally {
+            release();
+            engine.close();
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes a single command.
+     *
+     * @param line Command line, without surrounding whitespace.
+     * @return false if the command was "quit".
+     */
+    private boolean execute(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+        case "uci":
+            out.println("id name " + ENGINE_NAME);
+            out.println("id author " + ENGINE_AUTHOR);
+            out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB
+                    + " min 1 max " + MAX_HASH_SIZE_MB);
+            out.println("option name Threads type spin default 1 min 1 max " + SearchEngine.MAX_THREADS);
+            out.println("option name Ponder type check default false");
+            out.println("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+            out.println("uciok");
+            break;
+        case "isready":
+            out.println("readyok");
+            break;
+        case "ucinewgame":
+            stopSearch();
+            engine.clear();
+            position = Position.startingPosition();
+            break;
+        case "setoption":
+            stopSearch();
+            setOption(tokens);
+            break;
+        case "position":
+            setPosition(line, tokens);
+            break;
+        case "go":
+            go(tokens);
+            break;
+        case "stop":
+            stopSearch();
+            break;
+        case "ponderhit":
+            ponderHit();
+            break;
+        case "quit":
+            return false;
+        default:
+            // Unknown commands are ignored, as the protocol requires
+            break;
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        String name = valueAfter(tokens, "name");
+        String value = valueAfter(tokens, "value");
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                engine.setHashSize(Math.max(1, Math.min(Integer.parseInt(value), MAX_HASH_SIZE_MB)));
+            } else if (name.equalsIgnoreCase("Threads")) {
+                engine.setThreadCount(Integer.parseInt(value));
+            } else if (name.equalsIgnoreCase("MultiPV")) {
+                multiPv = Math.max(1, Math.min(Integer.parseInt(value), MAX_MULTI_PV));
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    /**
+     * Handles "position [startpos | fen &lt;fen&gt;] [moves &lt;move&gt;...]".
+     * Moves after the first illegal one are ignored.
+     */
+    private void setPosition(String line, String[] tokens) {
+        int movesIndex = line.indexOf(" moves ");
+        String setup = movesIndex < 0 ? line : line.substring(0, movesIndex);
+        Position newPosition;
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            newPosition = Position.startingPosition();
+        } else if (tokens.length > 1 && tokens[1].equals("fen")) {
+            try {
+                newPosition = Position.fromFen(setup.substring(setup.indexOf("fen") + 3).trim());
+            } catch (ParseFenException e) {
+                out.println("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            return;
+        }
+
+        if (movesIndex >= 0) {
+            for (String moveText : line.substring(movesIndex + 7).trim().split("\\s+")) {
+                int move = newPosition.findUciMove(moveText);
+                if (move == MoveCode.NONE) {
+                    out.println("info string illegal move " + moveText);
+                    break;
+                }
+                newPosition.makeMove(move);
+            }
+        }
+        position = newPosition;
+    }
+
+    private void go(String[] tokens) {
+        stopSearch();
+
+        SearchLimits limits = SearchLimits.infinite().withMultiPv(multiPv);
+        long remainingMillis = 0;
+        long incrementMillis = 0;
+        int movesToGo = TimeManager.DEFAULT_MOVES_TO_GO;
+        boolean isInfinite = false;
+        boolean isPonder = false;
+        String timeToken = position.getSideToMove() == ChessPiece.WHITE ? "wtime" : "btime";
+        String incrementToken = position.getSideToMove() == ChessPiece.WHITE ? "winc" : "binc";
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String token = tokens[i];
+                boolean hasValue = i + 1 < tokens.length;
+                if (token.equals("infinite")) {
+                    isInfinite = true;
+                } else if (token.equals("ponder")) {
+                    isPonder = true;
+                } else if (token.equals("depth") && hasValue) {
+                    limits.withDepth(Integer.parseInt(tokens[++i]));
+                } else if (token.equals("nodes") && hasValue) {
+                    limits.withNodes(Long.parseLong(tokens[++i]));
+                } else if (token.equals("movetime") && hasValue) {
+                    limits.withTime(Math.max(1, Long.parseLong(tokens[++i])));
+                } else if (token.equals(timeToken) && hasValue) {
+                    remainingMillis = Long.parseLong(tokens[++i]);
+                } else if (token.equals(incrementToken) && hasValue) {
+                    incrementMillis = Long.parseLong(tokens[++i]);
+                } else if (token.equals("movestogo") && hasValue) {
+                    movesToGo = Math.max(1, Integer.parseInt(tokens[++i]));
+                }
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string invalid go command");
+            return;
+        }
+        if (remainingMillis > 0 && limits.getTimeMillis() == 0) {
+            limits.withTimeManager(TimeManager.allocate(remainingMillis, incrementMillis, movesToGo));
+        }
+
+        long ponderMillis = 0;
+        if (isPonder) {
+            // The clock only starts on "ponderhit", so search without a time limit until then
+            TimeManager timeManager = limits.getTimeManager();
+            ponderMillis = timeManager == null ? limits.getTimeMillis() : timeManager.getSoftMillis();
+            limits.withTimeManager(null);
+        }
+
+        int id;
+        synchronized (this) {
+            id = ++searchId;
+            isWaitingForRelease = isInfinite || isPonder;
+            ponderHitMillis = ponderMillis;
+        }
+        engine.start(position, limits, this::printInfo)
+                .thenAccept(result -> printBestMove(id, result));
+    }
+
+    /**
+     * The opponent played the expected move: the ponder search becomes a normal search, using the
+     * time that was allocated for the move.
+     */
+    private void ponderHit() {
+        int id;
+        long millis;
+        synchronized (this) {
+            id = searchId;
+            millis = ponderHitMillis;
+            isWaitingForRelease = false;
+            notifyAll();
+        }
+        if (millis > 0) {
+            timer.schedule(() -> stopIfCurrent(id), millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void stopIfCurrent(int id) {
+        if (id == searchId) {
+            engine.stop();
+        }
+    }
+
+    private void stopSearch() {
+        release();
+        engine.stop();
+    }
+
+    private synchronized void release() {
+        isWaitingForRelease = false;
+        notifyAll();
+    }
+
+    private void printInfo(SearchResult result) {
+        List<SearchLine> lines = result.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            SearchLine line = lines.get(i);
+            StringBuilder builder = new StringBuilder("info depth ").append(result.getDepth());
+            if (lines.size() > 1) {
+                builder.append(" multipv ").append(i + 1);
+            }
+            if (SearchResult.isMateScore(line.getScore())) {
+                builder.append(" score mate ").append(SearchResult.getMateInMoves(line.getScore()));
+            } else {
+                builder.append(" score cp ").append(line.getScore());
+            }
+            builder.append(" nodes ").append(result.getNodes())
+                    .append(" nps ").append(result.getNodesPerSecond())
+                    .append(" time ").append(result.getElapsedMillis())
+                    .append(" pv");
+            for (int move : line.getMoves()) {
+                builder.append(' ').append(MoveCode.toUci(move));
+            }
+            out.println(builder);
+        }
+    }
+
+    /**
+     * Prints the search result, first waiting for "stop" or "ponderhit" if the search was started
+     * with "go infinite" or "go ponder" and finished on its own.
+     */
+    private void printBestMove(int id, SearchResult result) {
+        synchronized (this) {
+            while (isWaitingForRelease && id == searchId) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        if (result.getBestMove() == MoveCode.NONE) {
+            out.println("bestmove 0000");
+            return;
+        }
+        StringBuilder builder = new StringBuilder("bestmove ").append(MoveCode.toUci(result.getBestMove()));
+        if (result.getExpectedReply() != MoveCode.NONE) {
+            builder.append(" ponder ").append(MoveCode.toUci(result.getExpectedReply()));
+        }
+        out.println(builder);
+    }
+
+    private static String valueAfter(String[] tokens, String keyword) {
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (tokens[i].equals(keyword)) {
+                return tokens[i + 1];
+            }
+        }
+        return null;
+    }
+}
@@ -4,4 +4,55 @@ public class UiMessages {
     public static final String PROMPT_PROMOTE_MESSAGE = "You can promote the pawn at %s! \n" +
             "Please choose what to promote it to:";
     public static final String PROMPT_PROMOTE_INVALID_MESSAGE = "Oops, we couldn't promote your piece!";
+    public static final String IMPORT_SUMMARY_MESSAGE = "Imported %d games (%d invalid, %d moves) in %d ms, "
+            + "%d games/s.";
+    public static final String REPLAY_SUMMARY_MESSAGE = "Replayed %d games (%d invalid, %d moves) in %d ms, "
+            + "%d moves/s.";
+    public static final String REPLAY_REJECTED_MESSAGE = "Game %d, move %d \"%s\": %s";
+    public static final String BATCH_ANALYSIS_SUMMARY_MESSAGE = "# Analysed %d positions (%d invalid, %d nodes) "
+            + "in %d ms, %.1f positions/s, %d nodes/s.";
+    public static final String SUITE_SOLVED_MESSAGE = "%-16s solved  %-6s depth %2d  %6d ms  %10d nodes";
+    public static final String SUITE_FAILED_MESSAGE = "%-16s failed  %-6s (%s %s)";
+    public static final String SUITE_INVALID_MESSAGE = "%-16s invalid %s";
+    public static final String BENCH_POSITION_MESSAGE = "Position %2d/%d  best %-5s  score %6d  %10d nodes";
+    public static final String BENCH_SUMMARY_MESSAGE = "Bench: %d nodes %d nps (%d positions to depth %d in %d ms)";
+    public static final String MATE_FOUND_MESSAGE = "Mate in %d (%d nodes, %d ms):";
+    public static final String MATE_TREE_TOO_LARGE_MESSAGE = "The solution tree did not fit in the node limit.";
+    public static final String MATE_NOT_FOUND_MESSAGE = "There is no mate in %d or fewer moves (%d nodes, %d ms).";
+    public static final String MATE_UNKNOWN_MESSAGE = "No mate in %d or fewer moves was proven or refuted "
+            + "within the node limit (%d nodes, %d ms).";
+    public static final String MATE_MOVE_MESSAGE = "%s%d. %s";
+    public static final String MATE_REPLY_MESSAGE = "%s%d... %s";
+    public static final String SUITE_SUMMARY_MESSAGE = "Solved %d of %d positions (%d invalid) in %d ms. "
+            + "Mean time to solution %.1f ms, mean nodes to solution %d.";
+    public static final String EXPLORER_EMPTY_MESSAGE = "No games in the explorer reached this position.";
+    public static final String EXPLORER_MOVE_MESSAGE = "%s %s  %8d games  white %3d%%  draw %3d%%  black %3d%%";
+    public static final String EXPLORER_UNAVAILABLE_MESSAGE = "No opening explorer database found. "
+            + "Build one with the \"explorer\" mode.";
+    public static final String EXPLORER_BUILT_MESSAGE = "Explorer database holds %d entries (capacity %d).";
+    public static final String ANALYSIS_EMPTY_MESSAGE = "There are no moves to analyse yet.";
+    public static final String ANALYSIS_STARTED_MESSAGE = "Analysing %d moves...";
+    public static final String ANALYSIS_MOVE_MESSAGE = "%d%s %s %s%-2s  loss %4d  best %s %s";
+    public static final String ANALYSIS_SUMMARY_MESSAGE = "%d inaccuracies, %d mistakes, %d blunders.";
+    public static final String STUDY_HELP_MESSAGE = "Enter moves as at the game prompt, adding n, b or r to "
+            + "under-promote. Commands: back, forward, goto <move number>, tree, exit.";
+    public static final String STUDY_START_MESSAGE = "This is the starting position.";
+    public static final String STUDY_END_MESSAGE = "No move has been explored from here.";
+    public static final String STUDY_NO_NODE_MESSAGE = "There is no move numbered %d.";
+    public static final String HINT_EMPTY_MESSAGE = "There are no legal moves in this position.";
+    public static final String HINT_LINE_MESSAGE = "%d. %s %s  %-11s %s";
+    public static final String HINT_DEPTH_MESSAGE = "(searched to depth %d)";
+    public static final String CLOCK_MESSAGE = "White %s | Black %s";
+    public static final String OUT_OF_TIME_MESSAGE = "%s has run out of time and loses the game.";
+    public static final String CHECKMATE_MESSAGE = "Checkmate! %s wins the game.";
+    public static final String STALEMATE_MESSAGE = "Stalemate! %s has no legal move, so the game is drawn.";
+    public static final String DRAW_MESSAGE = "The game is drawn by %s.";
+    public static final String TOURNAMENT_STARTED_MESSAGE = "%s vs %s: up to %d games, %d at a time, %d openings.";
+    public static final String TOURNAMENT_PROGRESS_MESSAGE = "Games %d: +%d =%d -%d  Elo %+.1f +/- %.1f  "
+            + "LLR %.2f (%.2f, %.2f)";
+    public static final String TOURNAMENT_RESULT_MESSAGE = "%s after %d games in %d s: Elo %+.1f +/- %.1f.";
+    public static final String SERVER_STARTED_MESSAGE = "Serving games on localhost:%d (up to %d at once, "
+            + "%d search threads).";
+    public static final String USAGE_MESSAGE = "Usage: %s";
+    public static final String UNKNOWN_MODE_MESSAGE = "Unknown mode \"%s\". Available modes: %s";
 }
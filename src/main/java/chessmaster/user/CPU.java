@@ -1,18 +1,251 @@
 package chessmaster.user;
 
+import chessmaster.engine.EngineConfig;
+import chessmaster.engine.MctsSearch;
+import chessmaster.engine.MoveSearcher;
+import chessmaster.engine.SearchEngine;
+import chessmaster.engine.SearchLimits;
+import chessmaster.engine.SearchLine;
+import chessmaster.engine.SearchResult;
+import chessmaster.engine.TimeManager;
+import chessmaster.exceptions.NullPieceException;
 import chessmaster.game.ChessBoard;
+import chessmaster.game.ChessTile;
 import chessmaster.game.Coordinate;
 import chessmaster.game.Move;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.metrics.EngineMetrics;
+import chessmaster.parser.Parser;
 import chessmaster.pieces.ChessPiece;
 
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class CPU extends Player {
 
+    private static final String PROMOTION_LETTERS = "  nbrq";
+
     private final Random rand = new Random();
+    private final MoveSearcher searcher;
+    /** The CPU's own engine, used for pondering, or null if it searches with a shared searcher. */
+    private final SearchEngine engine;
+
+    /** Piece type to promote to when the current move is a promotion. */
+    private int promotion = Position.QUEEN;
+
+    /** Background search of the position after the expected reply, or null if not pondering. */
+    private CompletableFuture<SearchResult> ponderSearch;
+    private int ponderMove = MoveCode.NONE;
+    private long ponderStartTime;
 
     public CPU(int colour) {
+        this(colour, new EngineConfig());
+    }
+
+    /**
+     * Creates a CPU with its own engine on every core. A Monte Carlo tree search engine does not
+     * ponder, as its tree is rebuilt for every move.
+     */
+    public CPU(int colour, EngineConfig config) {
+        super(colour);
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        if (config.isMonteCarloEnabled()) {
+            this.engine = null;
+            this.searcher = new MctsSearch(config.getHashSizeMb(), threadCount, config.getPlayout());
+        } else {
+            this.engine = new SearchEngine(config.getHashSizeMb(), threadCount);
+            this.engine.configure(config);
+            this.searcher = engine;
+        }
+    }
+
+    /**
+     * Creates a CPU that searches with a searcher shared with other games. It does not ponder,
+     * since that would keep the shared threads busy while its opponent thinks.
+     */
+    public CPU(int colour, MoveSearcher searcher) {
         super(colour);
+        this.engine = null;
+        this.searcher = searcher;
+    }
+
+    /**
+     * Searches for the best move, falling back to a random move if the board cannot be searched.
+     * If the opponent's last move was the one being pondered on, the ponder search carries on
+     * instead, so its work is not wasted; otherwise it is cancelled and a new search started.
+     *
+     * @param board Board to move on.
+     * @param history The board as a position holding the moves played so far, so that the search
+     *     avoids or seeks repetitions, or null to search the board without its history.
+     * @param opponentMove Move the opponent has just played, or null at the start of the game.
+     * @param timeManager Decides how long to think.
+     * @return Move to play.
+     */
+    public Move getBestMove(ChessBoard board, Position history, Move opponentMove, TimeManager timeManager) {
+        long startTime = System.nanoTime();
+        try {
+            return searchBestMove(board, history, opponentMove, timeManager);
+        } finally {
+            EngineMetrics.get().recordThinkTime(System.nanoTime() - startTime);
+        }
+    }
+
+    private Move searchBestMove(ChessBoard board, Position history, Move opponentMove, TimeManager timeManager) {
+        boolean hasHistory = history != null && history.getSideToMove() == colour;
+        Position position = hasHistory ? history : Position.fromChessBoard(board, colour);
+        if (position == null || !position.hasAnyLegalMove()) {
+            stopPondering();
+            return getRandomMove(board);
+        }
+
+        SearchResult result = isPonderHit(opponentMove) ? finishPonderSearch(timeManager) : null;
+        if (result == null) {
+            stopPondering();
+            result = searcher.search(position, SearchLimits.managed(timeManager));
+        }
+
+        int bestMove = findMove(position, result.getBestMove());
+        if (bestMove == MoveCode.NONE) {
+            // The ponder position differed from the board, e.g. through a different promotion piece
+            bestMove = searcher.search(position, SearchLimits.managed(timeManager)).getBestMove();
+        }
+        Move move = toBoardMove(board, bestMove);
+        if (move != null && board.isLegalMove(move)) {
+            startPondering(position, bestMove, result.getExpectedReply());
+            return move;
+        }
+        // The board does not support every move, e.g. en passant, so take the next line it accepts
+        move = findBoardMove(board, position, result, timeManager);
+        return move == null ? getRandomMove(board) : move;
+    }
+
+    /**
+     * Finds a move the board accepts when the best move of a search is one it does not. The other
+     * lines of the search are tried first, best first, and then the board itself is searched, as a
+     * position rebuilt from the board has no en passant square.
+     *
+     * @return Move to play, or null if the board accepts none of the moves found.
+     */
+    private Move findBoardMove(ChessBoard board, Position position, SearchResult result, TimeManager timeManager) {
+        List<SearchLine> lines = result.getLines();
+        for (int i = 1; i < lines.size(); i++) {
+            int[] moves = lines.get(i).getMoves();
+            Move move = moves.length == 0 ? null : toBoardMove(board, findMove(position, moves[0]));
+            if (move != null && board.isLegalMove(move)) {
+                return move;
+            }
+        }
+
+        Position boardPosition = Position.fromChessBoard(board, colour);
+        if (boardPosition == null) {
+            return null;
+        }
+        int bestMove = findMove(boardPosition,
+                searcher.search(boardPosition, SearchLimits.managed(timeManager)).getBestMove());
+        Move move = toBoardMove(board, bestMove);
+        return move != null && board.isLegalMove(move) ? move : null;
+    }
+
+    /**
+     * Cancels any ponder search. The hash table keeps what it found.
+     */
+    public void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+        engine.stop();
+        ponderSearch.join();
+        ponderSearch = null;
+        ponderMove = MoveCode.NONE;
+    }
+
+    private boolean isPonderHit(Move opponentMove) {
+        return ponderSearch != null && opponentMove != null && !opponentMove.isEmpty()
+                && Position.fromCoordinate(opponentMove.getFrom()) == MoveCode.from(ponderMove)
+                && Position.fromCoordinate(opponentMove.getTo()) == MoveCode.to(ponderMove);
+    }
+
+    /**
+     * Lets the ponder search run until the soft time limit, counted from when pondering began, is used up.
+     *
+     * @return Result of the ponder search, or null if it failed.
+     */
+    private SearchResult finishPonderSearch(TimeManager timeManager) {
+        long elapsedMillis = (System.nanoTime() - ponderStartTime) / 1_000_000;
+        long remainingMillis = Math.max(0, timeManager.getSoftMillis() - elapsedMillis);
+        CompletableFuture<SearchResult> search = ponderSearch;
+        ponderSearch = null;
+        ponderMove = MoveCode.NONE;
+        try {
+            return search.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            engine.stop();
+            return search.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            engine.stop();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts searching the position that arises if the opponent replies as expected, so the
+     * search runs while the opponent thinks.
+     */
+    private void startPondering(Position position, int move, int expectedReply) {
+        if (engine == null || expectedReply == MoveCode.NONE) {
+            return;
+        }
+        Position ponderPosition = position.copy();
+        ponderPosition.makeMove(move);
+        int reply = findMove(ponderPosition, expectedReply);
+        if (reply == MoveCode.NONE) {
+            return;
+        }
+        ponderPosition.makeMove(reply);
+        if (ponderPosition.generateLegalMoves(new int[Position.MAX_MOVES]) == 0) {
+            return;
+        }
+        ponderMove = reply;
+        ponderStartTime = System.nanoTime();
+        ponderSearch = engine.start(ponderPosition, SearchLimits.infinite(), null);
+    }
+
+    private static int findMove(Position position, int move) {
+        if (move == MoveCode.NONE) {
+            return MoveCode.NONE;
+        }
+        return position.findLegalMove(MoveCode.from(move), MoveCode.to(move), MoveCode.promotion(move));
+    }
+
+    private Move toBoardMove(ChessBoard board, int move) {
+        if (move == MoveCode.NONE) {
+            return null;
+        }
+        Coordinate from = Position.toCoordinate(MoveCode.from(move));
+        Coordinate to = Position.toCoordinate(MoveCode.to(move));
+        try {
+            promotion = MoveCode.promotion(move) == 0 ? Position.QUEEN : MoveCode.promotion(move);
+            return new Move(from, to, board.getPieceAtCoor(from));
+        } catch (NullPieceException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void promote(ChessBoard board, ChessPiece promoteFrom) {
+        Coordinate coord = promoteFrom.getPosition();
+        String promoteTo = String.valueOf(PROMOTION_LETTERS.charAt(promotion));
+        ChessTile promoted = new ChessTile(Parser.parsePromote(promoteFrom, promoteTo));
+        // setTile stores into board[col][row], so it is given the column first
+        board.setTile(coord.getX(), coord.getY(), promoted);
     }
 
     public Move getRandomMove(ChessBoard board) {
@@ -21,7 +254,7 @@ public class CPU extends Player {
         //    - has possible legal moves
         ChessPiece randomPiece = getRandomPiece();
         while (randomPiece.getCaptured()
-                || randomPiece.getFlattenedCoordinates(board.getBoard()).length == 0) {
+                || board.getLegalDestinations(randomPiece).length == 0) {
             randomPiece = getRandomPiece();
         }
 
@@ -31,14 +264,12 @@ public class CPU extends Player {
     }
 
     private ChessPiece getRandomPiece() {
-        printAllPieces();
-
         return this.pieces.get(rand.nextInt(pieces.size()));
     }
 
     private Move getRandomMoveFromPiece(ChessPiece piece, ChessBoard board) {
 
-        Coordinate[] allPossibleMoves = piece.getFlattenedCoordinates(board.getBoard());
+        Coordinate[] allPossibleMoves = board.getLegalDestinations(piece);
         Coordinate randomDestination = allPossibleMoves[rand.nextInt(allPossibleMoves.length)];
 
         return new Move(piece.getPosition(), randomDestination, piece);
@@ -1,5 +1,10 @@
 package chessmaster.user;
 
+import chessmaster.engine.GameAnalyser;
+import chessmaster.engine.HintCache;
+import chessmaster.engine.MoveAnnotation;
+import chessmaster.engine.SearchLimits;
+import chessmaster.engine.TranspositionTable;
 import chessmaster.exceptions.InvalidMoveException;
 import chessmaster.exceptions.NullPieceException;
 import chessmaster.exceptions.ParseCoordinateException;
@@ -7,12 +12,17 @@ import chessmaster.game.ChessBoard;
 import chessmaster.game.ChessTile;
 import chessmaster.game.Coordinate;
 import chessmaster.game.Move;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
 import chessmaster.parser.Parser;
 import chessmaster.pieces.ChessPiece;
 import chessmaster.pieces.Pawn;
+import chessmaster.storage.PositionDatabase;
 import chessmaster.ui.TextUI;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public abstract class Player {
 
@@ -20,6 +30,15 @@ public abstract class Player {
     protected ArrayList<ChessPiece> pieces;
     protected int colour;
 
+    /** Nullable opening explorer shown by the "explore" command. */
+    protected PositionDatabase explorer;
+
+    /** Nullable opponent, whose moves are needed to replay the game for the "analyse" command. */
+    protected Player opponent;
+
+    /** Hints given so far, created when the first hint is asked for. */
+    protected HintCache hints;
+
     public Player(int colour) {
         this.moves = new ArrayList<>();
         this.pieces = new ArrayList<>();
@@ -51,6 +70,21 @@ public abstract class Player {
         }
     }
 
+    /**
+     * Takes over this player's pieces wherever they stand, for a board restored partway through a game.
+     */
+    public void collectPieces(ChessBoard board) {
+        this.pieces.clear();
+        for (ChessTile[] row : board.getBoard()) {
+            for (ChessTile tile : row) {
+                ChessPiece piece = tile.getChessPiece();
+                if (piece != null && piece.getColour() == this.colour) {
+                    this.pieces.add(piece);
+                }
+            }
+        }
+    }
+
     public void printAllPieces() {
         for (ChessPiece p : pieces) {
             System.out.println("Piece: " + p);
@@ -63,9 +97,34 @@ public abstract class Player {
         return this.colour;
     }
 
+    public void setExplorer(PositionDatabase explorer) {
+        this.explorer = explorer;
+    }
+
+    public void setOpponent(Player opponent) {
+        this.opponent = opponent;
+    }
+
     public Move getNextMove(ChessBoard board) {
-        // Get user input
+        // Get user input, handling commands until something other than a command is entered
         String input = TextUI.getUserInput();
+        while (Parser.isUserInputExplore(input) || Parser.isUserInputAnalyse(input)
+                || Parser.isUserInputHint(input) || Parser.isUserInputAnsi(input)) {
+            if (Parser.isUserInputAnsi(input)) {
+                TextUI.toggleAnsiBoard();
+                board.showChessBoard();
+            } else if (Parser.isUserInputAnalyse(input)) {
+                analyseGame();
+            } else if (Parser.isUserInputHint(input)) {
+                showHint(board, Parser.parseHintLineCount(input, HintCache.DEFAULT_LINE_COUNT));
+            } else if (explorer == null) {
+                TextUI.printExplorerUnavailableMessage();
+            } else {
+                board.displayExplorerMoves(explorer, colour);
+            }
+            input = TextUI.getUserInput();
+        }
+
         if (Parser.isUserInputAbort(input)) {
             return null;
         }
@@ -80,6 +139,79 @@ public abstract class Player {
         return new Move();
     }
 
+    /**
+     * Shows the best few moves in the current position, with the lines they lead to.
+     *
+     * @param board Board to give a hint for.
+     * @param lineCount Number of moves to show.
+     */
+    private void showHint(ChessBoard board, int lineCount) {
+        Position position = Position.fromChessBoard(board, colour);
+        if (position == null) {
+            return;
+        }
+        if (hints == null) {
+            hints = new HintCache();
+        }
+        TextUI.printHint(hints.getHint(position, lineCount));
+    }
+
+    /**
+     * Replays the moves played so far by both players from the starting position, searches every
+     * position in parallel and prints the inaccuracies, mistakes and blunders found.
+     */
+    private void analyseGame() {
+        Position position = Position.fromChessBoard(new ChessBoard(), ChessPiece.WHITE);
+        int[] gameMoves = replayGame(position.copy());
+        if (gameMoves.length == 0) {
+            TextUI.printAnalysisEmptyMessage();
+            return;
+        }
+
+        TextUI.printAnalysisStartedMessage(gameMoves.length);
+        GameAnalyser analyser = new GameAnalyser(GameAnalyser.getDefaultWorkerCount(),
+                SearchLimits.depth(GameAnalyser.DEFAULT_DEPTH),
+                new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+        List<MoveAnnotation> annotations = analyser.analyse(position, gameMoves);
+        TextUI.printAnnotations(annotations);
+    }
+
+    /**
+     * Converts the moves of both players into position moves, alternating from white.
+     * Replaying stops at the first move the position does not accept.
+     *
+     * @param position Starting position, which is advanced past the replayed moves.
+     * @return Moves replayed.
+     */
+    private int[] replayGame(Position position) {
+        Player white = this;
+        Player black = opponent;
+        if (colour != ChessPiece.WHITE) {
+            white = opponent;
+            black = this;
+        }
+        int whiteMoveCount = white == null ? 0 : white.moves.size();
+        int blackMoveCount = black == null ? 0 : black.moves.size();
+
+        int[] gameMoves = new int[whiteMoveCount + blackMoveCount];
+        int count = 0;
+        for (int ply = 0; ply < gameMoves.length; ply++) {
+            List<Move> playerMoves = ply % 2 == 0 ? white.moves : black.moves;
+            if (ply / 2 >= playerMoves.size()) {
+                break;
+            }
+            Move move = playerMoves.get(ply / 2);
+            int code = position.findLegalMove(Position.fromCoordinate(move.getFrom()),
+                    Position.fromCoordinate(move.getTo()));
+            if (code == MoveCode.NONE) {
+                break;
+            }
+            position.makeMove(code);
+            gameMoves[count++] = code;
+        }
+        return Arrays.copyOf(gameMoves, count);
+    }
+
     public boolean move(Move move, ChessBoard board) {
         try {
             board.executeMove(move);
@@ -104,7 +236,7 @@ public abstract class Player {
      * @param board Chessboard that the game is being played on.
      * @param promoteFrom The piece being promoted.
      */
-    private void promote(ChessBoard board, ChessPiece promoteFrom) {
+    protected void promote(ChessBoard board, ChessPiece promoteFrom) {
         // Promote function for humans
         // Add promote for CPU later
         board.showChessBoard();
@@ -116,7 +248,7 @@ public abstract class Player {
             String in = TextUI.getUserInput();
             ChessPiece promoteTo = Parser.parsePromote(promoteFrom, in);
             ChessTile promoted = new ChessTile(promoteTo);
-            board.setTile(coord.getY(), coord.getX(), promoted);
+            board.setTile(coord.getX(), coord.getY(), promoted);
 
             promoteFailure = promoteTo.toString().equalsIgnoreCase(Pawn.PAWN_WHITE);
             if(promoteFailure){
@@ -0,0 +1,38 @@
+package chessmaster.user;
+
+import chessmaster.game.ChessBoard;
+import chessmaster.game.ChessTile;
+import chessmaster.game.Coordinate;
+import chessmaster.parser.Parser;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.pieces.Queen;
+
+/**
+ * A human playing over a connection rather than at the console. There is no one to prompt, so
+ * the piece to promote to is sent along with the move.
+ */
+public class RemoteHuman extends Human {
+
+    private String promotion = Queen.QUEEN_WHITE;
+
+    public RemoteHuman(int colour) {
+        super(colour);
+    }
+
+    /**
+     * Sets the piece the next promotion is to, e.g. "n" for a knight. Anything else promotes to a queen.
+     */
+    public void setPromotion(String promotion) {
+        this.promotion = promotion == null ? Queen.QUEEN_WHITE : promotion;
+    }
+
+    @Override
+    protected void promote(ChessBoard board, ChessPiece promoteFrom) {
+        Coordinate coord = promoteFrom.getPosition();
+        ChessPiece promoteTo = Parser.parsePromote(promoteFrom, promotion);
+        if (promoteTo == promoteFrom) {
+            promoteTo = Parser.parsePromote(promoteFrom, Queen.QUEEN_WHITE);
+        }
+        board.setTile(coord.getX(), coord.getY(), new ChessTile(promoteTo));
+    }
+}
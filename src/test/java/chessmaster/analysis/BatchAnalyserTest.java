@@ -0,0 +1,54 @@
+package chessmaster.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.engine.EngineConfig;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BatchAnalyserTest {
+
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/8/R5K1 w - -";
+
+    @Test
+    public void analyse_manyPositions_resultsInInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder("# positions\n");
+        for (int i = 0; i < 20; i++) {
+            input.append(i % 2 == 0 ? "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1" : MATE_IN_ONE)
+                    .append(" id \"").append(i).append("\";\n");
+        }
+        input.append("\nnot a position\n");
+        input.append("P3k3/8/8/8/8/8/8/4K3 w - -\n");
+
+        List<AnalysedPosition> results = new ArrayList<>();
+        AnalysisSummary summary = new BatchAnalyser(EngineConfig.parse("depth=3,hash=1"), 3)
+                .analyse(new BufferedReader(new StringReader(input.toString())), results::add);
+
+        assertEquals(22, summary.getPositionCount());
+        assertEquals(2, summary.getInvalidCount());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i), results.get(i).getRecord().getOperation("id"));
+        }
+        assertTrue(results.get(1).toEpd().startsWith(MATE_IN_ONE + " bm a1a8; dm 1;"), "mate in one missed");
+        assertTrue(!results.get(20).isValid(), "line without a position accepted");
+        assertTrue(!results.get(21).isValid(), "pawn on the last rank accepted");
+    }
+
+    @Test
+    public void analyse_outputFails_failureRethrown() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append(MATE_IN_ONE).append('\n');
+        }
+        BatchAnalyser analyser = new BatchAnalyser(EngineConfig.parse("depth=1,hash=1"), 2);
+        assertThrows(IllegalStateException.class, () -> analyser.analyse(
+                new BufferedReader(new StringReader(input.toString())), position -> {
+                    throw new IllegalStateException("Output closed");
+                }));
+    }
+}
@@ -0,0 +1,21 @@
+package chessmaster.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BenchTest {
+
+    @Test
+    public void run_twice_sameNodeCount() {
+        List<Long> positionNodes = new ArrayList<>();
+        AnalysisSummary first = new Bench(3).run(result -> positionNodes.add(result.getNodes()));
+        AnalysisSummary second = new Bench(3).run(result -> { });
+
+        assertEquals(Bench.getPositionCount(), positionNodes.size());
+        assertEquals(first.getNodes(), positionNodes.stream().mapToLong(Long::longValue).sum());
+        assertEquals(first.getNodes(), second.getNodes(), "bench signature not deterministic");
+    }
+}
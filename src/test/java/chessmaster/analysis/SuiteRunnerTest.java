@@ -0,0 +1,39 @@
+package chessmaster.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.engine.EngineConfig;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SuiteRunnerTest {
+
+    private static final String SUITE = String.join("\n",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#; id \"mate\";",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - am Ra8; id \"avoid\";",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - id \"no solution\";",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Qa8;",
+            "P5k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#;");
+
+    @Test
+    public void run_suite_solutionsCheckedInOrder() throws Exception {
+        List<SuiteResult> results = new ArrayList<>();
+        SuiteSummary summary = new SuiteRunner(EngineConfig.parse("hash=1,nodes=20000"), 0, 2)
+                .run(new BufferedReader(new StringReader(SUITE)), results::add);
+
+        assertEquals(5, summary.getPositionCount());
+        assertEquals(3, summary.getInvalidCount());
+        assertEquals(1, summary.getSolvedCount());
+        assertEquals("mate", results.get(0).getName());
+        assertTrue(results.get(0).isSolved(), "mate in one not found");
+        assertEquals(1, results.get(0).getSolution().getDepth());
+        assertTrue(!results.get(1).isSolved(), "avoided move played");
+        assertTrue(!results.get(3).isValid(), "move without a queen accepted");
+        assertEquals("#4", results.get(3).getName());
+        assertTrue(!results.get(4).isValid(), "pawn on the last rank accepted");
+    }
+}
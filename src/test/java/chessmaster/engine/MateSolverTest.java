@@ -0,0 +1,35 @@
+package chessmaster.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import org.junit.jupiter.api.Test;
+
+class MateSolverTest {
+
+    @Test
+    public void solve_mateInTwo_shortestMateAndTree() throws Exception {
+        Position position = Position.fromFen("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1");
+        MateSolution solution = new MateSolver(new ProofNumberTable(1), MateSolver.DEFAULT_MAX_NODES)
+                .solve(position, 4);
+
+        assertEquals(MateSolution.Status.PROVEN, solution.getStatus());
+        assertEquals(2, solution.getMovesToMate());
+        MateNode tree = solution.getTree();
+        assertEquals("d5f6", MoveCode.toUci(tree.getMove()));
+        assertEquals(1, tree.getReplies().size(), "only one reply to the check");
+        assertEquals("c4f7", MoveCode.toUci(tree.getReplies().get(0).getReplies().get(0).getMove()));
+        assertEquals(3, tree.getSize());
+    }
+
+    @Test
+    public void solve_stalemateOnly_disproven() throws Exception {
+        // No mate in one: every queen move stalemates, gives an escapable check or lets the king out
+        Position position = Position.fromFen("k7/8/1Q6/8/8/8/8/7K w - - 0 1");
+        MateSolution solution = new MateSolver(new ProofNumberTable(1), MateSolver.DEFAULT_MAX_NODES)
+                .solve(position, 1);
+
+        assertEquals(MateSolution.Status.DISPROVEN, solution.getStatus());
+    }
+}
@@ -0,0 +1,61 @@
+package chessmaster.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import org.junit.jupiter.api.Test;
+
+class MctsSearchTest {
+
+    @Test
+    public void search_mateInOne_playsMate() throws Exception {
+        Position position = Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 0 1");
+        for (MctsSearch.Playout playout : MctsSearch.Playout.values()) {
+            try (MctsSearch search = new MctsSearch(1, 2, playout)) {
+                SearchResult result = search.search(position, SearchLimits.nodes(20_000));
+                assertEquals("f3f7", MoveCode.toUci(result.getBestMove()), playout.name());
+            }
+        }
+    }
+
+    @Test
+    public void recycle_fullTree_keepsMostVisitedSubtree() {
+        MctsTree tree = new MctsTree(0);
+        int[] children = expand(tree, MctsTree.ROOT, 3);
+        int[] grandchildren = expand(tree, children[1], 2);
+        expand(tree, children[2], 4);
+        visit(tree, grandchildren[0], 5);
+        visit(tree, children[1], 5);
+        visit(tree, children[2], 1);
+        visit(tree, MctsTree.ROOT, 11);
+
+        tree.recycle(6);
+
+        // The root's three children and the two below the most visited one are kept
+        assertEquals(6, tree.getSize());
+        int firstChild = tree.getFirstChild(MctsTree.ROOT);
+        assertEquals(101, tree.getMove(firstChild + 1));
+        assertEquals(MctsTree.UNEXPANDED, tree.getFirstChild(firstChild + 2));
+        int firstGrandchild = tree.getFirstChild(firstChild + 1);
+        assertEquals(1110, tree.getMove(firstGrandchild));
+        assertEquals(5, tree.getVisits(firstGrandchild));
+    }
+
+    private static int[] expand(MctsTree tree, int node, int count) {
+        int first = tree.allocate(count);
+        int[] children = new int[count];
+        for (int i = 0; i < count; i++) {
+            children[i] = first + i;
+            tree.initNode(first + i, node, tree.getMove(node) * 10 + 100 + i, 1f / count);
+        }
+        tree.setChildren(node, first, count);
+        return children;
+    }
+
+    private static void visit(MctsTree tree, int node, int times) {
+        for (int i = 0; i < times; i++) {
+            tree.update(node, 0.5);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package chessmaster.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+class ChessBoardTest {
+
+    @Test
+    public void getLegalDestinations_afterMove_regenerated() throws Exception {
+        ChessBoard board = new ChessBoard();
+        Move pawnMove = Parser.parseMove("e2 e4", board);
+        Move bishopMove = Parser.parseMove("f1 c4", board);
+        assertEquals(2, board.getLegalDestinations(pawnMove.getPiece()).length);
+        assertEquals(0, board.getLegalDestinations(bishopMove.getPiece()).length);
+        assertTrue(!board.isLegalMove(bishopMove), "bishop is blocked in");
+
+        int version = board.getVersion();
+        board.executeMove(pawnMove);
+        assertTrue(board.getVersion() != version, "version unchanged by a move");
+        assertEquals(5, board.getLegalDestinations(bishopMove.getPiece()).length);
+        assertTrue(board.isLegalMove(bishopMove), "bishop move rejected after the pawn moved");
+    }
+}
@@ -0,0 +1,129 @@
+package chessmaster.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import chessmaster.exceptions.ParseFenException;
+import org.junit.jupiter.api.Test;
+
+class PositionTest {
+
+    private static final String KIWIPETE_FEN =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME_FEN = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String PROMOTION_FEN = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private static long perft(Position position, int depth) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateLegalMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    @Test
+    public void perft_startingPosition_matchesKnownCounts() {
+        Position position = Position.startingPosition();
+        assertEquals(20, perft(position, 1));
+        assertEquals(400, perft(position, 2));
+        assertEquals(8902, perft(position, 3));
+        assertEquals(197281, perft(position, 4));
+    }
+
+    @Test
+    public void perft_trickyPositions_matchKnownCounts() throws ParseFenException {
+        assertEquals(97862, perft(Position.fromFen(KIWIPETE_FEN), 3));
+        assertEquals(43238, perft(Position.fromFen(ENDGAME_FEN), 4));
+        assertEquals(9467, perft(Position.fromFen(PROMOTION_FEN), 3));
+    }
+
+    @Test
+    public void makeUnmake_restoresFen() throws ParseFenException {
+        Position position = Position.fromFen(KIWIPETE_FEN);
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            position.unmakeMove();
+            assertEquals(KIWIPETE_FEN, position.toFen());
+        }
+    }
+
+    @Test
+    public void makeMove_incrementalKey_matchesRecomputedKey() throws ParseFenException {
+        Position position = Position.fromFen(KIWIPETE_FEN);
+        int[] moves = new int[Position.MAX_MOVES];
+        for (int ply = 0; ply < 40; ply++) {
+            int count = position.generateLegalMoves(moves);
+            if (count == 0) {
+                break;
+            }
+            position.makeMove(moves[(ply * 7) % count]);
+            assertEquals(position.computeKey(), position.getKey());
+        }
+        while (position.getPly() > 0) {
+            position.unmakeMove();
+        }
+        assertEquals(Position.fromFen(KIWIPETE_FEN).getKey(), position.getKey());
+    }
+
+    @Test
+    public void getGameState_finalPositions_detected() throws ParseFenException {
+        assertEquals(Position.GameState.CHECKMATE,
+                Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").getGameState());
+        assertEquals(Position.GameState.STALEMATE, Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getGameState());
+        assertEquals(Position.GameState.FIFTY_MOVE_RULE,
+                Position.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - 100 80").getGameState());
+        assertEquals(Position.GameState.INSUFFICIENT_MATERIAL,
+                Position.fromFen("4k3/8/8/8/8/8/8/4KN2 w - - 0 1").getGameState());
+        assertEquals(Position.GameState.ONGOING, Position.fromFen(KIWIPETE_FEN).getGameState());
+    }
+
+    @Test
+    public void getGameState_knightsShuffledTwice_threefoldRepetition() {
+        Position position = Position.startingPosition();
+        for (int round = 0; round < 2; round++) {
+            assertEquals(Position.GameState.ONGOING, position.getGameState());
+            for (String move : new String[] {"g1f3", "g8f6", "f3g1", "f6g8"}) {
+                position.makeMove(position.findUciMove(move));
+            }
+        }
+        assertEquals(Position.GameState.REPETITION, position.getGameState());
+    }
+
+    @Test
+    public void makeUnmake_pieceCountsAndAnyLegalMove_matchFullGeneration() throws ParseFenException {
+        Position position = Position.fromFen(PROMOTION_FEN);
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            Position recounted = Position.fromFen(position.toFen());
+            for (int piece = 1; piece < 16; piece++) {
+                assertEquals(recounted.getPieceCount(piece), position.getPieceCount(piece));
+            }
+            assertEquals(position.generateLegalMoves(new int[Position.MAX_MOVES]) > 0, position.hasAnyLegalMove());
+            position.unmakeMove();
+        }
+        assertEquals(Position.fromFen(PROMOTION_FEN).getPieceCount(Position.PAWN),
+                position.getPieceCount(Position.PAWN));
+    }
+
+    @Test
+    public void fromFen_invalidFen_exceptionThrown() {
+        assertThrows(ParseFenException.class, () -> Position.fromFen("8/8/8 w - -"));
+        assertThrows(ParseFenException.class, () -> Position.fromFen("8/8/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(ParseFenException.class, () -> Position.fromFen(Position.STARTING_FEN.replace(" w ", " x ")));
+        assertThrows(ParseFenException.class, () -> Position.fromFen("P3k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(ParseFenException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/3pK3 b - - 0 1"));
+        // Black to move while white is in check
+        assertThrows(ParseFenException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/r3K3 b - - 0 1"));
+    }
+}
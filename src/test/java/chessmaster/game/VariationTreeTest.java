@@ -0,0 +1,61 @@
+package chessmaster.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class VariationTreeTest {
+
+    @Test
+    public void play_existingMove_followsItWithoutAddingNode() {
+        VariationTree tree = new VariationTree(Position.startingPosition());
+        int e4 = tree.play(uci(tree, "e2e4"));
+        tree.goTo(VariationTree.ROOT);
+        int d4 = tree.play(uci(tree, "d2d4"));
+        tree.goTo(VariationTree.ROOT);
+
+        assertEquals(e4, tree.play(uci(tree, "e2e4")));
+        assertEquals(3, tree.getSize());
+        assertEquals(d4, tree.getNextSibling(e4));
+    }
+
+    @Test
+    public void goTo_branchesPastSnapshots_rebuildsPositions() throws Exception {
+        // Knights shuffling out and back, so every line stays legal for as long as needed
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        String[] otherShuffle = {"b1c3", "b8c6", "c3b1", "c6b8"};
+        VariationTree tree = new VariationTree(Position.startingPosition());
+        int mainEnd = playLine(tree, shuffle, 3 * VariationTree.SNAPSHOT_INTERVAL + 1);
+        String mainEndFen = tree.getPosition().toFen();
+        // The main line's nodes are numbered by ply, and ply 28 is a cycle's start, with both knights home
+        tree.goTo(28);
+        int branchEnd = playLine(tree, otherShuffle, 2 * VariationTree.SNAPSHOT_INTERVAL + 3);
+        String branchEndFen = tree.getPosition().toFen();
+
+        tree.goTo(mainEnd);
+        assertEquals(mainEndFen, tree.getPosition().toFen());
+        tree.goTo(branchEnd);
+        assertEquals(branchEndFen, tree.getPosition().toFen());
+        tree.goTo(VariationTree.ROOT);
+        assertEquals(Position.STARTING_FEN, tree.getPosition().toFen());
+        tree.goTo(mainEnd);
+        assertEquals(mainEndFen, tree.getPosition().toFen());
+        assertEquals(Position.fromFen(mainEndFen).getKey(), tree.getPosition().getKey());
+        assertEquals("r1bqkbnr/pppppppp/2n5/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 63 32", branchEndFen);
+    }
+
+    private static int playLine(VariationTree tree, String[] moves, int plies) {
+        int node = tree.getCurrent();
+        int offset = tree.getPly(node);
+        for (int i = 0; i < plies; i++) {
+            int move = uci(tree, moves[(offset + i) % moves.length]);
+            assertEquals(true, move != MoveCode.NONE, "legal move");
+            node = tree.play(move);
+        }
+        return node;
+    }
+
+    private static int uci(VariationTree tree, String text) {
+        return tree.getPosition().findUciMove(text);
+    }
+}
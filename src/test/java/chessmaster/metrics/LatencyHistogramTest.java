@@ -0,0 +1,35 @@
+package chessmaster.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void getPercentileMillis_uniformDurations_withinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000.0, histogram.getMaxMillis(), 1e-9);
+        assertEquals(500.5, histogram.getMeanMillis(), 1e-9);
+        double p50 = histogram.getPercentileMillis(50);
+        double p99 = histogram.getPercentileMillis(99);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125, "p50 was " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 was " + p99);
+    }
+
+    @Test
+    public void reset_afterRecording_empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentileMillis(99), 1e-9);
+    }
+}
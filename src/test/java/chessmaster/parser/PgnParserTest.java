@@ -0,0 +1,52 @@
+package chessmaster.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import chessmaster.exceptions.ParseFenException;
+import chessmaster.exceptions.ParsePgnException;
+import chessmaster.game.GameRecord;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import org.junit.jupiter.api.Test;
+
+class PgnParserTest {
+
+    private static final String SAMPLE_GAME = "[Event \"Casual\"]\n"
+            + "[White \"A\"]\n"
+            + "[Black \"B\"]\n"
+            + "[Result \"1-0\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Nf3 {main line} Nc6 3. Bb5 a6 (3... Nf6 4. O-O) 4. Ba4 Nf6 5. O-O Be7 $1\n"
+            + "6. Re1 b5 7. Bb3 d6 8. c3 O-O 9.h3 Nb8 10. d4 Nbd7 ; comment\n"
+            + "11. c4 c6 12. cxb5 axb5 13. Nc3 Bb7 14. Bg5 b4 15. Nb1 h6 16. Bh4 c5 17. dxe5 Nxe4\n"
+            + "18. Bxe7 Qxe7 19. exd6 Qf6 20. Nbd2 Nxd6 21. Nc4 Nxc4 22. Bxc4 Nb6 23. Ne5 Rae8\n"
+            + "24. Bxf7+ Rxf7 25. Nxf7 Rxe1+ 26. Qxe1 Kxf7 27. Qe3 Qg5 28. Qxg5 hxg5 29. b3 Ke6\n"
+            + "30. a3 Kd6 31. axb4 cxb4 32. Ra5 Nd5 33. f3 Bc8 34. Kf2 Bf5 35. Ra7 g6 36. Ra6+ Kc5\n"
+            + "37. Ke1 Nf4 38. g3 Nxh3 39. Kd2 Kb5 40. Rd6 Kc5 41. Ra6 Nf2 42. g4 Bd3 43. Re6 1-0\n";
+
+    @Test
+    public void parseGame_fullGame_allMovesValidated() throws ParsePgnException {
+        GameRecord game = new PgnParser().parseGame(SAMPLE_GAME);
+        assertEquals(85, game.getMoves().length);
+        assertEquals(GameRecord.RESULT_WHITE_WIN, game.getResult());
+        assertEquals("Casual", game.getTags().get("Event"));
+    }
+
+    @Test
+    public void parseGame_illegalMove_exceptionThrown() {
+        assertThrows(ParsePgnException.class, () -> new PgnParser().parseGame("1. e4 e5 2. Ke3 *"));
+    }
+
+    @Test
+    public void parseSan_disambiguationAndPromotion_correctMoveFound() throws ParseFenException, ParsePgnException {
+        Position position = Position.fromFen("4k3/1P6/8/8/8/8/4K3/R6R w - - 0 1");
+        assertEquals("a1d1", MoveCode.toUci(SanParser.parseSan("Rad1", position)));
+        assertEquals("h1f1", MoveCode.toUci(SanParser.parseSan("Rhf1", position)));
+        assertEquals("b7b8n", MoveCode.toUci(SanParser.parseSan("b8=N+", position)));
+        assertEquals("e1c1", MoveCode.toUci(SanParser.parseSan("O-O-O",
+                Position.fromFen("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1"))));
+        assertThrows(ParsePgnException.class, () -> SanParser.parseSan("Rd1", position));
+        assertThrows(ParsePgnException.class, () -> SanParser.parseSan("b8", position));
+    }
+}
@@ -0,0 +1,48 @@
+package chessmaster.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.game.Position;
+import chessmaster.storage.MoveScriptReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReplayerTest {
+
+    private static final String SCRIPT = String.join("\n",
+            "# fool's mate",
+            "f7 f6",
+            "e2 e4",
+            "g7 g5",
+            "d1 h5",
+            "h7 h6",
+            "abort",
+            "",
+            "a7 a6",
+            "hint",
+            "a2 a4",
+            "a6 a5",
+            "a4 a5",
+            "exit",
+            "a2 a3");
+
+    @Test
+    public void replay_script_gamesCountedAndStopped() throws Exception {
+        List<ReplayedGame> games = new ArrayList<>();
+        ReplaySummary summary = new Replayer().replay(new MoveScriptReader(new StringReader(SCRIPT)), games::add);
+
+        assertEquals(3, summary.getGameCount());
+        assertEquals(3, summary.getInvalidGameCount());
+        assertEquals(4 + 3, summary.getMoveCount());
+
+        assertEquals(Position.GameState.CHECKMATE, games.get(0).getState());
+        assertEquals("h7 h6", games.get(0).getRejectedMove());
+        assertEquals(3, games.get(1).getMoveCount());
+        assertEquals("a4 a5", games.get(1).getRejectedMove(), "pawn captured straight ahead");
+        assertEquals(0, games.get(2).getMoveCount());
+        assertTrue(!games.get(2).isValid(), "black moved first");
+    }
+}
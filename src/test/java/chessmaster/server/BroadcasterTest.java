@@ -0,0 +1,97 @@
+package chessmaster.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.game.PackedPosition;
+import chessmaster.game.Position;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class BroadcasterTest {
+
+    @Test
+    public void publish_stalledWatcher_droppedAndOthersServed() throws Exception {
+        PackedPosition start = Position.fromFen(Position.STARTING_FEN).toPacked();
+        StalledStream stalled = new StalledStream();
+        ByteArrayOutputStream healthy = new ByteArrayOutputStream();
+        CountDownLatch stalledEnded = new CountDownLatch(1);
+        try (Broadcaster broadcaster = new Broadcaster(1, 100)) {
+            broadcaster.open(1, new GameSnapshot(0, start, "", false));
+            // The stalled watcher takes the only writer thread first
+            broadcaster.watch(1, stalled, () -> {
+                stalled.close();
+                stalledEnded.countDown();
+            });
+            assertTrue(stalled.writing.await(5, TimeUnit.SECONDS), "stalled watcher never written to");
+            broadcaster.watch(1, healthy, () -> { });
+            broadcaster.publish(1, new GameSnapshot(2, start, "move e7 e5\nmove e2 e4\n", false));
+
+            assertTrue(stalledEnded.await(5, TimeUnit.SECONDS), "stalled watcher not dropped");
+            awaitOutput(healthy, "board ");
+            broadcaster.publish(1, new GameSnapshot(4, start, "move g8 f6\nmove b1 c3\n", false));
+            awaitOutput(healthy, "move g8 f6\nmove b1 c3\n");
+            assertEquals(1, broadcaster.getDropCount());
+        }
+    }
+
+    @Test
+    public void finish_afterMoves_lineSentLastAndWatcherEnded() throws Exception {
+        PackedPosition start = Position.fromFen(Position.STARTING_FEN).toPacked();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CountDownLatch ended = new CountDownLatch(1);
+        try (Broadcaster broadcaster = new Broadcaster(1, 1000)) {
+            broadcaster.open(1, new GameSnapshot(0, start, "", false));
+            Broadcaster.Watcher watcher = broadcaster.watch(1, out, ended::countDown);
+            awaitOutput(out, "board ");
+            broadcaster.publish(1, new GameSnapshot(2, start, "move e7 e5\nmove e2 e4\n", false));
+            awaitOutput(out, "move e2 e4\n");
+            watcher.finish("bye");
+
+            assertTrue(ended.await(5, TimeUnit.SECONDS), "watcher not ended");
+            assertTrue(out.toString().endsWith("move e2 e4\nbye\n"), "bye not sent last");
+        }
+    }
+
+    private static void awaitOutput(ByteArrayOutputStream out, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!out.toString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(out.toString().contains(expected), "never sent " + expected);
+    }
+
+    /**
+     * A connection whose client never reads: writes block until it is closed.
+     */
+    private static class StalledStream extends OutputStream {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            writing.countDown();
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Connection closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package chessmaster.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Coordinate;
+import chessmaster.game.Game;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.pieces.Knight;
+import chessmaster.user.CPU;
+import chessmaster.user.RemoteHuman;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+
+class GameSessionTest {
+
+    @Test
+    public void execute_promotionWithPiece_pieceOnDestination() throws Exception {
+        SessionStore store = new SessionStore(Files.createTempDirectory("sessions"),
+                SessionStore.DEFAULT_HEAP_BUDGET_BYTES);
+        try (SearchScheduler scheduler = new SearchScheduler(1, 1);
+                Broadcaster broadcaster = new Broadcaster(1)) {
+            GameSession session = new GameSession(null, 1, scheduler, store, broadcaster, 50, () -> { });
+            // White's pawn on b7, which the console calls b2, promotes; black keeps a pawn so the game goes on
+            ChessBoard board = Position.fromFen("4k3/1P5p/8/8/8/8/8/4K3 w - - 0 1").toPacked().toChessBoard();
+            CPU cpu = new CPU(ChessPiece.BLACK, (position, limits) -> scheduler.search(position, limits, 1));
+            Game game = new Game(new RemoteHuman(ChessPiece.WHITE), cpu, board);
+            store.put(1, game);
+
+            String reply = session.execute("b2 b1 n");
+            assertTrue(reply.startsWith("move "), reply);
+            String fen = session.execute("board");
+            assertTrue(fen.startsWith("board 1N"), "no knight on b8 in " + fen);
+            Coordinate destination = Coordinate.parseAlgebraicCoor("b1");
+            assertEquals(Knight.KNIGHT_WHITE, game.getBoard().getPieceAtCoor(destination).toString());
+        }
+    }
+}
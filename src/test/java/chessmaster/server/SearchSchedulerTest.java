@@ -0,0 +1,68 @@
+package chessmaster.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.engine.SearchLimits;
+import chessmaster.game.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class SearchSchedulerTest {
+
+    private static final int QUEUED_COUNT = 4;
+
+    @Test
+    public void createBudget_queueFilled_budgetShrinksAndMetricsGrow() throws Exception {
+        Position start = Position.fromFen(Position.STARTING_FEN);
+        try (SearchScheduler scheduler = new SearchScheduler(1, 1)) {
+            SearchLimits requested = SearchLimits.time(1_000);
+            SearchLimits idle = scheduler.createBudget(requested, 3, 0);
+            assertEquals(4, idle.getDepth());
+            assertEquals(50_000, idle.getNodes());
+            assertEquals(1_000, idle.getTimeMillis());
+            assertEquals(0, scheduler.getDegradedCount());
+
+            // One long search holds the only thread while the others queue behind it
+            List<CompletableFuture<?>> searches = new ArrayList<>();
+            searches.add(CompletableFuture.runAsync(() -> scheduler.search(start, SearchLimits.time(500), 5)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (scheduler.getRequestCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < QUEUED_COUNT; i++) {
+                searches.add(CompletableFuture.runAsync(() -> scheduler.search(start, requested, 1)));
+            }
+            awaitQueueDepth(scheduler, QUEUED_COUNT);
+
+            // Four queued per thread is two doublings of the load, so three plies off
+            long degradedCount = scheduler.getDegradedCount();
+            SearchLimits loaded = scheduler.createBudget(requested, 3, 100);
+            assertEquals(1, loaded.getDepth());
+            assertEquals(50_000 >> 3, loaded.getNodes());
+            assertEquals((1_000 - 100) / (1 + QUEUED_COUNT), loaded.getTimeMillis());
+            assertEquals(degradedCount + 1, scheduler.getDegradedCount());
+
+            for (CompletableFuture<?> search : searches) {
+                search.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1 + QUEUED_COUNT, scheduler.getRequestCount());
+            assertTrue(scheduler.getDegradedCount() > degradedCount + 1, "queued searches not degraded");
+            assertTrue(scheduler.getMaxQueueDepth() >= QUEUED_COUNT, "queue depth not recorded");
+            assertTrue(scheduler.getMaxWaitMillis() > 0, "wait not recorded");
+            assertTrue(scheduler.getAverageWaitMillis() > 0, "wait not recorded");
+        }
+    }
+
+    private static void awaitQueueDepth(SearchScheduler scheduler, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getQueueDepth() != depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(depth, scheduler.getQueueDepth());
+    }
+}
@@ -0,0 +1,99 @@
+package chessmaster.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.engine.SearchResult;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Game;
+import chessmaster.game.MoveCode;
+import chessmaster.game.PackedPosition;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.user.CPU;
+import chessmaster.user.RemoteHuman;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.function.Function;
+
+class SessionStoreTest {
+
+    /** Two whole games and 58 packed ones. */
+    private static final long HEAP_BUDGET_BYTES = 2L * 2 * SessionStore.GAME_FOOTPRINT_BYTES;
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+    private int restoreCount;
+
+    @Test
+    public void get_gamesBeyondBudget_packedSpilledAndRestored() throws Exception {
+        SessionStore store = new SessionStore(Files.createTempDirectory("sessions"), HEAP_BUDGET_BYTES);
+        int memoryCount = store.getCapacity();
+        int packedCount = store.getPackedCapacity();
+        assertEquals(2, memoryCount);
+        assertEquals(58, packedCount);
+        Function<ChessBoard, Game> restorer = board -> {
+            restoreCount++;
+            return createGame(board);
+        };
+
+        // Game 0, the first to be spilled, is not at the start, so restoring it from disk shows
+        PackedPosition afterE4 = Position.fromFen(AFTER_E4).toPacked();
+        store.put(0, createGame(afterE4.toChessBoard()));
+        int gameCount = memoryCount + packedCount + 3;
+        for (int id = 1; id < gameCount; id++) {
+            store.put(id, createGame(new ChessBoard()));
+        }
+        assertEquals(memoryCount, store.getInMemoryCount());
+        assertEquals(packedCount, store.getPackedCount());
+        assertEquals(3, store.getSpilledCount());
+        assertEquals(3, store.getSpills());
+
+        // The last game put is still whole; the 11th is packed; the first is on disk
+        store.put(gameCount - 1, store.get(gameCount - 1, restorer));
+        assertEquals(1, store.getHits());
+        assertEquals(0, restoreCount);
+        store.put(10, store.get(10, restorer));
+        assertEquals(1, store.getPackedHits());
+        assertEquals(1, restoreCount);
+        Game restored = store.get(0, restorer);
+        assertEquals(1, store.getMisses());
+        assertEquals(2, restoreCount);
+        assertTrue(restored.getPackedPosition().hasSamePieces(afterE4), "spilled game restored wrongly");
+        store.put(0, restored);
+
+        // A game read back from disk pushes a whole game down to packed, and so a packed one to disk
+        assertEquals(memoryCount, store.getInMemoryCount());
+        assertEquals(packedCount, store.getPackedCount());
+        assertEquals(3, store.getSpilledCount());
+        assertEquals(4, store.getSpills());
+        assertEquals(null, store.get(gameCount, restorer));
+        assertEquals(1, store.getMisses());
+        assertEquals(2.0 / 3, store.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void put_othersWhileGameInUse_gameInUseNotPacked() throws Exception {
+        SessionStore store = new SessionStore(Files.createTempDirectory("sessions"), HEAP_BUDGET_BYTES);
+        Game game = createGame(new ChessBoard());
+        store.put(0, game);
+        assertTrue(store.get(0, board -> null) == game, "game not kept whole");
+        // Other sessions come and go while game 0 is between get and put, the least recent of all
+        for (int id = 1; id <= store.getCapacity(); id++) {
+            store.put(id, createGame(new ChessBoard()));
+        }
+        assertEquals(1, store.getPackedCount());
+        assertEquals(store.getCapacity(), store.getInMemoryCount());
+
+        store.put(0, game);
+        assertTrue(store.get(0, board -> null) == game, "game in use was packed");
+        assertEquals(2, store.getHits());
+        assertEquals(0, store.getPackedHits());
+    }
+
+    private static Game createGame(ChessBoard board) {
+        CPU cpu = new CPU(ChessPiece.BLACK, (position, limits) ->
+                new SearchResult(MoveCode.NONE, 0, 0, 0, 0, new int[0]));
+        return new Game(new RemoteHuman(ChessPiece.WHITE), cpu, board);
+    }
+}
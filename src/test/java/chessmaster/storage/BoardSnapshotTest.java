@@ -0,0 +1,46 @@
+package chessmaster.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import chessmaster.exceptions.LoadBoardException;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Coordinate;
+import chessmaster.game.Move;
+import chessmaster.game.PackedPosition;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+import org.junit.jupiter.api.Test;
+
+class BoardSnapshotTest {
+
+    @Test
+    public void decode_encodedBoardAfterMoves_samePlacement() throws Exception {
+        ChessBoard board = new ChessBoard();
+        Coordinate from = Coordinate.parseAlgebraicCoor("e7");
+        board.executeMove(new Move(from, Coordinate.parseAlgebraicCoor("e5"), board.getPieceAtCoor(from)));
+        from = Coordinate.parseAlgebraicCoor("g1");
+        board.executeMove(new Move(from, Coordinate.parseAlgebraicCoor("f3"), board.getPieceAtCoor(from)));
+
+        PackedPosition position = PackedPosition.fromChessBoard(board, ChessPiece.WHITE);
+        byte[] snapshot = BoardSnapshot.encode(position);
+        ChessBoard restored = BoardSnapshot.decode(snapshot).toChessBoard();
+
+        assertEquals(BoardSnapshot.SIZE, snapshot.length);
+        assertEquals(position, PackedPosition.fromChessBoard(restored, ChessPiece.WHITE));
+        assertEquals(ChessPiece.BLACK, restored.getPieceAtCoor(Coordinate.parseAlgebraicCoor("f3")).getColour());
+    }
+
+    @Test
+    public void decode_encodedPosition_sameState() throws Exception {
+        String fen = "r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 12 140";
+        PackedPosition position = Position.fromFen(fen).toPacked();
+
+        assertEquals(fen, BoardSnapshot.decode(BoardSnapshot.encode(position)).toFen());
+    }
+
+    @Test
+    public void decode_wrongLength_exceptionThrown() {
+        assertThrows(LoadBoardException.class, () -> BoardSnapshot.decode(new byte[3]));
+    }
+}
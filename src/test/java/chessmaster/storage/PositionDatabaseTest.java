@@ -0,0 +1,111 @@
+package chessmaster.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.game.GameRecord;
+import chessmaster.game.Position;
+import chessmaster.parser.PgnParser;
+import chessmaster.pieces.ChessPiece;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class PositionDatabaseTest {
+
+    private static final String WIN = "1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0";
+    private static final String DRAW = "1. e4 c5 2. Nf3 d6 1/2-1/2";
+    /** The position after 1. e4 as a ChessBoard gives it, without the en passant square. */
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+    @Test
+    public void query_boardPositionAfterDoublePush_found() throws Exception {
+        PositionDatabase database = PositionDatabase.createInMemory(1024);
+        database.addGame(new PgnParser().parseGame(WIN), PositionDatabase.DEFAULT_MAX_PLY);
+        database.addGame(new PgnParser().parseGame(DRAW), PositionDatabase.DEFAULT_MAX_PLY);
+
+        Position position = Position.fromChessBoard(Position.fromFen(AFTER_E4).toPacked().toChessBoard(),
+                ChessPiece.BLACK);
+        List<MoveStatistics> statistics = database.query(position);
+        assertEquals(2, statistics.size());
+        assertEquals(2, statistics.get(0).getGameCount() + statistics.get(1).getGameCount());
+    }
+
+    @Test
+    public void addGame_manyThreadsAcrossSegments_everyGameCounted() throws Exception {
+        // 64 segments of 16 entries, so the probes cross segment boundaries
+        PositionDatabase database = PositionDatabase.createInMemory(1024, 4);
+        GameRecord win = new PgnParser().parseGame(WIN);
+        GameRecord draw = new PgnParser().parseGame(DRAW);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                GameRecord game = i % 2 == 0 ? win : draw;
+                futures.add(executor.submit(() -> database.addGame(game, PositionDatabase.DEFAULT_MAX_PLY)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // 1. e4 is shared, the other moves are not
+        assertEquals(6 + 4 - 1, database.getSize());
+        MoveStatistics e4 = database.query(Position.fromFen(Position.STARTING_FEN)).get(0);
+        assertEquals(100, e4.getWhiteWins());
+        assertEquals(100, e4.getDraws());
+        assertEquals(0, e4.getBlackWins());
+    }
+
+    @Test
+    public void openMapped_reopened_sameStatistics() throws Exception {
+        Path path = Files.createTempFile("explorer", ".db");
+        try {
+            try (PositionDatabase database = PositionDatabase.openMapped(path, 256, 4)) {
+                database.addGame(new PgnParser().parseGame(WIN), PositionDatabase.DEFAULT_MAX_PLY);
+                database.addGame(new PgnParser().parseGame(DRAW), PositionDatabase.DEFAULT_MAX_PLY);
+            }
+            // The segments lie back to back, so the file reads the same with the default segment size
+            try (PositionDatabase database = PositionDatabase.openMapped(path, 0)) {
+                assertEquals(256, database.getCapacity());
+                assertEquals(9, database.getSize());
+                MoveStatistics e4 = database.query(Position.fromFen(Position.STARTING_FEN)).get(0);
+                assertEquals(2, e4.getGameCount());
+                assertEquals(2, database.query(Position.fromFen(AFTER_E4)).size());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void openReadOnly_builtFile_lookupsWithoutWriting() throws Exception {
+        Path path = Files.createTempFile("explorer", ".db");
+        try {
+            try (PositionDatabase database = PositionDatabase.openMapped(path, 256)) {
+                database.addGame(new PgnParser().parseGame(WIN), PositionDatabase.DEFAULT_MAX_PLY);
+            }
+            byte[] built = Files.readAllBytes(path);
+            try (PositionDatabase database = PositionDatabase.openReadOnly(path)) {
+                assertEquals(6, database.getSize());
+                assertEquals(1, database.query(Position.fromFen(Position.STARTING_FEN)).get(0).getWhiteWins());
+            }
+            assertTrue(Arrays.equals(built, Files.readAllBytes(path)), "read-only database written to");
+        } finally {
+            Files.delete(path);
+        }
+        assertThrows(IOException.class, () -> PositionDatabase.openReadOnly(path));
+        assertTrue(!Files.exists(path), "missing database created");
+    }
+}
@@ -0,0 +1,25 @@
+package chessmaster.storage;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import chessmaster.exceptions.LoadBoardException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class StorageTest {
+
+    @Test
+    public void loadBoard_shortOrBlankFile_exceptionThrown() throws Exception {
+        Path path = Files.createTempFile("game", ".txt");
+        try {
+            for (String content : new String[] {"", "\n\n", "rnbqkbnr\npppppppp\n", "rnbq\n"}) {
+                Files.writeString(path, content);
+                assertThrows(LoadBoardException.class, () -> new Storage(path.toString()).loadBoard());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
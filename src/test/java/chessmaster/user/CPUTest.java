@@ -0,0 +1,66 @@
+package chessmaster.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import chessmaster.engine.SearchResult;
+import chessmaster.engine.TimeManager;
+import chessmaster.exceptions.NullPieceException;
+import chessmaster.game.ChessBoard;
+import chessmaster.game.Move;
+import chessmaster.game.MoveCode;
+import chessmaster.game.Position;
+import chessmaster.pieces.ChessPiece;
+import chessmaster.pieces.Knight;
+import org.junit.jupiter.api.Test;
+
+class CPUTest {
+
+    @Test
+    public void move_underPromotion_knightOnDestination() throws Exception {
+        // The pawn is off the diagonal, so swapping the row and column would put the knight elsewhere
+        Position position = Position.fromFen("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        ChessBoard board = position.toPacked().toChessBoard();
+        CPU cpu = new CPU(ChessPiece.WHITE, (root, limits) -> {
+            int[] moves = new int[Position.MAX_MOVES];
+            int count = root.generateLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (MoveCode.promotion(moves[i]) == Position.KNIGHT) {
+                    return new SearchResult(moves[i], 0, 1, 1, 0, new int[] {moves[i]});
+                }
+            }
+            return new SearchResult(MoveCode.NONE, 0, 0, 0, 0, new int[0]);
+        });
+
+        Move move = cpu.getBestMove(board, null, null, TimeManager.fixed(100));
+        assertEquals(true, cpu.move(move, board));
+        assertEquals(Knight.KNIGHT_WHITE, board.getPieceAtCoor(move.getTo()).toString());
+        assertEquals(move.getTo(), board.getPieceAtCoor(move.getTo()).getPosition());
+        assertThrows(NullPieceException.class, () -> board.getPieceAtCoor(move.getFrom()));
+    }
+
+    @Test
+    public void getBestMove_enPassantFound_boardSearchedInstead() throws Exception {
+        // Black has just played d7-d5 past the pawn on e5, which the board cannot capture en passant
+        Position history = Position.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2");
+        ChessBoard board = history.toPacked().toChessBoard();
+        CPU cpu = new CPU(ChessPiece.WHITE, (root, limits) -> {
+            int[] moves = new int[Position.MAX_MOVES];
+            int count = root.generateLegalMoves(moves);
+            // The pawn's moves, with the capture first if the position has it
+            int bestMove = MoveCode.NONE;
+            for (int i = 0; i < count; i++) {
+                boolean isPawnMove = Position.typeOf(root.getPiece(MoveCode.from(moves[i]))) == Position.PAWN;
+                if (isPawnMove && (bestMove == MoveCode.NONE || MoveCode.isCapture(moves[i]))) {
+                    bestMove = moves[i];
+                }
+            }
+            return new SearchResult(bestMove, 0, 1, 1, 0, new int[] {bestMove});
+        });
+
+        Move move = cpu.getBestMove(board, history, null, TimeManager.fixed(100));
+        assertTrue(board.isLegalMove(move), "move rejected by the board");
+        assertEquals(true, cpu.move(move, board));
+    }
+}